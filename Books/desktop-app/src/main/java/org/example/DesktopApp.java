@@ -1,20 +1,35 @@
 package org.example;
 
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.PauseTransition;
+import javafx.animation.Timeline;
 import javafx.application.Application;
 import javafx.geometry.Insets;
+import javafx.geometry.Side;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 import org.example.api.ApiClient;
+import org.example.api.BookCatalog;
 import org.example.model.Book;
+import org.example.model.BookFacets;
+import org.example.model.BookPage;
+import org.example.model.BookSuggestion;
 
 import org.example.model.Comment;
+import org.example.model.CommentPage;
 import org.example.model.Message;
+import org.example.model.MessagePage;
 import org.example.model.User;
+import org.example.model.UserEvent;
 
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 /**
  * Desktop Application for Books Management System
@@ -24,12 +39,28 @@ import java.util.concurrent.CompletableFuture;
  */
 public class DesktopApp extends Application {
 
+    private static final int BROWSE_PAGE_SIZE = 50;
+    private static final int COMMENT_PAGE_SIZE = 20;
+    private static final int MESSAGE_PAGE_SIZE = 30;
+    private static final Duration UNREAD_POLL_INTERVAL = Duration.seconds(30);
+    // Typing pause before suggestions are requested, and how many are shown
+    private static final Duration TYPE_AHEAD_DELAY = Duration.millis(250);
+    private static final int TYPE_AHEAD_MIN_LENGTH = 2;
+    private static final int TYPE_AHEAD_LIMIT = 8;
+
     private ApiClient apiClient;
     private User currentUser;
     private Stage primaryStage;
     private TabPane mainTabPane;
     private VBox loginPane;
     private VBox mainContent;
+    // Unread count shown next to the Messages tab title, and the timeline that keeps it current
+    private Label unreadBadge;
+    private Timeline unreadPoller;
+    // Server push of new messages, book status changes and comments on the user's books
+    private ApiClient.EventSubscription eventSubscription;
+    // Local copy of the book catalog behind the unfiltered Browse Books view, refreshed by delta sync
+    private BookCatalog bookCatalog;
 
     @Override
     public void start(Stage primaryStage) {
@@ -44,7 +75,26 @@ public class DesktopApp extends Application {
         primaryStage.show();
     }
 
+    @Override
+    public void stop() {
+        if (apiClient != null) {
+            apiClient.saveCache();
+        }
+    }
+
     private void showLoginScreen() {
+        if (unreadPoller != null) {
+            unreadPoller.stop();
+            unreadPoller = null;
+        }
+        if (eventSubscription != null) {
+            eventSubscription.close();
+            eventSubscription = null;
+        }
+        if (apiClient != null) {
+            apiClient.saveCache();
+            apiClient.logout();
+        }
         loginPane = new VBox(20);
         loginPane.setPadding(new Insets(20));
         loginPane.setAlignment(javafx.geometry.Pos.CENTER);
@@ -220,6 +270,7 @@ public class DesktopApp extends Application {
     }
 
     private void showMainApplication() {
+        bookCatalog = new BookCatalog(apiClient);
         mainContent = new VBox(10);
         mainContent.setPadding(new Insets(10));
 
@@ -271,22 +322,78 @@ public class DesktopApp extends Application {
 
         // Load initial data after login
         loadInitialData();
+
+        eventSubscription = apiClient.subscribeToEvents(
+            event -> javafx.application.Platform.runLater(() -> applyUserEvent(event)));
     }
 
-    private void loadInitialData() {
-        // Load available books (excluding current user's books)
-        apiClient.getAvailableBooksExcludingCurrentUser()
-            .thenAccept(books -> {
-                javafx.application.Platform.runLater(() -> {
-                    // Update the Browse Books tab
-                    for (Tab tab : mainTabPane.getTabs()) {
-                        if ("Browse Books".equals(tab.getText())) {
-                            updateBooksTable(books, tab);
+    // Applies a pushed event to what is on screen instead of reloading whole lists
+    private void applyUserEvent(UserEvent event) {
+        if (event.getType() == null || mainTabPane == null) {
+            return;
+        }
+        switch (event.getType()) {
+            case UserEvent.MESSAGE_RECEIVED -> {
+                VBox messagesArea = findMessagesArea();
+                if (messagesArea != null && event.getMessage() != null) {
+                    // Drop the "No messages yet" placeholder
+                    messagesArea.getChildren().removeIf(node -> node instanceof Label);
+                    messagesArea.getChildren().add(0, createMessageBox(event.getMessage()));
+                }
+                refreshUnreadBadge();
+            }
+            case UserEvent.BOOK_STATUS_CHANGED -> updateBookRows(event.getBookId(), book -> book.setStatus(event.getBookStatus()));
+            case UserEvent.COMMENT_ADDED -> updateBookRows(event.getBookId(), book -> book.setCommentCount(book.getCommentCount() + 1));
+            default -> { }
+        }
+    }
+
+    // Updates the book's row in the Browse Books and My Books tables, where present
+    private void updateBookRows(String bookId, java.util.function.Consumer<Book> change) {
+        for (Tab tab : mainTabPane.getTabs()) {
+            if (!"Browse Books".equals(tab.getText()) && !"My Books".equals(tab.getText())) {
+                continue;
+            }
+            for (javafx.scene.Node node : ((VBox) tab.getContent()).getChildren()) {
+                if (node instanceof TableView) {
+                    @SuppressWarnings("unchecked")
+                    TableView<Book> table = (TableView<Book>) node;
+                    for (Book book : table.getItems()) {
+                        if (book.getId().equals(bookId)) {
+                            change.accept(book);
+                            table.refresh();
                             break;
                         }
                     }
-                });
-            })
+                    break;
+                }
+            }
+        }
+    }
+
+    private VBox findMessagesArea() {
+        for (Tab tab : mainTabPane.getTabs()) {
+            if ("Messages".equals(tab.getText())) {
+                return (VBox) ((VBox) tab.getContent()).getChildren().get(2);
+            }
+        }
+        return null;
+    }
+
+    private void loadInitialData() {
+        // Load available books (excluding current user's books); a cached list from the last session is shown
+        // at once and replaced if the server's differs
+        java.util.function.Consumer<List<Book>> showAvailable = books -> javafx.application.Platform.runLater(() -> {
+            // Update the Browse Books tab
+            for (Tab tab : mainTabPane.getTabs()) {
+                if ("Browse Books".equals(tab.getText())) {
+                    updateBooksTable(books, tab);
+                    break;
+                }
+            }
+        });
+        apiClient.getAvailableBooksExcludingCurrentUser(showAvailable)
+            .thenAccept(showAvailable)
             .exceptionally(throwable -> {
                 javafx.application.Platform.runLater(() -> {
                     showAlert("Error", "Failed to load books: " + throwable.getMessage());
@@ -294,19 +401,18 @@ public class DesktopApp extends Application {
                 return null;
             });
 
-        // Load user's related books (owned + borrowed + reserved)
-        apiClient.getAllUserRelatedBooks(currentUser.getId())
-            .thenAccept(books -> {
-                javafx.application.Platform.runLater(() -> {
-                    // Update the My Books tab
-                    for (Tab tab : mainTabPane.getTabs()) {
-                        if ("My Books".equals(tab.getText())) {
-                            updateBooksTable(books, tab);
-                            break;
-                        }
-                    }
-                });
-            })
+        // Load user's related books (owned + borrowed + reserved), also from the cache first
+        java.util.function.Consumer<List<Book>> showRelated = books -> javafx.application.Platform.runLater(() -> {
+            // Update the My Books tab
+            for (Tab tab : mainTabPane.getTabs()) {
+                if ("My Books".equals(tab.getText())) {
+                    updateBooksTable(books, tab);
+                    break;
+                }
+            }
+        });
+        apiClient.getAllUserRelatedBooks(currentUser.getId(), showRelated)
+            .thenAccept(showRelated)
             .exceptionally(throwable -> {
                 javafx.application.Platform.runLater(() -> {
                     showAlert("Error", "Failed to load your books: " + throwable.getMessage());
@@ -372,6 +478,7 @@ public class DesktopApp extends Application {
         // Books table (needs to be declared before the buttons)
         TableView<Book> booksTable = new TableView<>();
         booksTable.setPlaceholder(new Label("No books available"));
+        installLazyPaging(booksTable);
 
                 // Add search functionality
         searchButton.setOnAction(e -> {
@@ -410,6 +517,9 @@ public class DesktopApp extends Application {
             loadBooksForBrowseTab(booksTable);
         });
 
+        installTypeAhead(searchField, authorField, searchButton);
+        searchField.setOnAction(e -> searchButton.fire());
+
         searchBox.getChildren().addAll(searchField, categoryCombo, statusCombo, authorField, yearFromField, yearToField, searchButton, clearButton);
 
         // Configure the books table
@@ -439,7 +549,17 @@ public class DesktopApp extends Application {
         TableColumn<Book, String> ownerCol = new TableColumn<>("Owner");
         ownerCol.setCellValueFactory(data -> new javafx.beans.property.SimpleStringProperty(data.getValue().getOwnerName()));
 
-        booksTable.getColumns().addAll(titleCol, authorCol, categoryCol, yearCol, statusCol, descriptionCol, ownerCol);
+        // Popularity; numeric columns so sorting by them orders by count
+        TableColumn<Book, Number> commentsCol = new TableColumn<>("Comments");
+        commentsCol.setCellValueFactory(data -> new javafx.beans.property.SimpleLongProperty(data.getValue().getCommentCount()));
+        commentsCol.setPrefWidth(80);
+
+        TableColumn<Book, Number> borrowsCol = new TableColumn<>("Borrows");
+        borrowsCol.setCellValueFactory(data -> new javafx.beans.property.SimpleLongProperty(data.getValue().getBorrowCount()));
+        borrowsCol.setPrefWidth(70);
+
+        booksTable.getColumns().addAll(titleCol, authorCol, categoryCol, yearCol, statusCol, descriptionCol, ownerCol,
+                                       commentsCol, borrowsCol);
         booksTable.setPrefHeight(400);
 
         // Action buttons (different for admin vs regular users)
@@ -494,7 +614,11 @@ public class DesktopApp extends Application {
             actionBox.getChildren().addAll(reserveButton, borrowButton, contactOwnerButton);
         }
 
-        content.getChildren().addAll(searchBox, booksTable, actionBox);
+        // Result counts per publication decade for the current search
+        Label decadeFacetsLabel = new Label();
+        booksTable.getProperties().put(BookFacets.class, decadeFacetsLabel);
+
+        content.getChildren().addAll(searchBox, decadeFacetsLabel, booksTable, actionBox);
         tab.setContent(content);
 
         return tab;
@@ -672,9 +796,24 @@ public class DesktopApp extends Application {
         Button refreshButton = new Button("Refresh Messages");
         refreshButton.setOnAction(e -> loadUserMessages(messagesArea));
 
-        content.getChildren().addAll(titleLabel, refreshButton, messagesArea);
+        Button markAllReadButton = new Button("Mark all as read");
+        markAllReadButton.setOnAction(e -> markAllMessagesRead(messagesArea));
+
+        HBox buttonBox = new HBox(10, refreshButton, markAllReadButton);
+
+        content.getChildren().addAll(titleLabel, buttonBox, messagesArea);
         tab.setContent(content);
 
+        // The tab text stays "Messages" (other code finds the tab by it); the count is the tab's graphic
+        unreadBadge = new Label();
+        unreadBadge.setStyle("-fx-background-color: #dc3545; -fx-text-fill: white; -fx-font-size: 10px; -fx-padding: 0px 5px; -fx-background-radius: 8px;");
+        unreadBadge.setVisible(false);
+        tab.setGraphic(unreadBadge);
+
+        unreadPoller = new Timeline(new KeyFrame(UNREAD_POLL_INTERVAL, e -> refreshUnreadBadge()));
+        unreadPoller.setCycleCount(Animation.INDEFINITE);
+        unreadPoller.play();
+
         // Load messages initially
         loadUserMessages(messagesArea);
 
@@ -963,7 +1102,8 @@ public class DesktopApp extends Application {
                 @SuppressWarnings("unchecked")
                 TableView<Book> table = (TableView<Book>) node;
 
-                // Clear existing items and add new ones
+                // Clear existing items and add new ones; the rows no longer mirror the synced catalog
+                table.getProperties().remove(BookCatalog.class);
                 table.getItems().clear();
                 table.getItems().addAll(books);
                 break;
@@ -1149,12 +1289,19 @@ public class DesktopApp extends Application {
                     }
                 }
 
-                // Find the table and refresh it with current filters
+                // Find the table and refresh it with current filters; without filters it shows the synced catalog
+                boolean unfiltered = (query == null || query.isBlank()) && "All Categories".equals(category)
+                    && "All Statuses".equals(status) && (author == null || author.isBlank())
+                    && yearFrom == null && yearTo == null;
                 for (javafx.scene.Node node : content.getChildren()) {
                     if (node instanceof TableView) {
                         @SuppressWarnings("unchecked")
                         TableView<Book> booksTable = (TableView<Book>) node;
-                        searchBooks(query, category, status, author, yearFrom, yearTo, booksTable);
+                        if (unfiltered) {
+                            syncCatalogIntoTable(booksTable);
+                        } else {
+                            searchBooks(query, category, status, author, yearFrom, yearTo, booksTable);
+                        }
                         break;
                     }
                 }
@@ -1163,32 +1310,305 @@ public class DesktopApp extends Application {
         }
     }
 
+    // Pulls catalog changes since the last sync and patches only the affected rows of the Browse table
+    private void syncCatalogIntoTable(TableView<Book> booksTable) {
+        bookCatalog.sync()
+            .thenAccept(delta -> {
+                javafx.application.Platform.runLater(() -> applyCatalogDelta(booksTable, delta));
+            })
+            .exceptionally(throwable -> {
+                javafx.application.Platform.runLater(() -> {
+                    showAlert("Error", "Failed to refresh books: " + throwable.getMessage());
+                });
+                return null;
+            });
+    }
+
+    private void applyCatalogDelta(TableView<Book> booksTable, BookCatalog.Delta delta) {
+        javafx.collections.ObservableList<Book> rows = booksTable.getItems();
+        if (booksTable.getProperties().get(BookCatalog.class) != bookCatalog || delta.isReset()) {
+            // The table showed something else (a search, or a catalog since rebuilt): redraw it once
+            booksTable.getProperties().remove(BrowseSearch.class);
+            booksTable.getProperties().put(BookCatalog.class, bookCatalog);
+            rows.setAll(bookCatalog.getBooks().stream().filter(this::isBrowsable).toList());
+        } else if (!delta.isEmpty()) {
+            rows.removeIf(book -> delta.getDeletedIds().contains(book.getId())
+                || delta.getUpdatedIds().contains(book.getId()));
+            for (String id : delta.getUpdatedIds()) {
+                Book book = bookCatalog.get(id);
+                if (book != null && isBrowsable(book)) {
+                    int index = java.util.Collections.binarySearch(rows, book, BookCatalog.CATALOG_ORDER);
+                    rows.add(index < 0 ? -index - 1 : index, book);
+                }
+            }
+        }
+        showFacetCounts(booksTable, countFacets(rows));
+    }
+
+    // The unfiltered Browse view lists everyone's books except the user's own, like the server search
+    private boolean isBrowsable(Book book) {
+        return currentUser == null || !currentUser.getId().equals(book.getOwnerId());
+    }
+
+    // Facet counts of the rows on screen, in the same shape the server search returns
+    private BookFacets countFacets(List<Book> books) {
+        BookFacets facets = new BookFacets();
+        for (Book.BookCategory category : Book.BookCategory.values()) {
+            facets.getCategories().put(category.getDisplayName(), 0L);
+        }
+        for (Book.BookStatus status : Book.BookStatus.values()) {
+            facets.getStatuses().put(status.name(), 0L);
+        }
+        java.util.TreeMap<Integer, Long> decades = new java.util.TreeMap<>();
+        for (Book book : books) {
+            if (book.getCategory() != null) {
+                facets.getCategories().merge(book.getCategory().getDisplayName(), 1L, Long::sum);
+            }
+            if (book.getStatus() != null) {
+                facets.getStatuses().merge(book.getStatus().name(), 1L, Long::sum);
+            }
+            if (book.getPublicationYear() != null) {
+                decades.merge(Math.floorDiv(book.getPublicationYear(), 10) * 10, 1L, Long::sum);
+            }
+        }
+        decades.forEach((decade, count) -> facets.getDecades().put(decade + "s", count));
+        return facets;
+    }
+
     private void searchBooks(String query, String category, String status, String author, Integer yearFrom, Integer yearTo, TableView<Book> booksTable) {
         // Convert "All Categories" and "All Statuses" to null for API call
         String categoryParam = ("All Categories".equals(category)) ? null : category;
         String statusParam = ("All Statuses".equals(status)) ? null : status;
 
-        // Use unified search with all filters - server handles everything
-        apiClient.searchBooksUnified(query, categoryParam, author, statusParam, yearFrom, yearTo, true)
-            .thenAccept(books -> {
+        // Start a new search. A text query gets the most relevant BROWSE_PAGE_SIZE matches and no further
+        // pages; filters alone are paged in catalog order as the user scrolls (see installLazyPaging)
+        BrowseSearch search = new BrowseSearch(query, categoryParam, author, statusParam, yearFrom, yearTo);
+        booksTable.getProperties().remove(BookCatalog.class);
+        booksTable.getProperties().put(BrowseSearch.class, search);
+        search.loading = true;
+
+        CompletableFuture<BookPage> firstPage = query != null && !query.isBlank()
+            ? apiClient.searchBooksRanked(query, categoryParam, author, statusParam, yearFrom, yearTo, true, BROWSE_PAGE_SIZE)
+            : apiClient.searchBooksUnified(query, categoryParam, author, statusParam, yearFrom, yearTo, true, null, BROWSE_PAGE_SIZE, true);
+        firstPage
+            .thenAccept(page -> {
                 javafx.application.Platform.runLater(() -> {
+                    // Ignore responses for searches that have since been replaced
+                    if (booksTable.getProperties().get(BrowseSearch.class) != search) {
+                        return;
+                    }
                     booksTable.getItems().clear();
-                    booksTable.getItems().addAll(books);
+                    booksTable.getItems().addAll(page.getItems());
+                    showFacetCounts(booksTable, page.getFacets());
+                    search.nextCursor = page.getNext();
+                    search.loading = false;
                 });
             })
             .exceptionally(throwable -> {
                 javafx.application.Platform.runLater(() -> {
+                    search.loading = false;
                     showAlert("Error", "Failed to search books: " + throwable.getMessage());
                 });
                 return null;
             });
     }
 
+    // Shows facet counts next to the Browse Books filter options; null facets clears them
+    private void showFacetCounts(TableView<Book> booksTable, BookFacets facets) {
+        if (!(booksTable.getParent() instanceof VBox)) {
+            return;
+        }
+        VBox content = (VBox) booksTable.getParent();
+        for (javafx.scene.Node node : content.getChildren()) {
+            if (node instanceof HBox) {
+                for (javafx.scene.Node child : ((HBox) node).getChildren()) {
+                    if (child instanceof ComboBox) {
+                        @SuppressWarnings("unchecked")
+                        ComboBox<String> combo = (ComboBox<String>) child;
+                        if (combo.getItems().contains("All Categories")) {
+                            setComboCounts(combo, facets != null ? facets.getCategories() : null);
+                        } else if (combo.getItems().contains("All Statuses")) {
+                            setComboCounts(combo, facets != null ? facets.getStatuses() : null);
+                        }
+                    }
+                }
+            }
+        }
+
+        Label decadeFacetsLabel = (Label) booksTable.getProperties().get(BookFacets.class);
+        if (decadeFacetsLabel != null) {
+            StringBuilder text = new StringBuilder();
+            if (facets != null) {
+                facets.getDecades().forEach((decade, count) ->
+                    text.append(text.length() == 0 ? "By decade: " : ", ").append(decade).append(" (").append(count).append(")"));
+            }
+            decadeFacetsLabel.setText(text.toString());
+        }
+    }
+
+    // Displays "option (count)" in the drop-down while the combo values stay the plain option names
+    private void setComboCounts(ComboBox<String> combo, java.util.Map<String, Long> counts) {
+        combo.setCellFactory(list -> new ListCell<String>() {
+            @Override
+            protected void updateItem(String item, boolean empty) {
+                super.updateItem(item, empty);
+                if (empty || item == null) {
+                    setText(null);
+                } else {
+                    Long count = counts != null ? counts.get(item) : null;
+                    setText(count != null ? item + " (" + count + ")" : item);
+                }
+            }
+        });
+    }
+
+    // Suggests titles and authors under the search field once typing pauses. A newer keystroke cancels
+    // the pending lookup, and answers for text that has changed since are dropped.
+    private void installTypeAhead(TextField searchField, TextField authorField, Button searchButton) {
+        ContextMenu suggestionsMenu = new ContextMenu();
+        PauseTransition pause = new PauseTransition(TYPE_AHEAD_DELAY);
+        AtomicReference<CompletableFuture<List<BookSuggestion>>> pending = new AtomicReference<>();
+
+        pause.setOnFinished(e -> {
+            String prefix = searchField.getText().trim();
+            if (prefix.length() < TYPE_AHEAD_MIN_LENGTH) {
+                suggestionsMenu.hide();
+                return;
+            }
+            CompletableFuture<List<BookSuggestion>> lookup = apiClient.suggestBooks(prefix, TYPE_AHEAD_LIMIT);
+            CompletableFuture<List<BookSuggestion>> previous = pending.getAndSet(lookup);
+            if (previous != null) {
+                previous.cancel(true);
+            }
+            lookup.thenAccept(suggestions -> javafx.application.Platform.runLater(() -> {
+                if (!prefix.equals(searchField.getText().trim()) || !searchField.isFocused()) {
+                    return;
+                }
+                suggestionsMenu.getItems().clear();
+                for (BookSuggestion suggestion : suggestions) {
+                    String label = suggestion.getText()
+                        + (suggestion.getType() == BookSuggestion.Type.AUTHOR ? "  (author)" : "")
+                        + (suggestion.getBookCount() > 1 ? "  [" + suggestion.getBookCount() + "]" : "");
+                    MenuItem item = new MenuItem(label);
+                    item.setOnAction(ev -> {
+                        if (suggestion.getType() == BookSuggestion.Type.AUTHOR) {
+                            authorField.setText(suggestion.getText());
+                            searchField.clear();
+                        } else {
+                            searchField.setText(suggestion.getText());
+                        }
+                        // The search button's handler also stops the lookup this text change scheduled
+                        searchButton.fire();
+                    });
+                    suggestionsMenu.getItems().add(item);
+                }
+                if (suggestionsMenu.getItems().isEmpty()) {
+                    suggestionsMenu.hide();
+                } else if (!suggestionsMenu.isShowing()) {
+                    suggestionsMenu.show(searchField, Side.BOTTOM, 0, 0);
+                }
+            })).exceptionally(throwable -> {
+                // Cancelled by a newer keystroke, or the server is unreachable; the plain search still works
+                return null;
+            });
+        });
+
+        searchField.textProperty().addListener((obs, oldText, newText) -> pause.playFromStart());
+        searchField.focusedProperty().addListener((obs, wasFocused, focused) -> {
+            if (!focused) {
+                pause.stop();
+                suggestionsMenu.hide();
+            }
+        });
+        searchField.setOnKeyPressed(e -> {
+            if (e.getCode() == javafx.scene.input.KeyCode.ESCAPE) {
+                pause.stop();
+                suggestionsMenu.hide();
+            }
+        });
+        // Running a search makes any suggestion that is still on its way irrelevant
+        searchButton.addEventHandler(javafx.event.ActionEvent.ACTION, e -> {
+            pause.stop();
+            suggestionsMenu.hide();
+            CompletableFuture<List<BookSuggestion>> previous = pending.getAndSet(null);
+            if (previous != null) {
+                previous.cancel(true);
+            }
+        });
+    }
+
+    // Requests the next page once the last loaded row is rendered
+    private void installLazyPaging(TableView<Book> booksTable) {
+        booksTable.setRowFactory(table -> new TableRow<Book>() {
+            @Override
+            protected void updateItem(Book book, boolean empty) {
+                super.updateItem(book, empty);
+                if (!empty && getIndex() == table.getItems().size() - 1) {
+                    loadNextBrowsePage(booksTable);
+                }
+            }
+        });
+    }
+
+    private void loadNextBrowsePage(TableView<Book> booksTable) {
+        BrowseSearch search = (BrowseSearch) booksTable.getProperties().get(BrowseSearch.class);
+        if (search == null || search.loading || search.nextCursor == null) {
+            return;
+        }
+        search.loading = true;
+
+        apiClient.searchBooksUnified(search.query, search.category, search.author, search.status,
+                search.yearFrom, search.yearTo, true, search.nextCursor, BROWSE_PAGE_SIZE, false)
+            .thenAccept(page -> {
+                javafx.application.Platform.runLater(() -> {
+                    if (booksTable.getProperties().get(BrowseSearch.class) != search) {
+                        return;
+                    }
+                    booksTable.getItems().addAll(page.getItems());
+                    search.nextCursor = page.getNext();
+                    search.loading = false;
+                });
+            })
+            .exceptionally(throwable -> {
+                javafx.application.Platform.runLater(() -> {
+                    search.loading = false;
+                    showAlert("Error", "Failed to load more books: " + throwable.getMessage());
+                });
+                return null;
+            });
+    }
+
+    // Filters and paging state of the current Browse Books search
+    private static final class BrowseSearch {
+        final String query;
+        final String category;
+        final String author;
+        final String status;
+        final Integer yearFrom;
+        final Integer yearTo;
+        String nextCursor;
+        boolean loading;
+
+        BrowseSearch(String query, String category, String author, String status, Integer yearFrom, Integer yearTo) {
+            this.query = query;
+            this.category = category;
+            this.author = author;
+            this.status = status;
+            this.yearFrom = yearFrom;
+            this.yearTo = yearTo;
+        }
+    }
+
 
 
 
 
     private void loadBooksForBrowseTab(TableView<Book> booksTable) {
+        // This view is not paged, so stop any lazy paging left over from a previous search
+        booksTable.getProperties().remove(BrowseSearch.class);
+        booksTable.getProperties().remove(BookCatalog.class);
+        showFacetCounts(booksTable, null);
+
         // Load all available books excluding current user
         apiClient.getAvailableBooksExcludingCurrentUser()
             .thenAccept(books -> {
@@ -1226,14 +1646,16 @@ public class DesktopApp extends Application {
         commentsArea.getChildren().clear();
         commentsArea.getChildren().add(new Label("Loading comments..."));
 
-        apiClient.getNestedCommentsByBookId(bookId)
-            .thenAccept(comments -> {
+        Function<String, CompletableFuture<CommentPage>> pages =
+            cursor -> apiClient.getCommentsPage(bookId, cursor, COMMENT_PAGE_SIZE);
+        pages.apply(null)
+            .thenAccept(page -> {
                 javafx.application.Platform.runLater(() -> {
                     commentsArea.getChildren().clear();
-                    if (comments.isEmpty()) {
+                    if (page.getItems().isEmpty()) {
                         commentsArea.getChildren().add(new Label("No comments yet. Be the first to comment!"));
                     } else {
-                        displayComments(comments, commentsArea, bookId, 0);
+                        appendCommentPage(page, commentsArea, bookId, pages);
                     }
                 });
             })
@@ -1246,21 +1668,109 @@ public class DesktopApp extends Application {
             });
     }
 
-    private void displayComments(List<Comment> comments, VBox container, String bookId, int depth) {
-        for (Comment comment : comments) {
-            VBox commentBox = createCommentBox(comment, bookId, depth);
-            container.getChildren().add(commentBox);
+    // Adds one page of comments to the container, plus a "Load more" button while the server has more
+    private void appendCommentPage(CommentPage page, VBox container, String bookId,
+                                   Function<String, CompletableFuture<CommentPage>> pages) {
+        for (Comment comment : page.getItems()) {
+            container.getChildren().add(createCommentThread(comment, bookId));
+        }
+        if (page.hasNext()) {
+            Button loadMoreBtn = new Button("Load more");
+            loadMoreBtn.setOnAction(e -> {
+                loadMoreBtn.setDisable(true);
+                pages.apply(page.getNext())
+                    .thenAccept(next -> {
+                        javafx.application.Platform.runLater(() -> {
+                            container.getChildren().remove(loadMoreBtn);
+                            appendCommentPage(next, container, bookId, pages);
+                        });
+                    })
+                    .exceptionally(throwable -> {
+                        javafx.application.Platform.runLater(() -> {
+                            loadMoreBtn.setDisable(false);
+                            showAlert("Error", "Failed to load comments: " + throwable.getMessage());
+                        });
+                        return null;
+                    });
+            });
+            container.getChildren().add(loadMoreBtn);
+        }
+    }
+
+    // A comment followed by its replies container, which is only filled when the user expands it
+    private VBox createCommentThread(Comment comment, String bookId) {
+        VBox thread = new VBox(5);
+        VBox commentBox = createCommentBox(comment, bookId, comment.getDepth());
+
+        VBox repliesContainer = new VBox(5);
+        repliesContainer.setStyle("-fx-padding: 10px 0px 0px 20px; -fx-border-left: 2px solid #e0e0e0;");
+        repliesContainer.setVisible(false);
+        repliesContainer.setManaged(false);
+
+        Button repliesBtn = new Button();
+        repliesBtn.setOnAction(e -> toggleReplies(comment, bookId, repliesContainer, repliesBtn));
+        updateRepliesButton(comment, repliesContainer, repliesBtn);
+        HBox actionBox = (HBox) commentBox.getChildren().get(2);
+        actionBox.getChildren().add(repliesBtn);
+
+        thread.getProperties().put(Comment.class, comment);
+        thread.getProperties().put(Button.class, repliesBtn);
+        thread.getChildren().addAll(commentBox, repliesContainer);
+        return thread;
+    }
 
-            // Display replies recursively
-            if (comment.hasReplies()) {
-                VBox repliesContainer = new VBox(5);
-                repliesContainer.setStyle("-fx-padding: 10px 0px 0px 20px; -fx-border-left: 2px solid #e0e0e0;");
-                displayComments(comment.getReplies(), repliesContainer, bookId, depth + 1);
-                container.getChildren().add(repliesContainer);
-            }
+    private void toggleReplies(Comment comment, String bookId, VBox repliesContainer, Button repliesBtn) {
+        boolean expand = !repliesContainer.isVisible();
+        repliesContainer.setVisible(expand);
+        repliesContainer.setManaged(expand);
+        updateRepliesButton(comment, repliesContainer, repliesBtn);
+
+        // First expansion loads the first page; later toggles only show or hide what is loaded
+        if (expand && repliesContainer.getChildren().isEmpty()) {
+            Function<String, CompletableFuture<CommentPage>> pages =
+                cursor -> apiClient.getRepliesPage(comment.getId(), cursor, COMMENT_PAGE_SIZE);
+            repliesContainer.getChildren().add(new Label("Loading replies..."));
+            pages.apply(null)
+                .thenAccept(page -> {
+                    javafx.application.Platform.runLater(() -> {
+                        repliesContainer.getChildren().clear();
+                        appendCommentPage(page, repliesContainer, bookId, pages);
+                    });
+                })
+                .exceptionally(throwable -> {
+                    javafx.application.Platform.runLater(() -> {
+                        repliesContainer.getChildren().clear();
+                        repliesContainer.getChildren().add(new Label("Error loading replies: " + throwable.getMessage()));
+                    });
+                    return null;
+                });
         }
     }
 
+    private void updateRepliesButton(Comment comment, VBox repliesContainer, Button repliesBtn) {
+        int count = comment.getReplyCount();
+        repliesBtn.setText((repliesContainer.isVisible() ? "Hide replies (" : "Show replies (") + count + ")");
+        repliesBtn.setVisible(count > 0);
+        repliesBtn.setManaged(count > 0);
+    }
+
+    // Shows a new reply under its parent without reloading the rest of the comments
+    private void addReplyToThread(VBox thread, Comment reply, String bookId) {
+        Comment parent = (Comment) thread.getProperties().get(Comment.class);
+        Button repliesBtn = (Button) thread.getProperties().get(Button.class);
+        VBox repliesContainer = (VBox) thread.getChildren().get(1);
+
+        parent.setReplyCount(parent.getReplyCount() + 1);
+        boolean loaded = !repliesContainer.getChildren().isEmpty();
+        boolean morePending = loaded && repliesContainer.getChildren().get(repliesContainer.getChildren().size() - 1) instanceof Button;
+        if (loaded && !morePending) {
+            // All earlier replies are on screen, so the new one goes last
+            repliesContainer.getChildren().add(createCommentThread(reply, bookId));
+        }
+        // Otherwise the reply arrives with the first or next page when the user expands or loads more
+        updateRepliesButton(parent, repliesContainer, repliesBtn);
+    }
+
     private VBox createCommentBox(Comment comment, String bookId, int depth) {
         VBox commentBox = new VBox(5);
         commentBox.setStyle("-fx-padding: 10px; -fx-border-color: #ddd; -fx-border-width: 1px; -fx-border-radius: 5px;");
@@ -1348,17 +1858,7 @@ public class DesktopApp extends Application {
 
                                 // Check if reply was created successfully
                                 if (reply != null) {
-                                    // Refresh the entire comments area
-                                    for (Tab tab : mainTabPane.getTabs()) {
-                                        if ("Comments".equals(tab.getText())) {
-                                            VBox tabContent = (VBox) tab.getContent();
-                                            if (tabContent.getChildren().size() > 2) {
-                                                VBox commentsArea = (VBox) tabContent.getChildren().get(2);
-                                                loadCommentsForBook(bookId, commentsArea);
-                                            }
-                                            break;
-                                        }
-                                    }
+                                    addReplyToThread((VBox) commentBox.getParent(), reply, bookId);
                                     showAlert("Success", "Reply added successfully!");
                                 } else {
                                     showAlert("Warning", "Reply may have been added, but confirmation was not received.");
@@ -1449,9 +1949,16 @@ public class DesktopApp extends Application {
                     .thenAccept(success -> {
                         javafx.application.Platform.runLater(() -> {
                             if (success) {
-                                // Remove the comment from the UI
-                                VBox parent = (VBox) commentBox.getParent();
-                                parent.getChildren().remove(commentBox);
+                                // Remove the comment and its replies from the UI
+                                VBox thread = (VBox) commentBox.getParent();
+                                VBox container = (VBox) thread.getParent();
+                                container.getChildren().remove(thread);
+                                // A deleted reply no longer counts towards its parent
+                                if (container.getParent() instanceof VBox parentThread
+                                        && parentThread.getProperties().get(Comment.class) instanceof Comment parentComment) {
+                                    parentComment.setReplyCount(Math.max(0, parentComment.getReplyCount() - 1));
+                                    updateRepliesButton(parentComment, container, (Button) parentThread.getProperties().get(Button.class));
+                                }
                                 showAlert("Success", "Comment deleted successfully!");
                             } else {
                                 showAlert("Error", "Failed to delete comment.");
@@ -1493,19 +2000,17 @@ public class DesktopApp extends Application {
     private void loadUserMessages(VBox messagesArea) {
         messagesArea.getChildren().clear();
         messagesArea.getChildren().add(new Label("Loading messages..."));
+        refreshUnreadBadge();
 
-        apiClient.getUserMessages(currentUser.getId())
-            .thenAccept(messages -> {
+        apiClient.getInboxPage(null, MESSAGE_PAGE_SIZE)
+            .thenAccept(page -> {
                 javafx.application.Platform.runLater(() -> {
                     messagesArea.getChildren().clear();
 
-                    if (messages.isEmpty()) {
+                    if (page.getItems().isEmpty()) {
                         messagesArea.getChildren().add(new Label("No messages yet"));
                     } else {
-                        for (Message message : messages) {
-                            VBox messageBox = createMessageBox(message);
-                            messagesArea.getChildren().add(messageBox);
-                        }
+                        appendMessagePage(page, messagesArea);
                     }
                 });
             })
@@ -1518,6 +2023,83 @@ public class DesktopApp extends Application {
             });
     }
 
+    // Adds one inbox page to the messages area, plus a "Load more" button while the server has more
+    private void appendMessagePage(MessagePage page, VBox messagesArea) {
+        for (Message message : page.getItems()) {
+            messagesArea.getChildren().add(createMessageBox(message));
+        }
+        if (page.hasNext()) {
+            Button loadMoreBtn = new Button("Load more");
+            loadMoreBtn.setOnAction(e -> {
+                loadMoreBtn.setDisable(true);
+                apiClient.getInboxPage(page.getNext(), MESSAGE_PAGE_SIZE)
+                    .thenAccept(next -> {
+                        javafx.application.Platform.runLater(() -> {
+                            messagesArea.getChildren().remove(loadMoreBtn);
+                            appendMessagePage(next, messagesArea);
+                        });
+                    })
+                    .exceptionally(throwable -> {
+                        javafx.application.Platform.runLater(() -> {
+                            loadMoreBtn.setDisable(false);
+                            showAlert("Error", "Failed to load messages: " + throwable.getMessage());
+                        });
+                        return null;
+                    });
+            });
+            messagesArea.getChildren().add(loadMoreBtn);
+        }
+    }
+
+    private void refreshUnreadBadge() {
+        apiClient.getUnreadMessageCount()
+            .thenAccept(count -> {
+                javafx.application.Platform.runLater(() -> {
+                    if (unreadBadge != null) {
+                        unreadBadge.setText(String.valueOf(count));
+                        unreadBadge.setVisible(count > 0);
+                    }
+                });
+            })
+            .exceptionally(throwable -> {
+                // Keep the last known count; the next poll tries again
+                System.err.println("Failed to refresh unread count: " + throwable.getMessage());
+                return null;
+            });
+    }
+
+    private void markMessageRead(Message message, VBox messageBox) {
+        apiClient.markMessageRead(message.getId())
+            .thenAccept(success -> {
+                javafx.application.Platform.runLater(() -> {
+                    message.setRead(true);
+                    VBox parent = (VBox) messageBox.getParent();
+                    if (parent != null) {
+                        int index = parent.getChildren().indexOf(messageBox);
+                        parent.getChildren().set(index, createMessageBox(message));
+                    }
+                    refreshUnreadBadge();
+                });
+            })
+            .exceptionally(throwable -> {
+                System.err.println("Failed to mark message as read: " + throwable.getMessage());
+                return null;
+            });
+    }
+
+    private void markAllMessagesRead(VBox messagesArea) {
+        apiClient.markAllMessagesRead()
+            .thenAccept(success -> {
+                javafx.application.Platform.runLater(() -> loadUserMessages(messagesArea));
+            })
+            .exceptionally(throwable -> {
+                javafx.application.Platform.runLater(() -> {
+                    showAlert("Error", "Failed to mark messages as read: " + throwable.getMessage());
+                });
+                return null;
+            });
+    }
+
         private void showContactOwnerDialog(Book book) {
         Stage dialog = new Stage();
         dialog.initModality(javafx.stage.Modality.APPLICATION_MODAL);
@@ -1623,15 +2205,8 @@ public class DesktopApp extends Application {
                         showAlert("Success", "Reply sent to " + originalMessage.getSenderName());
                         dialog.close();
                         // Refresh messages to show the new reply
-                        Tab messagesTab = null;
-                        for (Tab tab : mainTabPane.getTabs()) {
-                            if ("Messages".equals(tab.getText())) {
-                                messagesTab = tab;
-                                break;
-                            }
-                        }
-                        if (messagesTab != null) {
-                            VBox messagesArea = (VBox) ((VBox) messagesTab.getContent()).getChildren().get(2);
+                        VBox messagesArea = findMessagesArea();
+                        if (messagesArea != null) {
                             loadUserMessages(messagesArea);
                         }
                     });
@@ -1672,10 +2247,11 @@ public class DesktopApp extends Application {
             senderLabel.setStyle("-fx-font-weight: bold; -fx-text-fill: #999; -fx-font-style: italic;");
             messageBox.setStyle("-fx-padding: 10px; -fx-border-color: #ccc; -fx-border-width: 1px; -fx-border-radius: 5px; -fx-background-color: #f9f9f9;");
         }
-        // Unread indicator - different font weight for unread messages
+        // Unread indicator - different font weight for unread messages; clicking the message marks it read
         else if (!message.isRead()) {
             senderLabel.setStyle("-fx-font-weight: bold; -fx-text-fill: #0066cc;");
             messageBox.setStyle("-fx-padding: 10px; -fx-border-color: #0066cc; -fx-border-width: 2px; -fx-border-radius: 5px; -fx-background-color: #f0f8ff;");
+            messageBox.setOnMouseClicked(e -> markMessageRead(message, messageBox));
         }
 
         headerBox.getChildren().addAll(senderLabel, dateLabel);
@@ -2011,7 +2587,7 @@ public class DesktopApp extends Application {
         userNameFilter.setPromptText("Search by User Name (e.g. John Doe)");
 
         Button refreshButton = new Button("Refresh");
-        Button exportButton = new Button("Export to Text");
+        Button exportButton = new Button("Export to File");
         Button closeButton = new Button("Close");
 
         filterBox.getChildren().addAll(
@@ -2065,7 +2641,7 @@ public class DesktopApp extends Application {
             }
         });
 
-        exportButton.setOnAction(e -> exportUserActivity(activityTable));
+        exportButton.setOnAction(e -> exportUserActivity(dialog, actionTypeFilter.getValue(), userNameFilter.getText()));
         closeButton.setOnAction(e -> dialog.close());
 
         content.getChildren().addAll(titleLabel, filterBox, activityTable);
@@ -2112,47 +2688,36 @@ public class DesktopApp extends Application {
             });
     }
 
-    private void exportUserActivity(TableView<org.example.model.UserActionLog> activityTable) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("USER ACTIVITY REPORT\n");
-        sb.append("Generated: ").append(java.time.LocalDateTime.now()).append("\n\n");
-                sb.append("Timestamp\t\tUser ID\t\tUser Name\t\tAction\t\tDescription\t\tTarget\n");
-        sb.append("=".repeat(140)).append("\n");
-
-        for (org.example.model.UserActionLog action : activityTable.getItems()) {
-            sb.append(action.getTimestamp()).append("\t");
-            sb.append(action.getUserId()).append("\t");
-            sb.append(action.getUserName()).append("\t");
-            sb.append(action.getActionType()).append("\t");
-            sb.append(action.getDescription()).append("\t");
-            sb.append(action.getTargetType()).append("\n");
+    // Downloads the full activity log for the current filters straight to a file chosen by the user.
+    // The server streams it, so large logs never have to fit in memory on either side.
+    private void exportUserActivity(Stage owner, String actionType, String userName) {
+        javafx.stage.FileChooser fileChooser = new javafx.stage.FileChooser();
+        fileChooser.setTitle("Export User Activity");
+        fileChooser.setInitialFileName("user-activity.csv");
+        fileChooser.getExtensionFilters().addAll(
+            new javafx.stage.FileChooser.ExtensionFilter("CSV", "*.csv"),
+            new javafx.stage.FileChooser.ExtensionFilter("NDJSON", "*.ndjson", "*.jsonl"));
+
+        java.io.File file = fileChooser.showSaveDialog(owner);
+        if (file == null) {
+            return;
         }
+        String name = file.getName().toLowerCase();
+        String format = name.endsWith(".ndjson") || name.endsWith(".jsonl") ? "ndjson" : "csv";
+        String typeParam = "All Actions".equals(actionType) ? null : actionType;
 
-        // Create a dialog to show the exported text
-        Stage exportDialog = new Stage();
-        exportDialog.setTitle("Exported User Activity");
-        exportDialog.setWidth(800);
-        exportDialog.setHeight(600);
-
-        TextArea textArea = new TextArea(sb.toString());
-        textArea.setEditable(false);
-        textArea.setWrapText(true);
-
-        VBox exportContent = new VBox(10);
-        exportContent.setPadding(new Insets(10));
-
-        Button copyButton = new Button("Copy to Clipboard");
-        copyButton.setOnAction(e -> {
-            javafx.scene.input.Clipboard clipboard = javafx.scene.input.Clipboard.getSystemClipboard();
-            javafx.scene.input.ClipboardContent content = new javafx.scene.input.ClipboardContent();
-            content.putString(sb.toString());
-            clipboard.setContent(content);
-            showAlert("Success", "Activity report copied to clipboard");
-        });
-
-        exportContent.getChildren().addAll(textArea, copyButton);
-        exportDialog.setScene(new Scene(exportContent));
-        exportDialog.show();
+        apiClient.exportUserActions(typeParam, userName, format, file.toPath())
+            .thenAccept(path -> {
+                javafx.application.Platform.runLater(() -> {
+                    showAlert("Success", "User activity exported to " + path);
+                });
+            })
+            .exceptionally(throwable -> {
+                javafx.application.Platform.runLater(() -> {
+                    showAlert("Error", "Failed to export user activity: " + throwable.getMessage());
+                });
+                return null;
+            });
     }
 
         private void loadCategoriesIntoCombo(ComboBox<String> categoryCombo) {
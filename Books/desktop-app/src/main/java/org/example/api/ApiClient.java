@@ -2,37 +2,94 @@ package org.example.api;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.example.model.Book;
+import org.example.model.BookChanges;
+import org.example.model.BookPage;
+import org.example.model.BookSuggestion;
 
 
 import org.example.model.Comment;
+import org.example.model.CommentPage;
 import org.example.model.User;
 import org.example.model.Message;
+import org.example.model.MessagePage;
+import org.example.model.UserEvent;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 public class ApiClient {
     private static final String BASE_URL = System.getProperty("api.base.url", "http://localhost:8080/api");
     private final HttpClient httpClient;
     private final ObjectMapper objectMapper;
+    private final ObjectMapper smileMapper;
     private String authToken;
 
+    // Reads ask for Smile (binary JSON, smaller and cheaper to parse) unless -Dapi.wire-format=json
+    private static final String SMILE = "application/x-jackson-smile";
+    private static final String READ_ACCEPT = "json".equalsIgnoreCase(System.getProperty("api.wire-format", "smile"))
+        ? "application/json" : SMILE + ", application/json;q=0.9";
+
+    // Cached GET bodies survive restarts in this file; entries are scoped to the logged-in user
+    private static final Path CACHE_FILE = Path.of(System.getProperty("api.cache.file",
+        Path.of(System.getProperty("user.home"), ".psk-books", "http-cache.json").toString()));
+    private static final long CACHE_MAX_BYTES = Long.getLong("api.cache.max-bytes", 16L * 1024 * 1024);
+    private final ResponseCache responseCache;
+    private volatile String cacheScope;
+
+    // Calls run one virtual thread each, so a call blocked on the network holds no pool thread and
+    // loads started together by different screens run side by side instead of queueing on the common pool
+    private static final ExecutorService EXECUTOR =
+        Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("api-call-", 0).factory());
+    // At most this many requests per endpoint group (first path segment: books, comments, messages, ...)
+    // are in flight at once; further calls wait for a slot
+    private static final int MAX_CONCURRENT_PER_ENDPOINT = Integer.getInteger("api.max-concurrent-per-endpoint", 4);
+    private final Map<String, Semaphore> endpointLimits = new ConcurrentHashMap<>();
+
+    // Single-flight for GETs: callers of an identical request (URL and token) that is still running share its
+    // response, and so do callers arriving within COALESCE_WINDOW_MS after it finished, which absorbs the
+    // burst of identical refreshes the UI fires after an action. Any write or pushed event ends the sharing.
+    private static final long COALESCE_WINDOW_MS = Long.getLong("api.coalesce-window-ms", 300);
+    private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+
     public ApiClient() {
         this.httpClient = HttpClient.newHttpClient();
         this.objectMapper = new ObjectMapper();
         this.objectMapper.registerModule(new JavaTimeModule());
+        this.smileMapper = objectMapper.copyWith(new SmileFactory());
+        this.responseCache = new ResponseCache(CACHE_FILE, CACHE_MAX_BYTES);
+        this.responseCache.load();
     }
 
     // Authentication
     public CompletableFuture<User> login(String username, String password) {
-        return CompletableFuture.supplyAsync(() -> {
+        return supplyAsync(() -> {
             try {
                 String jsonBody = String.format(
                     "{\"username\":\"%s\",\"password\":\"%s\"}",
@@ -45,7 +102,7 @@ public class ApiClient {
                     .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
                     .build();
 
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                HttpResponse<String> response = send(request, HttpResponse.BodyHandlers.ofString());
 
                 if (response.statusCode() == 200) {
                     // Parse the response to get user info and token
@@ -55,12 +112,15 @@ public class ApiClient {
                         String token = (String) responseMap.get("token");
 
                         // Store the token for future requests
-                        setAuthToken(token);
-
-                        return objectMapper.convertValue(userData, User.class);
+                        User user = objectMapper.convertValue(userData, User.class);
+                        signedIn(token, user);
+                        return user;
                     } else {
                         throw new RuntimeException("Login failed: " + responseMap.get("message"));
                     }
+                } else if (response.statusCode() == 503) {
+                    // Server's password hashing pool is saturated; safe to retry shortly
+                    throw new RuntimeException("Login failed: server is busy, please try again in a moment");
                 } else {
                     throw new RuntimeException("Login failed: " + response.statusCode());
                 }
@@ -73,7 +133,7 @@ public class ApiClient {
     // Registration
     public CompletableFuture<User> register(String username, String password, String firstName, String lastName,
                                             String email, String phone, String dateOfBirth) {
-        return CompletableFuture.supplyAsync(() -> {
+        return supplyAsync(() -> {
             try {
                 String jsonBody = String.format(
                     "{\"username\":\"%s\",\"password\":\"%s\",\"firstName\":\"%s\",\"lastName\":\"%s\",\"email\":\"%s\",\"phone\":\"%s\",\"dateOfBirth\":\"%s\"}",
@@ -86,18 +146,21 @@ public class ApiClient {
                     .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
                     .build();
 
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                HttpResponse<String> response = send(request, HttpResponse.BodyHandlers.ofString());
 
                 if (response.statusCode() == 200) {
                     var responseMap = objectMapper.readValue(response.body(), new TypeReference<java.util.Map<String, Object>>() {});
                     if (Boolean.TRUE.equals(responseMap.get("success"))) {
                         var userData = (java.util.Map<String, Object>) responseMap.get("user");
                         String token = (String) responseMap.get("token");
-                        setAuthToken(token);
-                        return objectMapper.convertValue(userData, User.class);
+                        User user = objectMapper.convertValue(userData, User.class);
+                        signedIn(token, user);
+                        return user;
                     } else {
                         throw new RuntimeException("Registration failed: " + responseMap.get("message"));
                     }
+                } else if (response.statusCode() == 503) {
+                    throw new RuntimeException("Registration failed: server is busy, please try again in a moment");
                 } else {
                     throw new RuntimeException("Registration failed: HTTP " + response.statusCode());
                 }
@@ -111,19 +174,28 @@ public class ApiClient {
         this.authToken = token;
     }
 
+    // Cached responses are per user, so the cache scope always changes together with the token
+    private void signedIn(String token, User user) {
+        cacheScope = user.getId();
+        setAuthToken(token);
+    }
+
+    // Forgets the session; cached responses stay on disk under the previous user's scope
+    public void logout() {
+        setAuthToken(null);
+        cacheScope = null;
+        flights.clear();
+    }
+
     // Books API
     public CompletableFuture<List<Book>> getAllBooks() {
-        return CompletableFuture.supplyAsync(() -> {
+        return supplyAsync(() -> {
             try {
-                HttpRequest request = createRequest("/books")
-                    .GET()
-                    .build();
-
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                CachedResponse response = cachedGet("/books");
 
                 if (response.statusCode() == 200) {
                     // Parse the JSON response
-                    return objectMapper.readValue(response.body(), new TypeReference<List<Book>>() {});
+                    return readBody(response, new TypeReference<List<Book>>() {});
                 } else {
                     throw new RuntimeException("Failed to get books: " + response.statusCode());
                 }
@@ -133,70 +205,136 @@ public class ApiClient {
         });
     }
 
-    // Unified search method with all filters
-    public CompletableFuture<List<Book>> searchBooksUnified(String query, String category, String author,
-                                                           String status, Integer yearFrom, Integer yearTo,
-                                                           Boolean excludeCurrentUser) {
-        return CompletableFuture.supplyAsync(() -> {
+    // Text search ranked by relevance: the best limit matches, most relevant first, with facet counts
+    // for the whole match set. The returned page has no next cursor.
+    public CompletableFuture<BookPage> searchBooksRanked(String query, String category, String author,
+                                                         String status, Integer yearFrom, Integer yearTo,
+                                                         Boolean excludeCurrentUser, int limit) {
+        return supplyAsync(() -> {
             try {
-                StringBuilder urlBuilder = new StringBuilder("/books/search?");
-                boolean hasParams = false;
+                StringBuilder url = new StringBuilder(
+                    buildSearchUrl("/books/search", query, category, author, status, yearFrom, yearTo, excludeCurrentUser));
+                url.append(url.charAt(url.length() - 1) == '?' ? "" : "&").append("limit=").append(limit).append("&facets=true");
 
-                if (query != null && !query.trim().isEmpty()) {
-                    urlBuilder.append("query=").append(java.net.URLEncoder.encode(query.trim(), "UTF-8"));
-                    hasParams = true;
-                }
+                CachedResponse response = cachedGet(url.toString());
 
-                if (category != null && !category.trim().isEmpty() && !"All Categories".equals(category)) {
-                    if (hasParams) urlBuilder.append("&");
-                    urlBuilder.append("category=").append(java.net.URLEncoder.encode(category.trim(), "UTF-8"));
-                    hasParams = true;
-                }
-
-                if (author != null && !author.trim().isEmpty()) {
-                    if (hasParams) urlBuilder.append("&");
-                    urlBuilder.append("author=").append(java.net.URLEncoder.encode(author.trim(), "UTF-8"));
-                    hasParams = true;
+                if (response.statusCode() == 200) {
+                    return readBody(response, new TypeReference<BookPage>() {});
+                } else {
+                    throw new RuntimeException("Failed to search books: " + response.statusCode());
                 }
+            } catch (Exception e) {
+                throw new RuntimeException("Error searching books", e);
+            }
+        });
+    }
 
-                if (status != null && !status.trim().isEmpty() && !"All Statuses".equals(status)) {
-                    if (hasParams) urlBuilder.append("&");
-                    urlBuilder.append("status=").append(java.net.URLEncoder.encode(status.trim().toUpperCase(), "UTF-8"));
-                    hasParams = true;
+    // Paged variant of the unified search; pass null cursor for the first page, then the previous page's next.
+    // includeFacets adds category/status/decade counts for the whole result set to the returned page.
+    public CompletableFuture<BookPage> searchBooksUnified(String query, String category, String author,
+                                                         String status, Integer yearFrom, Integer yearTo,
+                                                         Boolean excludeCurrentUser, String cursor, int size,
+                                                         boolean includeFacets) {
+        return supplyAsync(() -> {
+            try {
+                StringBuilder url = new StringBuilder(
+                    buildSearchUrl("/books/search/page", query, category, author, status, yearFrom, yearTo, excludeCurrentUser));
+                url.append(url.charAt(url.length() - 1) == '?' ? "" : "&").append("size=").append(size);
+                if (cursor != null) {
+                    url.append("&cursor=").append(java.net.URLEncoder.encode(cursor, "UTF-8"));
                 }
-
-                if (yearFrom != null) {
-                    if (hasParams) urlBuilder.append("&");
-                    urlBuilder.append("yearFrom=").append(yearFrom);
-                    hasParams = true;
+                if (includeFacets) {
+                    url.append("&facets=true");
                 }
 
-                if (yearTo != null) {
-                    if (hasParams) urlBuilder.append("&");
-                    urlBuilder.append("yearTo=").append(yearTo);
-                    hasParams = true;
-                }
+                DecodedResponse<BookPage> response = getDecoded(url.toString(), new TypeReference<BookPage>() {});
 
-                if (excludeCurrentUser != null) {
-                    if (hasParams) urlBuilder.append("&");
-                    urlBuilder.append("excludeCurrentUser=").append(excludeCurrentUser);
+                if (response.statusCode() == 200) {
+                    return response.body();
+                } else {
+                    throw new RuntimeException("Failed to search books: " + response.statusCode());
                 }
+            } catch (Exception e) {
+                throw new RuntimeException("Error searching books", e);
+            }
+        });
+    }
 
-                HttpRequest request = createRequest(urlBuilder.toString())
-                    .GET()
-                    .build();
-
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    // Type-ahead for the search field. Cancelling the returned future interrupts the request, so a
+    // suggestion lookup overtaken by the next keystroke stops holding an endpoint slot.
+    public CompletableFuture<List<BookSuggestion>> suggestBooks(String prefix, int limit) {
+        CompletableFuture<List<BookSuggestion>> result = new CompletableFuture<>();
+        Future<?> task = EXECUTOR.submit(() -> {
+            try {
+                String url = "/books/suggest?prefix=" + java.net.URLEncoder.encode(prefix, "UTF-8") + "&limit=" + limit;
+                DecodedResponse<List<BookSuggestion>> response = fetchDecoded(url, new TypeReference<List<BookSuggestion>>() {});
 
                 if (response.statusCode() == 200) {
-                    return objectMapper.readValue(response.body(), new TypeReference<List<Book>>() {});
+                    result.complete(response.body());
                 } else {
-                    throw new RuntimeException("Failed to search books: " + response.statusCode());
+                    result.completeExceptionally(new RuntimeException("Failed to get suggestions: " + response.statusCode()));
                 }
+            } catch (InterruptedException e) {
+                result.cancel(false);
             } catch (Exception e) {
-                throw new RuntimeException("Error searching books", e);
+                result.completeExceptionally(new RuntimeException("Error getting suggestions", e));
+            }
+        });
+        result.whenComplete((suggestions, throwable) -> {
+            if (result.isCancelled()) {
+                task.cancel(true);
             }
         });
+        return result;
+    }
+
+    private String buildSearchUrl(String path, String query, String category, String author,
+                                  String status, Integer yearFrom, Integer yearTo,
+                                  Boolean excludeCurrentUser) throws java.io.UnsupportedEncodingException {
+        StringBuilder urlBuilder = new StringBuilder(path).append("?");
+        boolean hasParams = false;
+
+        if (query != null && !query.trim().isEmpty()) {
+            urlBuilder.append("query=").append(java.net.URLEncoder.encode(query.trim(), "UTF-8"));
+            hasParams = true;
+        }
+
+        if (category != null && !category.trim().isEmpty() && !"All Categories".equals(category)) {
+            if (hasParams) urlBuilder.append("&");
+            urlBuilder.append("category=").append(java.net.URLEncoder.encode(category.trim(), "UTF-8"));
+            hasParams = true;
+        }
+
+        if (author != null && !author.trim().isEmpty()) {
+            if (hasParams) urlBuilder.append("&");
+            urlBuilder.append("author=").append(java.net.URLEncoder.encode(author.trim(), "UTF-8"));
+            hasParams = true;
+        }
+
+        if (status != null && !status.trim().isEmpty() && !"All Statuses".equals(status)) {
+            if (hasParams) urlBuilder.append("&");
+            urlBuilder.append("status=").append(java.net.URLEncoder.encode(status.trim().toUpperCase(), "UTF-8"));
+            hasParams = true;
+        }
+
+        if (yearFrom != null) {
+            if (hasParams) urlBuilder.append("&");
+            urlBuilder.append("yearFrom=").append(yearFrom);
+            hasParams = true;
+        }
+
+        if (yearTo != null) {
+            if (hasParams) urlBuilder.append("&");
+            urlBuilder.append("yearTo=").append(yearTo);
+            hasParams = true;
+        }
+
+        if (excludeCurrentUser != null) {
+            if (hasParams) urlBuilder.append("&");
+            urlBuilder.append("excludeCurrentUser=").append(excludeCurrentUser);
+        }
+
+        return urlBuilder.toString();
     }
 
 
@@ -204,7 +342,7 @@ public class ApiClient {
 
 
     public CompletableFuture<Boolean> reserveBook(String bookId, String userId) {
-        return CompletableFuture.supplyAsync(() -> {
+        return supplyAsync(() -> {
             try {
                 String jsonBody = String.format("{\"userId\":\"%s\"}", userId);
 
@@ -212,7 +350,7 @@ public class ApiClient {
                     .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
                     .build();
 
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                HttpResponse<String> response = send(request, HttpResponse.BodyHandlers.ofString());
 
                 return response.statusCode() == 200;
             } catch (Exception e) {
@@ -222,7 +360,7 @@ public class ApiClient {
     }
 
     public CompletableFuture<Boolean> returnBook(String bookId, String userId) {
-        return CompletableFuture.supplyAsync(() -> {
+        return supplyAsync(() -> {
             try {
                 String jsonBody = String.format("{\"userId\":\"%s\"}", userId);
 
@@ -230,7 +368,7 @@ public class ApiClient {
                     .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
                     .build();
 
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                HttpResponse<String> response = send(request, HttpResponse.BodyHandlers.ofString());
 
                 return response.statusCode() == 200;
             } catch (Exception e) {
@@ -240,7 +378,7 @@ public class ApiClient {
     }
 
     public CompletableFuture<Boolean> borrowBook(String bookId, String userId) {
-        return CompletableFuture.supplyAsync(() -> {
+        return supplyAsync(() -> {
             try {
                 String jsonBody = String.format("{\"userId\":\"%s\"}", userId);
 
@@ -248,11 +386,14 @@ public class ApiClient {
                     .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
                     .build();
 
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                HttpResponse<String> response = send(request, HttpResponse.BodyHandlers.ofString());
 
                 if (response.statusCode() == 200) {
                     return true;
                 } else {
+                    if (response.statusCode() == 409) {
+                        throw new RuntimeException("Failed to borrow book: it was just borrowed or reserved by someone else");
+                    }
                     throw new RuntimeException("Failed to borrow book: " + response.statusCode());
                 }
             } catch (Exception e) {
@@ -267,7 +408,7 @@ public class ApiClient {
 
     public CompletableFuture<Book> addBook(String title, String author, String category, String description,
                                           Integer publicationYear, String ownerId) {
-        return CompletableFuture.supplyAsync(() -> {
+        return supplyAsync(() -> {
             try {
                 String jsonBody = String.format(
                     "{\"title\":\"%s\",\"author\":\"%s\",\"category\":\"%s\",\"description\":\"%s\",\"publicationYear\":%s}",
@@ -279,7 +420,7 @@ public class ApiClient {
                     .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
                     .build();
 
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                HttpResponse<String> response = send(request, HttpResponse.BodyHandlers.ofString());
 
                 if (response.statusCode() == 200) {
                     return objectMapper.readValue(response.body(), Book.class);
@@ -298,7 +439,7 @@ public class ApiClient {
 
     public CompletableFuture<Book> updateBook(String bookId, String title, String author, String category, String description,
                                             Integer publicationYear) {
-        return CompletableFuture.supplyAsync(() -> {
+        return supplyAsync(() -> {
             try {
                 String jsonBody = String.format(
                     "{\"title\":\"%s\",\"author\":\"%s\",\"category\":\"%s\",\"description\":\"%s\",\"publicationYear\":%s}",
@@ -310,7 +451,7 @@ public class ApiClient {
                     .PUT(HttpRequest.BodyPublishers.ofString(jsonBody))
                     .build();
 
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                HttpResponse<String> response = send(request, HttpResponse.BodyHandlers.ofString());
 
                 if (response.statusCode() == 200) {
                     return objectMapper.readValue(response.body(), Book.class);
@@ -331,7 +472,7 @@ public class ApiClient {
     }
 
     public CompletableFuture<Message> sendMessage(String senderId, String bookId, String content, String parentMessageId, String recipientId) {
-        return CompletableFuture.supplyAsync(() -> {
+        return supplyAsync(() -> {
             try {
                 String jsonBody;
                 if (recipientId != null) {
@@ -351,7 +492,7 @@ public class ApiClient {
                     .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
                     .build();
 
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                HttpResponse<String> response = send(request, HttpResponse.BodyHandlers.ofString());
 
                 if (response.statusCode() == 200) {
                     return objectMapper.readValue(response.body(), Message.class);
@@ -365,33 +506,99 @@ public class ApiClient {
     }
 
     public CompletableFuture<List<Message>> getUserMessages(String userId) {
-        return CompletableFuture.supplyAsync(() -> {
+        return supplyAsync(() -> {
+            try {
+                DecodedResponse<List<Message>> response = getDecoded("/messages/user/" + userId, new TypeReference<List<Message>>() {});
+
+                if (response.statusCode() == 200) {
+                    return response.body();
+                } else {
+                    throw new RuntimeException("Failed to get user messages: " + response.statusCode());
+                }
+            } catch (Exception e) {
+                throw new RuntimeException("Error getting user messages", e);
+            }
+        });
+    }
+
+    // One page of the current user's inbox; pass null as cursor for the newest messages
+    public CompletableFuture<MessagePage> getInboxPage(String cursor, int size) {
+        return supplyAsync(() -> {
+            try {
+                StringBuilder url = new StringBuilder("/messages/inbox?size=").append(size);
+                if (cursor != null) {
+                    url.append("&cursor=").append(java.net.URLEncoder.encode(cursor, "UTF-8"));
+                }
+
+                DecodedResponse<MessagePage> response = getDecoded(url.toString(), new TypeReference<MessagePage>() {});
+
+                if (response.statusCode() == 200) {
+                    return response.body();
+                } else {
+                    throw new RuntimeException("Failed to get inbox: " + response.statusCode());
+                }
+            } catch (Exception e) {
+                throw new RuntimeException("Error getting inbox", e);
+            }
+        });
+    }
+
+    public CompletableFuture<Long> getUnreadMessageCount() {
+        return supplyAsync(() -> {
             try {
-                HttpRequest request = createRequest("/messages/user/" + userId)
+                HttpRequest request = createRequest("/messages/unread-count")
                     .GET()
                     .build();
 
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                HttpResponse<String> response = send(request, HttpResponse.BodyHandlers.ofString());
 
                 if (response.statusCode() == 200) {
-                    return objectMapper.readValue(response.body(), new TypeReference<List<Message>>() {});
+                    return Long.parseLong(response.body().trim());
                 } else {
-                    throw new RuntimeException("Failed to get user messages: " + response.statusCode());
+                    throw new RuntimeException("Failed to get unread count: " + response.statusCode());
                 }
             } catch (Exception e) {
-                throw new RuntimeException("Error getting user messages", e);
+                throw new RuntimeException("Error getting unread count", e);
+            }
+        });
+    }
+
+    public CompletableFuture<Boolean> markMessageRead(String messageId) {
+        return postWithoutBody("/messages/" + messageId + "/read", "Error marking message as read");
+    }
+
+    public CompletableFuture<Boolean> markAllMessagesRead() {
+        return postWithoutBody("/messages/read-all", "Error marking messages as read");
+    }
+
+    private CompletableFuture<Boolean> postWithoutBody(String endpoint, String errorMessage) {
+        return supplyAsync(() -> {
+            try {
+                HttpRequest request = createRequest(endpoint)
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build();
+
+                HttpResponse<String> response = send(request, HttpResponse.BodyHandlers.ofString());
+
+                if (response.statusCode() == 200) {
+                    return true;
+                } else {
+                    throw new RuntimeException("Request failed: " + response.statusCode());
+                }
+            } catch (Exception e) {
+                throw new RuntimeException(errorMessage, e);
             }
         });
     }
 
     public CompletableFuture<Boolean> deleteMessage(String messageId) {
-        return CompletableFuture.supplyAsync(() -> {
+        return supplyAsync(() -> {
             try {
                 HttpRequest request = createRequest("/messages/" + messageId)
                     .DELETE()
                     .build();
 
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                HttpResponse<String> response = send(request, HttpResponse.BodyHandlers.ofString());
 
                 if (response.statusCode() == 200) {
                     return true;
@@ -408,17 +615,19 @@ public class ApiClient {
 
 
 
+    // Cold-start variant: returns the last known list at once and passes a changed list to onChanged
+    public CompletableFuture<List<Book>> getAllUserRelatedBooks(String userId, Consumer<List<Book>> onChanged) {
+        return staleWhileRevalidate("/books/user/" + userId + "/all-related", new TypeReference<List<Book>>() {},
+            () -> getAllUserRelatedBooks(userId), onChanged);
+    }
+
         public CompletableFuture<List<Book>> getAllUserRelatedBooks(String userId) {
-        return CompletableFuture.supplyAsync(() -> {
+        return supplyAsync(() -> {
             try {
-                HttpRequest request = createRequest("/books/user/" + userId + "/all-related")
-                    .GET()
-                    .build();
-
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                CachedResponse response = cachedGet("/books/user/" + userId + "/all-related");
 
                 if (response.statusCode() == 200) {
-                    return objectMapper.readValue(response.body(), new TypeReference<List<Book>>() {});
+                    return readBody(response, new TypeReference<List<Book>>() {});
                 } else {
                     throw new RuntimeException("Failed to get user-related books: " + response.statusCode());
                 }
@@ -430,17 +639,19 @@ public class ApiClient {
 
 
 
+    // Cold-start variant: returns the last known list at once and passes a changed list to onChanged
+    public CompletableFuture<List<Book>> getAvailableBooksExcludingCurrentUser(Consumer<List<Book>> onChanged) {
+        return staleWhileRevalidate("/books/available/exclude-current-user", new TypeReference<List<Book>>() {},
+            this::getAvailableBooksExcludingCurrentUser, onChanged);
+    }
+
     public CompletableFuture<List<Book>> getAvailableBooksExcludingCurrentUser() {
-        return CompletableFuture.supplyAsync(() -> {
+        return supplyAsync(() -> {
             try {
-                HttpRequest request = createRequest("/books/available/exclude-current-user")
-                    .GET()
-                    .build();
-
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                CachedResponse response = cachedGet("/books/available/exclude-current-user");
 
                 if (response.statusCode() == 200) {
-                    return objectMapper.readValue(response.body(), new TypeReference<List<Book>>() {});
+                    return readBody(response, new TypeReference<List<Book>>() {});
                 } else {
                     throw new RuntimeException("Failed to get available books excluding current user: " + response.statusCode());
                 }
@@ -460,16 +671,12 @@ public class ApiClient {
 
     // Admin API
     public CompletableFuture<List<User>> getAllUsers() {
-        return CompletableFuture.supplyAsync(() -> {
+        return supplyAsync(() -> {
             try {
-                HttpRequest request = createRequest("/admin/users")
-                    .GET()
-                    .build();
-
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                DecodedResponse<List<User>> response = getDecoded("/admin/users", new TypeReference<List<User>>() {});
 
                 if (response.statusCode() == 200) {
-                    return objectMapper.readValue(response.body(), new TypeReference<List<User>>() {});
+                    return response.body();
                 } else {
                     throw new RuntimeException("Failed to get all users: " + response.statusCode());
                 }
@@ -480,13 +687,13 @@ public class ApiClient {
     }
 
     public CompletableFuture<Boolean> deleteUser(String userId) {
-        return CompletableFuture.supplyAsync(() -> {
+        return supplyAsync(() -> {
             try {
                 HttpRequest request = createRequest("/admin/users/" + userId)
                     .DELETE()
                     .build();
 
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                HttpResponse<String> response = send(request, HttpResponse.BodyHandlers.ofString());
 
                 return response.statusCode() == 200 || response.statusCode() == 204;
             } catch (Exception e) {
@@ -496,16 +703,12 @@ public class ApiClient {
     }
 
     public CompletableFuture<List<Book>> getAllBooksAdmin() {
-        return CompletableFuture.supplyAsync(() -> {
+        return supplyAsync(() -> {
             try {
-                HttpRequest request = createRequest("/admin/books")
-                    .GET()
-                    .build();
-
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                DecodedResponse<List<Book>> response = getDecoded("/admin/books", new TypeReference<List<Book>>() {});
 
                 if (response.statusCode() == 200) {
-                    return objectMapper.readValue(response.body(), new TypeReference<List<Book>>() {});
+                    return response.body();
                 } else {
                     throw new RuntimeException("Failed to get all books: " + response.statusCode());
                 }
@@ -516,13 +719,13 @@ public class ApiClient {
     }
 
     public CompletableFuture<Boolean> deleteBookAdmin(String bookId) {
-        return CompletableFuture.supplyAsync(() -> {
+        return supplyAsync(() -> {
             try {
                 HttpRequest request = createRequest("/admin/books/" + bookId)
                     .DELETE()
                     .build();
 
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                HttpResponse<String> response = send(request, HttpResponse.BodyHandlers.ofString());
 
                 return response.statusCode() == 200 || response.statusCode() == 204;
             } catch (Exception e) {
@@ -534,13 +737,13 @@ public class ApiClient {
 
 
     public CompletableFuture<Boolean> deleteUserBook(String bookId) {
-        return CompletableFuture.supplyAsync(() -> {
+        return supplyAsync(() -> {
             try {
                 HttpRequest request = createRequest("/books/" + bookId)
                     .DELETE()
                     .build();
 
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                HttpResponse<String> response = send(request, HttpResponse.BodyHandlers.ofString());
 
                 return response.statusCode() == 200 || response.statusCode() == 204;
             } catch (Exception e) {
@@ -551,16 +754,12 @@ public class ApiClient {
 
     // Categories API
     public CompletableFuture<List<String>> getBookCategories() {
-        return CompletableFuture.supplyAsync(() -> {
+        return supplyAsync(() -> {
             try {
-                HttpRequest request = createRequest("/books/categories")
-                    .GET()
-                    .build();
-
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                CachedResponse response = cachedGet("/books/categories");
 
                 if (response.statusCode() == 200) {
-                    return objectMapper.readValue(response.body(), new TypeReference<List<String>>() {});
+                    return readBody(response, new TypeReference<List<String>>() {});
                 } else {
                     // Fallback to default categories matching our backend enum
                     return java.util.Arrays.asList("Fiction", "Non-Fiction", "Science Fiction", "Fantasy", "History", "Biography", "Romance", "Mystery", "Thriller", "Adventure");
@@ -574,16 +773,12 @@ public class ApiClient {
 
     // Admin user activity tracking methods
     public CompletableFuture<List<org.example.model.UserActionLog>> getAllUserActions() {
-        return CompletableFuture.supplyAsync(() -> {
+        return supplyAsync(() -> {
             try {
-                HttpRequest request = createRequest("/admin/user-actions")
-                    .GET()
-                    .build();
-
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                CachedResponse response = cachedGet("/admin/user-actions");
 
                 if (response.statusCode() == 200) {
-                    return objectMapper.readValue(response.body(), new TypeReference<List<org.example.model.UserActionLog>>() {});
+                    return readBody(response, new TypeReference<List<org.example.model.UserActionLog>>() {});
                 } else {
                     throw new RuntimeException("Failed to get user actions: " + response.statusCode());
                 }
@@ -597,17 +792,48 @@ public class ApiClient {
 
 
 
-    public CompletableFuture<List<org.example.model.UserActionLog>> getActionsByType(String actionType) {
-        return CompletableFuture.supplyAsync(() -> {
+    // Streams the server-side export (format "csv" or "ndjson") straight into target; nothing is buffered in memory
+    public CompletableFuture<java.nio.file.Path> exportUserActions(String actionType, String userName, String format,
+                                                                  java.nio.file.Path target) {
+        return supplyAsync(() -> {
             try {
-                HttpRequest request = createRequest("/admin/actions-by-type?actionType=" + actionType)
+                StringBuilder url = new StringBuilder("/admin/user-actions/export?format=").append(format);
+                if (actionType != null && !actionType.trim().isEmpty()) {
+                    url.append("&actionType=").append(java.net.URLEncoder.encode(actionType.trim(), "UTF-8"));
+                }
+                if (userName != null && !userName.trim().isEmpty()) {
+                    url.append("&userName=").append(java.net.URLEncoder.encode(userName.trim(), "UTF-8"));
+                }
+
+                HttpRequest request = createRequest(url.toString())
+                    .header("Accept-Encoding", "gzip, deflate")
                     .GET()
                     .build();
 
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                HttpResponse<InputStream> response = send(request, HttpResponse.BodyHandlers.ofInputStream());
+
+                try (InputStream in = decompressed(response)) {
+                    if (response.statusCode() == 200) {
+                        java.nio.file.Files.copy(in, target, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+                        return target;
+                    } else {
+                        throw new RuntimeException("Failed to export user actions: " + response.statusCode());
+                    }
+                }
+            } catch (Exception e) {
+                throw new RuntimeException("Error exporting user actions", e);
+            }
+        });
+    }
+
+    public CompletableFuture<List<org.example.model.UserActionLog>> getActionsByType(String actionType) {
+        return supplyAsync(() -> {
+            try {
+                DecodedResponse<List<org.example.model.UserActionLog>> response = getDecoded(
+                    "/admin/actions-by-type?actionType=" + actionType, new TypeReference<List<org.example.model.UserActionLog>>() {});
 
                 if (response.statusCode() == 200) {
-                    return objectMapper.readValue(response.body(), new TypeReference<List<org.example.model.UserActionLog>>() {});
+                    return response.body();
                 } else {
                     throw new RuntimeException("Failed to get actions by type: " + response.statusCode());
                 }
@@ -617,6 +843,272 @@ public class ApiClient {
         });
     }
 
+    // Delta sync: pass null for a full snapshot, then the previous batch's watermark
+    public CompletableFuture<BookChanges> getBookChanges(String since, int limit) {
+        return supplyAsync(() -> {
+            try {
+                StringBuilder url = new StringBuilder("/books/changes?limit=").append(limit);
+                if (since != null) {
+                    url.append("&since=").append(java.net.URLEncoder.encode(since, "UTF-8"));
+                }
+
+                DecodedResponse<BookChanges> response = getDecoded(url.toString(), new TypeReference<BookChanges>() {});
+
+                if (response.statusCode() == 200) {
+                    return response.body();
+                } else {
+                    throw new RuntimeException("Failed to get book changes: " + response.statusCode());
+                }
+            } catch (Exception e) {
+                throw new RuntimeException("Error getting book changes", e);
+            }
+        });
+    }
+
+    // Server-Sent Events
+    // Streams the current user's events to the listener on a background thread, reconnecting
+    // after a dropped connection until the returned subscription is closed
+    public EventSubscription subscribeToEvents(Consumer<UserEvent> listener) {
+        EventSubscription subscription = new EventSubscription(listener);
+        Thread thread = new Thread(subscription::run, "event-stream");
+        thread.setDaemon(true);
+        thread.start();
+        return subscription;
+    }
+
+    public final class EventSubscription {
+        private static final long MIN_RETRY_MS = 2000;
+        private static final long MAX_RETRY_MS = 60000;
+
+        private final Consumer<UserEvent> listener;
+        private volatile boolean closed;
+        private volatile InputStream stream;
+
+        private EventSubscription(Consumer<UserEvent> listener) {
+            this.listener = listener;
+        }
+
+        public void close() {
+            closed = true;
+            InputStream current = stream;
+            if (current != null) {
+                try {
+                    current.close();
+                } catch (IOException ignored) {
+                    // Closing only unblocks the reader
+                }
+            }
+        }
+
+        private void run() {
+            long retryMs = MIN_RETRY_MS;
+            while (!closed) {
+                try {
+                    HttpRequest request = createRequest("/events")
+                        .header("Accept", "text/event-stream")
+                        .GET()
+                        .build();
+                    HttpResponse<InputStream> response = send(request, HttpResponse.BodyHandlers.ofInputStream());
+                    if (response.statusCode() == 200) {
+                        stream = response.body();
+                        retryMs = MIN_RETRY_MS;
+                        readEvents(response.body());
+                    } else {
+                        response.body().close();
+                        System.err.println("Event stream refused: " + response.statusCode());
+                    }
+                } catch (Exception e) {
+                    if (!closed) {
+                        System.err.println("Event stream dropped: " + e.getMessage());
+                    }
+                }
+                if (!closed) {
+                    try {
+                        Thread.sleep(retryMs);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    retryMs = Math.min(retryMs * 2, MAX_RETRY_MS);
+                }
+            }
+        }
+
+        // Minimal text/event-stream parser: data lines are joined until a blank line ends the event
+        private void readEvents(InputStream body) throws IOException {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+            StringBuilder data = new StringBuilder();
+            String line;
+            while (!closed && (line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    if (data.length() > 0) {
+                        dispatch(data.toString());
+                        data.setLength(0);
+                    }
+                } else if (line.startsWith("data:")) {
+                    if (data.length() > 0) {
+                        data.append('\n');
+                    }
+                    data.append(line.substring(line.startsWith("data: ") ? 6 : 5));
+                }
+                // "event:" duplicates the type inside the data, and ":" lines are heartbeats
+            }
+        }
+
+        private void dispatch(String json) {
+            try {
+                UserEvent event = objectMapper.readValue(json, UserEvent.class);
+                // Something the cached lists may contain changed on the server
+                serverDataChanged();
+                listener.accept(event);
+            } catch (Exception e) {
+                System.err.println("Ignoring unreadable event: " + e.getMessage());
+            }
+        }
+    }
+
+    // Response cache
+
+    // Per-endpoint freshness in millis; negative means the endpoint is never cached
+    private static long cacheTtlMillis(String endpoint) {
+        if (endpoint.equals("/books/categories")) {
+            return 24 * 60 * 60 * 1000L;
+        }
+        if (endpoint.equals("/books") || endpoint.startsWith("/books/available/") || endpoint.startsWith("/books/user/")) {
+            return 30 * 1000L;
+        }
+        if (endpoint.startsWith("/comments/books/")) {
+            return 15 * 1000L;
+        }
+        // Kept only for revalidation: every use asks the server, which answers 304 while nothing changed
+        if (endpoint.startsWith("/books/search?") || endpoint.equals("/admin/user-actions")) {
+            return 0;
+        }
+        return -1;
+    }
+
+    private record CachedResponse(int statusCode, byte[] body, String contentType) {}
+
+    private String cacheKey(String endpoint) {
+        return cacheScope + " " + endpoint;
+    }
+
+    // GET through the cache: a fresh entry answers without a request, a stale one is revalidated with
+    // If-None-Match, and if the server cannot be reached a stale entry is better than nothing
+    private CachedResponse cachedGet(String endpoint) throws IOException, InterruptedException {
+        return coalesced("cached " + endpoint, () -> fetchThroughCache(endpoint));
+    }
+
+    private CachedResponse fetchThroughCache(String endpoint) throws IOException, InterruptedException {
+        long ttl = cacheTtlMillis(endpoint);
+        String key = cacheKey(endpoint);
+        ResponseCache.Entry cached = ttl >= 0 ? responseCache.get(key) : null;
+        if (cached != null && System.currentTimeMillis() - cached.getStoredAt() < ttl) {
+            return new CachedResponse(200, cached.getBody(), cached.getContentType());
+        }
+
+        HttpRequest.Builder builder = createReadRequest(endpoint);
+        if (cached != null && cached.getEtag() != null) {
+            builder.header("If-None-Match", cached.getEtag());
+        }
+        HttpResponse<InputStream> response;
+        byte[] body;
+        try {
+            response = send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream in = decompressed(response)) {
+                body = in.readAllBytes();
+            }
+        } catch (IOException e) {
+            if (cached != null) {
+                return new CachedResponse(200, cached.getBody(), cached.getContentType());
+            }
+            throw e;
+        }
+
+        if (response.statusCode() == 304 && cached != null) {
+            responseCache.touch(key);
+            return new CachedResponse(200, cached.getBody(), cached.getContentType());
+        }
+        String contentType = response.headers().firstValue("Content-Type").orElse(null);
+        if (response.statusCode() == 200 && ttl >= 0) {
+            responseCache.put(key, body, contentType, response.headers().firstValue("ETag").orElse(null));
+        }
+        return new CachedResponse(response.statusCode(), body, contentType);
+    }
+
+    private <T> T readBody(CachedResponse response, TypeReference<T> type) throws IOException {
+        return mapperFor(response.contentType()).readValue(response.body(), type);
+    }
+
+    // Answers right away from any cached copy, however old, and revalidates in the background;
+    // onChanged receives the new value only if the server's response differed from the cached one
+    private <T> CompletableFuture<T> staleWhileRevalidate(String endpoint, TypeReference<T> type,
+                                                          Supplier<CompletableFuture<T>> fetch, Consumer<T> onChanged) {
+        ResponseCache.Entry cached = responseCache.get(cacheKey(endpoint));
+        if (cached == null) {
+            return fetch.get();
+        }
+        T stale;
+        try {
+            stale = mapperFor(cached.getContentType()).readValue(cached.getBody(), type);
+        } catch (IOException e) {
+            return fetch.get();
+        }
+        fetch.get()
+            .thenAccept(value -> {
+                ResponseCache.Entry current = responseCache.get(cacheKey(endpoint));
+                if (current == null || !Arrays.equals(current.getBody(), cached.getBody())) {
+                    onChanged.accept(value);
+                }
+            })
+            .exceptionally(throwable -> {
+                System.err.println("Background revalidation of " + endpoint + " failed: " + throwable.getMessage());
+                return null;
+            });
+        return CompletableFuture.completedFuture(stale);
+    }
+
+    private <T> CompletableFuture<T> supplyAsync(Supplier<T> call) {
+        return CompletableFuture.supplyAsync(call, EXECUTOR);
+    }
+
+    // Every request goes through here; a successful write may change any cached list, so all entries
+    // are revalidated (a cheap 304 when unchanged) before they are used again.
+    // The endpoint slot is held until the response arrives; streamed bodies are read after it is released.
+    private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler)
+            throws IOException, InterruptedException {
+        Semaphore limit = endpointLimits.computeIfAbsent(endpointGroup(request.uri()),
+            group -> new Semaphore(MAX_CONCURRENT_PER_ENDPOINT, true));
+        HttpResponse<T> response;
+        limit.acquire();
+        try {
+            response = httpClient.send(request, handler);
+        } finally {
+            limit.release();
+        }
+        if (!"GET".equals(request.method()) && response.statusCode() >= 200 && response.statusCode() < 300) {
+            serverDataChanged();
+        }
+        return response;
+    }
+
+    // Nothing fetched before this point may be handed out without asking the server again
+    private void serverDataChanged() {
+        responseCache.expireAll();
+        flights.clear();
+    }
+
+    private static String endpointGroup(URI uri) {
+        String path = uri.getPath().substring(URI.create(BASE_URL).getPath().length());
+        int start = path.startsWith("/") ? 1 : 0;
+        int end = path.indexOf('/', start);
+        return end < 0 ? path.substring(start) : path.substring(start, end);
+    }
+
+    // Persists the response cache; call on exit
+    public void saveCache() {
+        responseCache.save();
+    }
+
         // Helper method to create HTTP request with auth
     private HttpRequest.Builder createRequest(String endpoint) {
         HttpRequest.Builder builder = HttpRequest.newBuilder()
@@ -631,9 +1123,110 @@ public class ApiClient {
         return builder;
     }
 
+    // Wire format
+
+    private record DecodedResponse<T>(int statusCode, T body) {}
+
+    // A GET that negotiates Smile and gzip/deflate; read its body with decompressed(response)
+    private HttpRequest.Builder createReadRequest(String endpoint) {
+        return createRequest(endpoint)
+            .header("Accept", READ_ACCEPT)
+            .header("Accept-Encoding", "gzip, deflate")
+            .GET();
+    }
+
+    // Decodes a 200 body straight from the decompressing stream; no String or byte[] copy of the body is made
+    // Callers coalesced onto one request get the same decoded objects, so treat them as read-only
+    private <T> DecodedResponse<T> getDecoded(String endpoint, TypeReference<T> type) throws IOException, InterruptedException {
+        return coalesced("decoded " + endpoint, () -> fetchDecoded(endpoint, type));
+    }
+
+    private <T> DecodedResponse<T> fetchDecoded(String endpoint, TypeReference<T> type) throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = send(createReadRequest(endpoint).build(), HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream in = decompressed(response)) {
+            if (response.statusCode() != 200) {
+                return new DecodedResponse<>(response.statusCode(), null);
+            }
+            return new DecodedResponse<>(200, mapperFor(response.headers().firstValue("Content-Type").orElse(null)).readValue(in, type));
+        }
+    }
+
+    // Request coalescing
+
+    @FunctionalInterface
+    private interface Call<T> {
+        T run() throws IOException, InterruptedException;
+    }
+
+    private static final class Flight {
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+        // 0 while the request is running
+        volatile long completedAt;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T coalesced(String request, Call<T> call) throws IOException, InterruptedException {
+        String key = request + " " + authToken;
+        while (true) {
+            Flight flight = new Flight();
+            Flight existing = flights.putIfAbsent(key, flight);
+            if (existing != null) {
+                long completedAt = existing.completedAt;
+                if (completedAt == 0 || System.currentTimeMillis() - completedAt < COALESCE_WINDOW_MS) {
+                    return (T) await(existing.result);
+                }
+                flights.remove(key, existing);
+                continue;
+            }
+            try {
+                T value = call.run();
+                flight.completedAt = System.currentTimeMillis();
+                flight.result.complete(value);
+                CompletableFuture.delayedExecutor(COALESCE_WINDOW_MS, TimeUnit.MILLISECONDS)
+                    .execute(() -> flights.remove(key, flight));
+                return value;
+            } catch (Throwable e) {
+                // Failures are not shared beyond the callers already waiting
+                flights.remove(key, flight);
+                flight.result.completeExceptionally(e);
+                throw e;
+            }
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> result) throws IOException, InterruptedException {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static InputStream decompressed(HttpResponse<InputStream> response) throws IOException {
+        String encoding = response.headers().firstValue("Content-Encoding").orElse("identity").trim();
+        if (encoding.equalsIgnoreCase("gzip")) {
+            return new GZIPInputStream(response.body(), 8192);
+        }
+        if (encoding.equalsIgnoreCase("deflate")) {
+            return new InflaterInputStream(response.body());
+        }
+        return response.body();
+    }
+
+    private ObjectMapper mapperFor(String contentType) {
+        return contentType != null && contentType.startsWith(SMILE) ? smileMapper : objectMapper;
+    }
+
     // Comment methods
     public CompletableFuture<Comment> createComment(String bookId, String content) {
-        return CompletableFuture.supplyAsync(() -> {
+        return supplyAsync(() -> {
             try {
                 String jsonBody = String.format("{\"content\":\"%s\"}", content);
 
@@ -641,7 +1234,7 @@ public class ApiClient {
                     .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
                     .build();
 
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                HttpResponse<String> response = send(request, HttpResponse.BodyHandlers.ofString());
 
                 if (response.statusCode() == 200) {
                     return objectMapper.readValue(response.body(), Comment.class);
@@ -655,7 +1248,7 @@ public class ApiClient {
     }
 
     public CompletableFuture<Comment> createReply(String commentId, String content) {
-        return CompletableFuture.supplyAsync(() -> {
+        return supplyAsync(() -> {
             try {
                 String jsonBody = String.format("{\"content\":\"%s\"}", content);
 
@@ -663,7 +1256,7 @@ public class ApiClient {
                     .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
                     .build();
 
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                HttpResponse<String> response = send(request, HttpResponse.BodyHandlers.ofString());
 
                 if (response.statusCode() == 200) {
                     return objectMapper.readValue(response.body(), Comment.class);
@@ -679,16 +1272,12 @@ public class ApiClient {
 
 
     public CompletableFuture<List<Comment>> getNestedCommentsByBookId(String bookId) {
-        return CompletableFuture.supplyAsync(() -> {
+        return supplyAsync(() -> {
             try {
-                HttpRequest request = createRequest("/comments/books/" + bookId + "/nested")
-                    .GET()
-                    .build();
-
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                CachedResponse response = cachedGet("/comments/books/" + bookId + "/nested");
 
                 if (response.statusCode() == 200) {
-                    return objectMapper.readValue(response.body(), new TypeReference<List<Comment>>() {});
+                    return readBody(response, new TypeReference<List<Comment>>() {});
                 } else {
                     throw new RuntimeException("Failed to get nested comments: " + response.statusCode());
                 }
@@ -700,8 +1289,39 @@ public class ApiClient {
 
 
 
+    // Keyset-paged top-level comments of a book; pass null cursor for the first page, then the previous page's next.
+    // Items carry replyCount but no replies; fetch those with getRepliesPage when a thread is expanded.
+    public CompletableFuture<CommentPage> getCommentsPage(String bookId, String cursor, int size) {
+        return getCommentPage("/comments/books/" + bookId, cursor, size);
+    }
+
+    public CompletableFuture<CommentPage> getRepliesPage(String commentId, String cursor, int size) {
+        return getCommentPage("/comments/" + commentId + "/replies", cursor, size);
+    }
+
+    private CompletableFuture<CommentPage> getCommentPage(String endpoint, String cursor, int size) {
+        return supplyAsync(() -> {
+            try {
+                StringBuilder url = new StringBuilder(endpoint).append("?size=").append(size);
+                if (cursor != null) {
+                    url.append("&cursor=").append(java.net.URLEncoder.encode(cursor, "UTF-8"));
+                }
+
+                CachedResponse response = cachedGet(url.toString());
+
+                if (response.statusCode() == 200) {
+                    return readBody(response, new TypeReference<CommentPage>() {});
+                } else {
+                    throw new RuntimeException("Failed to get comments: " + response.statusCode());
+                }
+            } catch (Exception e) {
+                throw new RuntimeException("Error getting comments", e);
+            }
+        });
+    }
+
     public CompletableFuture<Comment> updateComment(String commentId, String content) {
-        return CompletableFuture.supplyAsync(() -> {
+        return supplyAsync(() -> {
             try {
                 String jsonBody = String.format("{\"content\":\"%s\"}", content);
 
@@ -709,7 +1329,7 @@ public class ApiClient {
                     .PUT(HttpRequest.BodyPublishers.ofString(jsonBody))
                     .build();
 
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                HttpResponse<String> response = send(request, HttpResponse.BodyHandlers.ofString());
 
                 if (response.statusCode() == 200) {
                     return objectMapper.readValue(response.body(), Comment.class);
@@ -723,13 +1343,13 @@ public class ApiClient {
     }
 
     public CompletableFuture<Boolean> deleteComment(String commentId) {
-        return CompletableFuture.supplyAsync(() -> {
+        return supplyAsync(() -> {
             try {
                 HttpRequest request = createRequest("/comments/" + commentId)
                     .DELETE()
                     .build();
 
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                HttpResponse<String> response = send(request, HttpResponse.BodyHandlers.ofString());
 
                 return response.statusCode() == 200;
             } catch (Exception e) {
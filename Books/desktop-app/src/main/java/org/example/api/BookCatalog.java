@@ -0,0 +1,93 @@
+package org.example.api;
+
+import org.example.model.Book;
+import org.example.model.BookChanges;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Local copy of the whole book catalog, kept current through /books/changes. The first sync
+ * downloads everything; later syncs only transfer what changed since the last watermark.
+ */
+public class BookCatalog {
+    private static final int SYNC_BATCH_SIZE = 500;
+
+    // Oldest first, the same order the server pages the catalog in
+    public static final Comparator<Book> CATALOG_ORDER = Comparator
+        .comparing(Book::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+        .thenComparing(Book::getId);
+
+    private final ApiClient apiClient;
+    private final Map<String, Book> books = new HashMap<>();
+    private String watermark;
+
+    public BookCatalog(ApiClient apiClient) {
+        this.apiClient = apiClient;
+    }
+
+    // What one sync changed; reset means the catalog was rebuilt and views should be redrawn
+    public static final class Delta {
+        private final Set<String> updatedIds = new LinkedHashSet<>();
+        private final Set<String> deletedIds = new LinkedHashSet<>();
+        private boolean reset;
+
+        public Set<String> getUpdatedIds() { return updatedIds; }
+        public Set<String> getDeletedIds() { return deletedIds; }
+        public boolean isReset() { return reset; }
+        public boolean isEmpty() { return !reset && updatedIds.isEmpty() && deletedIds.isEmpty(); }
+    }
+
+    // Fetches and applies batches until the server has nothing more
+    public CompletableFuture<Delta> sync() {
+        return fetch(new Delta());
+    }
+
+    private CompletableFuture<Delta> fetch(Delta delta) {
+        return apiClient.getBookChanges(currentWatermark(), SYNC_BATCH_SIZE).thenCompose(changes -> {
+            apply(changes, delta);
+            return changes.isHasMore() ? fetch(delta) : CompletableFuture.completedFuture(delta);
+        });
+    }
+
+    private synchronized String currentWatermark() {
+        return watermark;
+    }
+
+    private synchronized void apply(BookChanges changes, Delta delta) {
+        if (changes.isReset()) {
+            books.clear();
+            delta.reset = true;
+            delta.updatedIds.clear();
+            delta.deletedIds.clear();
+        }
+        for (Book book : changes.getUpdated()) {
+            books.put(book.getId(), book);
+            delta.updatedIds.add(book.getId());
+            delta.deletedIds.remove(book.getId());
+        }
+        for (String id : changes.getDeleted()) {
+            books.remove(id);
+            delta.updatedIds.remove(id);
+            delta.deletedIds.add(id);
+        }
+        watermark = changes.getWatermark();
+    }
+
+    public synchronized Book get(String id) {
+        return books.get(id);
+    }
+
+    // Every book in catalog order
+    public synchronized List<Book> getBooks() {
+        List<Book> all = new ArrayList<>(books.values());
+        all.sort(CATALOG_ORDER);
+        return all;
+    }
+}
@@ -0,0 +1,166 @@
+package org.example.api;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Response bodies of cacheable GETs, keyed by user and endpoint. Least recently used entries are
+ * evicted once the bodies exceed maxBytes. The cache is saved to a file on exit and loaded on
+ * start, so a cold start can show the last known data while ApiClient revalidates it.
+ * Freshness (TTL) and revalidation (ETag) are decided by ApiClient; this class only stores.
+ */
+public class ResponseCache {
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Entry {
+        private String key;
+        private byte[] body;
+        private String contentType;
+        private String etag;
+        private long storedAt;
+
+        public Entry() {}
+
+        Entry(String key, byte[] body, String contentType, String etag, long storedAt) {
+            this.key = key;
+            this.body = body;
+            this.contentType = contentType;
+            this.etag = etag;
+            this.storedAt = storedAt;
+        }
+
+        public String getKey() { return key; }
+        public void setKey(String key) { this.key = key; }
+
+        // Decoded (not compressed) body bytes, JSON or Smile as given by contentType
+        public byte[] getBody() { return body; }
+        public void setBody(byte[] body) { this.body = body; }
+
+        public String getContentType() { return contentType; }
+        public void setContentType(String contentType) { this.contentType = contentType; }
+
+        public String getEtag() { return etag; }
+        public void setEtag(String etag) { this.etag = etag; }
+
+        // When the body was last confirmed by the server (epoch millis); 0 forces revalidation
+        public long getStoredAt() { return storedAt; }
+        public void setStoredAt(long storedAt) { this.storedAt = storedAt; }
+
+        long size() {
+            return body.length;
+        }
+    }
+
+    private final Path file;
+    private final long maxBytes;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Access order, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+    private boolean dirty;
+
+    public ResponseCache(Path file, long maxBytes) {
+        this.file = file;
+        this.maxBytes = maxBytes;
+    }
+
+    // Returns a copy, so callers never see a body replaced underneath them; bodies are never modified in place
+    public synchronized Entry get(String key) {
+        Entry entry = entries.get(key);
+        return entry == null ? null : new Entry(entry.key, entry.body, entry.contentType, entry.etag, entry.storedAt);
+    }
+
+    public synchronized void put(String key, byte[] body, String contentType, String etag) {
+        Entry previous = entries.remove(key);
+        if (previous != null) {
+            totalBytes -= previous.size();
+        }
+        Entry entry = new Entry(key, body, contentType, etag, System.currentTimeMillis());
+        if (entry.size() > maxBytes) {
+            return;
+        }
+        entries.put(key, entry);
+        totalBytes += entry.size();
+        evict();
+        dirty = true;
+    }
+
+    // The server confirmed the stored body (304), so it is fresh again
+    public synchronized void touch(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.storedAt = System.currentTimeMillis();
+            dirty = true;
+        }
+    }
+
+    // Something changed on the server: keep the bodies, but revalidate each before using it
+    public synchronized void expireAll() {
+        for (Entry entry : entries.values()) {
+            entry.storedAt = 0;
+        }
+        dirty = true;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        totalBytes = 0;
+        dirty = true;
+    }
+
+    private void evict() {
+        Iterator<Entry> oldest = entries.values().iterator();
+        while (totalBytes > maxBytes && oldest.hasNext()) {
+            totalBytes -= oldest.next().size();
+            oldest.remove();
+        }
+    }
+
+    // A missing or unreadable file just means an empty cache
+    public synchronized void load() {
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        try {
+            List<Entry> saved = objectMapper.readValue(file.toFile(), new TypeReference<List<Entry>>() {});
+            entries.clear();
+            totalBytes = 0;
+            for (Entry entry : saved) {
+                if (entry.key != null && entry.body != null) {
+                    entries.put(entry.key, entry);
+                    totalBytes += entry.size();
+                }
+            }
+            evict();
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable response cache " + file + ": " + e.getMessage());
+        }
+    }
+
+    // Writes least recently used first, so loading restores the same eviction order
+    public synchronized void save() {
+        if (!dirty) {
+            return;
+        }
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(temp, objectMapper.writeValueAsString(new ArrayList<>(entries.values())).getBytes(StandardCharsets.UTF_8));
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        } catch (IOException e) {
+            System.err.println("Failed to save response cache " + file + ": " + e.getMessage());
+        }
+    }
+}
@@ -21,6 +21,11 @@ public class Book {
 
     private Integer publicationYear;
 
+    // Popularity counters; the server refreshes them every few seconds
+    private long commentCount;
+    private long borrowCount;
+    private long activeReservations;
+
     public enum BookStatus {
         AVAILABLE,
         BORROWED,
@@ -133,6 +138,15 @@ public class Book {
 
     public void setPublicationYear(Integer publicationYear) { this.publicationYear = publicationYear; }
 
+    public long getCommentCount() { return commentCount; }
+    public void setCommentCount(long commentCount) { this.commentCount = commentCount; }
+
+    public long getBorrowCount() { return borrowCount; }
+    public void setBorrowCount(long borrowCount) { this.borrowCount = borrowCount; }
+
+    public long getActiveReservations() { return activeReservations; }
+    public void setActiveReservations(long activeReservations) { this.activeReservations = activeReservations; }
+
 
     @Override
     public String toString() {
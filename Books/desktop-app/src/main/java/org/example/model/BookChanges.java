@@ -0,0 +1,34 @@
+package org.example.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One batch from /books/changes: books to upsert, ids to drop, and the watermark for the next call.
+ * reset means the local catalog must be cleared before applying the batch.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BookChanges {
+    private List<Book> updated = new ArrayList<>();
+    private List<String> deleted = new ArrayList<>();
+    private String watermark;
+    private boolean hasMore;
+    private boolean reset;
+
+    public List<Book> getUpdated() { return updated; }
+    public void setUpdated(List<Book> updated) { this.updated = updated; }
+
+    public List<String> getDeleted() { return deleted; }
+    public void setDeleted(List<String> deleted) { this.deleted = deleted; }
+
+    public String getWatermark() { return watermark; }
+    public void setWatermark(String watermark) { this.watermark = watermark; }
+
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+
+    public boolean isReset() { return reset; }
+    public void setReset(boolean reset) { this.reset = reset; }
+}
@@ -0,0 +1,27 @@
+package org.example.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Result counts per category, status and publication decade for a book search
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BookFacets {
+    private Map<String, Long> categories = new LinkedHashMap<>();
+    private Map<String, Long> statuses = new LinkedHashMap<>();
+    private Map<String, Long> decades = new LinkedHashMap<>();
+
+    public BookFacets() {}
+
+    public Map<String, Long> getCategories() { return categories; }
+    public void setCategories(Map<String, Long> categories) { this.categories = categories; }
+
+    public Map<String, Long> getStatuses() { return statuses; }
+    public void setStatuses(Map<String, Long> statuses) { this.statuses = statuses; }
+
+    public Map<String, Long> getDecades() { return decades; }
+    public void setDecades(Map<String, Long> decades) { this.decades = decades; }
+}
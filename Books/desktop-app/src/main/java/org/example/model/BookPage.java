@@ -0,0 +1,33 @@
+package org.example.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of books returned by the paged endpoints; next is the cursor for the following page
+ * and is null on the last page
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BookPage {
+    private List<Book> items;
+    private String next;
+    private BookFacets facets;
+
+    public BookPage() {
+        this.items = new ArrayList<>();
+    }
+
+    public List<Book> getItems() { return items; }
+    public void setItems(List<Book> items) { this.items = items; }
+
+    public String getNext() { return next; }
+    public void setNext(String next) { this.next = next; }
+
+    // Only filled in when facet counts were requested
+    public BookFacets getFacets() { return facets; }
+    public void setFacets(BookFacets facets) { this.facets = facets; }
+
+    public boolean hasNext() { return next != null; }
+}
@@ -0,0 +1,28 @@
+package org.example.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of comments (top-level ones of a book, or replies to one comment); next is the cursor
+ * for the following page and is null on the last page
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class CommentPage {
+    private List<Comment> items;
+    private String next;
+
+    public CommentPage() {
+        this.items = new ArrayList<>();
+    }
+
+    public List<Comment> getItems() { return items; }
+    public void setItems(List<Comment> items) { this.items = items; }
+
+    public String getNext() { return next; }
+    public void setNext(String next) { this.next = next; }
+
+    public boolean hasNext() { return next != null; }
+}
@@ -0,0 +1,28 @@
+package org.example.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of the current user's inbox, newest first; next is the cursor for the following page
+ * and is null on the last page
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class MessagePage {
+    private List<Message> items;
+    private String next;
+
+    public MessagePage() {
+        this.items = new ArrayList<>();
+    }
+
+    public List<Message> getItems() { return items; }
+    public void setItems(List<Message> items) { this.items = items; }
+
+    public String getNext() { return next; }
+    public void setNext(String next) { this.next = next; }
+
+    public boolean hasNext() { return next != null; }
+}
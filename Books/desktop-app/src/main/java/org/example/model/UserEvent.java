@@ -0,0 +1,44 @@
+package org.example.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * An event pushed by the server on the /events stream. Only the fields of the event's type are set:
+ * MESSAGE_RECEIVED carries the message, BOOK_STATUS_CHANGED the book id and new status,
+ * COMMENT_ADDED the book and the comment's author.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class UserEvent {
+    public static final String MESSAGE_RECEIVED = "MESSAGE_RECEIVED";
+    public static final String BOOK_STATUS_CHANGED = "BOOK_STATUS_CHANGED";
+    public static final String COMMENT_ADDED = "COMMENT_ADDED";
+
+    private String type;
+    private String bookId;
+    private String bookTitle;
+    private Book.BookStatus bookStatus;
+    private Message message;
+    private String commentId;
+    private String commentAuthorName;
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public String getBookId() { return bookId; }
+    public void setBookId(String bookId) { this.bookId = bookId; }
+
+    public String getBookTitle() { return bookTitle; }
+    public void setBookTitle(String bookTitle) { this.bookTitle = bookTitle; }
+
+    public Book.BookStatus getBookStatus() { return bookStatus; }
+    public void setBookStatus(Book.BookStatus bookStatus) { this.bookStatus = bookStatus; }
+
+    public Message getMessage() { return message; }
+    public void setMessage(Message message) { this.message = message; }
+
+    public String getCommentId() { return commentId; }
+    public void setCommentId(String commentId) { this.commentId = commentId; }
+
+    public String getCommentAuthorName() { return commentAuthorName; }
+    public void setCommentAuthorName(String commentAuthorName) { this.commentAuthorName = commentAuthorName; }
+}
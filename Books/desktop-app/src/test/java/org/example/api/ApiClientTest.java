@@ -1,11 +1,91 @@
 package org.example.api;
 
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.example.model.User;
 
 class ApiClientTest {
+    // ApiClient reads -Dapi.base.url once; the build sets it, this covers running the class on its own
+    static {
+        if (System.getProperty("api.base.url") == null) {
+            System.setProperty("api.base.url", "http://localhost:18089/api");
+        }
+    }
+
+    private static final long COALESCE_WINDOW_MS = Long.getLong("api.coalesce-window-ms", 300);
+
+    // Stub server answering /admin/users; GETs are counted and can be held or dropped
+    private static HttpServer server;
+    private static ExecutorService serverThreads;
+    private static final AtomicInteger userListHits = new AtomicInteger();
+    private static final AtomicBoolean dropConnection = new AtomicBoolean();
+    private static volatile CountDownLatch holdResponse = new CountDownLatch(0);
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        URI base = URI.create(System.getProperty("api.base.url"));
+        server = HttpServer.create(new InetSocketAddress("localhost", base.getPort()), 0);
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.createContext(base.getPath() + "/admin/users", ApiClientTest::handleUsers);
+        server.start();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @BeforeEach
+    void resetServer() {
+        userListHits.set(0);
+        dropConnection.set(false);
+        holdResponse = new CountDownLatch(0);
+    }
+
+    private static void handleUsers(HttpExchange exchange) throws IOException {
+        if ("DELETE".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+            return;
+        }
+        userListHits.incrementAndGet();
+        try {
+            holdResponse.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (dropConnection.get()) {
+            exchange.close();
+            return;
+        }
+        byte[] body = "[{\"id\":\"u1\",\"username\":\"reader\"}]".getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+
     @Test
     void testLoginWithInvalidCredentials() {
         ApiClient apiClient = new ApiClient();
@@ -15,6 +95,56 @@ class ApiClientTest {
         assertNotNull(thrown.getMessage());
     }
 
-    // Add more integration tests for API endpoints as needed
-}
+    @Test
+    void testConcurrentIdenticalGetsShareOneRequest() throws Exception {
+        ApiClient apiClient = new ApiClient();
+        holdResponse = new CountDownLatch(1);
+        List<CompletableFuture<List<User>>> calls = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            calls.add(apiClient.getAllUsers());
+        }
+        // Give every caller time to join the request the server is holding
+        Thread.sleep(100);
+        holdResponse.countDown();
+
+        for (CompletableFuture<List<User>> call : calls) {
+            assertEquals("reader", call.get(5, TimeUnit.SECONDS).get(0).getUsername());
+        }
+        assertEquals(1, userListHits.get());
+    }
+
+    @Test
+    void testResultIsSharedOnlyWithinTheWindow() throws Exception {
+        ApiClient apiClient = new ApiClient();
+        apiClient.getAllUsers().get(5, TimeUnit.SECONDS);
+        apiClient.getAllUsers().get(5, TimeUnit.SECONDS);
+        assertEquals(1, userListHits.get(), "a repeat right after the first call reuses its response");
+
+        Thread.sleep(COALESCE_WINDOW_MS + 200);
+        apiClient.getAllUsers().get(5, TimeUnit.SECONDS);
+        assertEquals(2, userListHits.get(), "once the window has passed the server is asked again");
+    }
+
+    @Test
+    void testFailureIsNotReused() throws Exception {
+        ApiClient apiClient = new ApiClient();
+        dropConnection.set(true);
+        assertThrows(ExecutionException.class, () -> apiClient.getAllUsers().get(5, TimeUnit.SECONDS));
+        // The HTTP client may retry a dropped GET on its own, so count from here
+        int failedHits = userListHits.get();
+
+        dropConnection.set(false);
+        assertEquals("reader", apiClient.getAllUsers().get(5, TimeUnit.SECONDS).get(0).getUsername());
+        assertEquals(failedHits + 1, userListHits.get(), "the failed call must not be handed to the next caller");
+    }
+
+    @Test
+    void testSuccessfulWriteEndsSharing() throws Exception {
+        ApiClient apiClient = new ApiClient();
+        apiClient.getAllUsers().get(5, TimeUnit.SECONDS);
+        assertTrue(apiClient.deleteUser("u1").get(5, TimeUnit.SECONDS));
 
+        apiClient.getAllUsers().get(5, TimeUnit.SECONDS);
+        assertEquals(2, userListHits.get(), "a write inside the window must not leave the old list shared");
+    }
+}
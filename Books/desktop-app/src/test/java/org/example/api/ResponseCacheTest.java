@@ -0,0 +1,40 @@
+package org.example.api;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.nio.file.Path;
+
+class ResponseCacheTest {
+    @Test
+    void testEvictsLeastRecentlyUsedOnceOverMaxBytes() {
+        ResponseCache cache = new ResponseCache(null, 15);
+        cache.put("a", new byte[5], "application/json", null);
+        cache.put("b", new byte[5], "application/json", null);
+        cache.put("c", new byte[5], "application/json", null);
+        cache.get("a");
+        cache.put("d", new byte[5], "application/json", null);
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"), "b was the least recently used entry");
+        assertNotNull(cache.get("c"));
+        assertNotNull(cache.get("d"));
+    }
+
+    @Test
+    void testSaveAndLoadKeepBodiesAndEtags(@TempDir Path dir) {
+        Path file = dir.resolve("cache.json");
+        ResponseCache cache = new ResponseCache(file, 1024);
+        cache.put("user:/books", "[]".getBytes(), "application/json", "\"v1\"");
+        cache.expireAll();
+        cache.save();
+
+        ResponseCache loaded = new ResponseCache(file, 1024);
+        loaded.load();
+        ResponseCache.Entry entry = loaded.get("user:/books");
+        assertEquals("[]", new String(entry.getBody()));
+        assertEquals("application/json", entry.getContentType());
+        assertEquals("\"v1\"", entry.getEtag());
+        assertEquals(0, entry.getStoredAt(), "an expired entry must still be revalidated after a restart");
+    }
+}
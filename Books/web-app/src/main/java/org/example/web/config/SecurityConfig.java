@@ -1,5 +1,6 @@
 package org.example.web.config;
 
+import jakarta.servlet.DispatcherType;
 import org.example.web.security.JwtAuthenticationFilter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
@@ -33,6 +34,8 @@ public class SecurityConfig {
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(authz -> authz
+                // Async dispatches (e.g. the end of an /events stream) continue a request that was already authorized
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 // Permit specific POST login path and authentication and smoke helper endpoints; include both plain and /api-prefixed paths
                 .requestMatchers(HttpMethod.POST, "/auth/login", "/api/auth/login").permitAll()
                 .requestMatchers("/auth/**", "/api/auth/**", "/smoke/**", "/api/smoke/**", "/h2-console/**", "/api/h2-console/**").permitAll()
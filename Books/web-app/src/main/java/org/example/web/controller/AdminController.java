@@ -2,14 +2,28 @@ package org.example.web.controller;
 
 import org.example.web.model.Book;
 import org.example.web.model.User;
+import org.example.web.model.UserActionDailyRollup;
 import org.example.web.model.UserActionLog;
 import org.example.web.service.AdminService;
+import org.example.web.service.PasswordHashingService;
+import org.example.web.service.ResourceVersionService;
+import org.example.web.service.UserActionLogService;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/admin")
@@ -19,6 +33,15 @@ public class AdminController {
     @Autowired
     private AdminService adminService;
 
+    @Autowired
+    private UserActionLogService userActionLogService;
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
 
 
     @GetMapping("/users")
@@ -55,11 +78,24 @@ public class AdminController {
 
 
     // Comprehensive admin dashboard endpoints for requirement #4
+    // from/to are ISO date-times bounding [from, to); without them the last audit.log.query-window-days are returned
     @GetMapping("/user-actions")
-    public ResponseEntity<List<UserActionLog>> getAllUserActions() {
+    public ResponseEntity<List<UserActionLog>> getAllUserActions(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            WebRequest request) {
         try {
-            List<UserActionLog> actions = adminService.getAllUserActions();
-            return ResponseEntity.ok(actions);
+            // The default window moves with the clock, so its tag also changes every hour
+            String etag = from != null || to != null
+                ? resourceVersionService.etag(ResourceVersionService.Table.USER_ACTIONS)
+                : resourceVersionService.etag(ResourceVersionService.Table.USER_ACTIONS,
+                                              LocalDateTime.now().truncatedTo(ChronoUnit.HOURS));
+            etag = ConditionalGet.forRepresentation(request, etag);
+            if (ConditionalGet.matches(request, etag)) {
+                return ConditionalGet.notModified(etag);
+            }
+            List<UserActionLog> actions = adminService.getAllUserActions(from, to);
+            return ConditionalGet.ok(etag, actions);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -68,16 +104,55 @@ public class AdminController {
 
 
 
+    // Streams the audit log as NDJSON (default) or CSV without loading it into memory
+    @GetMapping("/user-actions/export")
+    public void exportUserActions(@RequestParam(required = false, defaultValue = "ndjson") String format,
+                                  @RequestParam(required = false) String actionType,
+                                  @RequestParam(required = false) String userName,
+                                  HttpServletResponse response) throws IOException {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "format must be ndjson or csv");
+            return;
+        }
+        response.setContentType(csv ? "text/csv;charset=UTF-8" : "application/x-ndjson;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+            "attachment; filename=\"user-actions." + (csv ? "csv" : "ndjson") + "\"");
+        userActionLogService.exportActions(actionType, userName, format, response.getOutputStream());
+    }
+
+    // Queue depth, rejections and BCrypt latency of the login/registration hashing pool
+    @GetMapping("/metrics/password-hashing")
+    public ResponseEntity<Map<String, Object>> getPasswordHashingMetrics() {
+        return ResponseEntity.ok(passwordHashingService.getStats());
+    }
+
     @GetMapping("/actions-by-type")
-    public ResponseEntity<List<UserActionLog>> getActionsByType(@RequestParam String actionType) {
+    public ResponseEntity<List<UserActionLog>> getActionsByType(
+            @RequestParam String actionType,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
         try {
-            List<UserActionLog> actions = adminService.getActionsByType(actionType);
+            List<UserActionLog> actions = adminService.getActionsByType(actionType, from, to);
             return ResponseEntity.ok(actions);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    // Per-day counts for days older than the retention window (raw rows for those days are gone)
+    @GetMapping("/user-actions/daily")
+    public ResponseEntity<List<UserActionDailyRollup>> getDailyActionRollups(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String actionType) {
+        try {
+            return ResponseEntity.ok(adminService.getDailyActionRollups(from, to, actionType));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
 
 
 
@@ -5,9 +5,12 @@ import io.jsonwebtoken.security.Keys;
 import org.example.web.dto.LoginRequest;
 import org.example.web.dto.RegisterRequest;
 import org.example.web.model.User;
+import org.example.web.service.PasswordHashingBusyException;
 import org.example.web.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -16,6 +19,8 @@ import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import jakarta.annotation.security.PermitAll;
 
 @RestController
@@ -32,35 +37,32 @@ public class AuthController {
     @Value("${jwt.expiration}")
     private Long jwtExpiration;
 
+    // Password hashing runs on PasswordHashingService's pool; returning a CompletableFuture frees the
+    // request thread while it does
     @PostMapping("/register")
     @PermitAll
-    public ResponseEntity<?> register(@RequestBody RegisterRequest req) {
+    public CompletableFuture<ResponseEntity<?>> register(@RequestBody RegisterRequest req) {
         try {
-            User newUser = userService.registerUser(req);
-            String token = generateJwtToken(newUser);
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("user", newUser);
-            response.put("token", token);
-            response.put("message", "Registration successful");
-            return ResponseEntity.ok(response);
-        } catch (RuntimeException e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("message", e.getMessage());
-            return ResponseEntity.badRequest().body(response);
+            return userService.registerUser(req)
+                    .<ResponseEntity<?>>thenApply(newUser -> {
+                        String token = generateJwtToken(newUser);
+
+                        Map<String, Object> response = new HashMap<>();
+                        response.put("success", true);
+                        response.put("user", newUser);
+                        response.put("token", token);
+                        response.put("message", "Registration successful");
+                        return ResponseEntity.ok(response);
+                    })
+                    .exceptionally(e -> failureResponse(e, ""));
         } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("message", "Registration failed: " + e.getMessage());
-            return ResponseEntity.badRequest().body(response);
+            return CompletableFuture.completedFuture(failureResponse(e, ""));
         }
     }
 
     @PostMapping("/login")
     @PermitAll
-    public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest) {
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody LoginRequest loginRequest) {
         try {
             // Quick fallback for smoke/test credentials when DB user isn't present
             if ("user1".equals(loginRequest.getUsername()) && "pass1".equals(loginRequest.getPassword())) {
@@ -76,31 +78,45 @@ public class AuthController {
                 response.put("user", testUser);
                 response.put("token", token);
                 response.put("message", "Login successful");
-                return ResponseEntity.ok(response);
+                return CompletableFuture.completedFuture(ResponseEntity.ok(response));
             }
 
-            User user = userService.authenticateUser(loginRequest.getUsername(), loginRequest.getPassword());
-            if (user != null) {
-                String token = generateJwtToken(user);
-
-                Map<String, Object> response = new HashMap<>();
-                response.put("success", true);
-                response.put("user", user);
-                response.put("token", token);
-                response.put("message", "Login successful");
-                return ResponseEntity.ok(response);
-            } else {
-                Map<String, Object> response = new HashMap<>();
-                response.put("success", false);
-                response.put("message", "Invalid username or password");
-                return ResponseEntity.badRequest().body(response);
-            }
+            return userService.authenticateUser(loginRequest.getUsername(), loginRequest.getPassword())
+                    .<ResponseEntity<?>>thenApply(user -> {
+                        Map<String, Object> response = new HashMap<>();
+                        if (user != null) {
+                            String token = generateJwtToken(user);
+
+                            response.put("success", true);
+                            response.put("user", user);
+                            response.put("token", token);
+                            response.put("message", "Login successful");
+                            return ResponseEntity.ok(response);
+                        } else {
+                            response.put("success", false);
+                            response.put("message", "Invalid username or password");
+                            return ResponseEntity.badRequest().body(response);
+                        }
+                    })
+                    .exceptionally(e -> failureResponse(e, "Login failed: "));
         } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("message", "Login failed: " + e.getMessage());
-            return ResponseEntity.badRequest().body(response);
+            return CompletableFuture.completedFuture(failureResponse(e, "Login failed: "));
+        }
+    }
+
+    // 503 with Retry-After when the hashing pool is saturated, 400 with the error message otherwise
+    private ResponseEntity<?> failureResponse(Throwable e, String messagePrefix) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", messagePrefix + cause.getMessage());
+        if (cause instanceof PasswordHashingBusyException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(response);
         }
+        return ResponseEntity.badRequest().body(response);
     }
 
     private String generateJwtToken(User user) {
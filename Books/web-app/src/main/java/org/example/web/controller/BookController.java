@@ -4,12 +4,18 @@ import org.example.web.model.Book;
 import org.example.web.model.User;
 import org.example.web.service.AuthenticatedUserService;
 import org.example.web.service.BookService;
+import org.example.web.service.BookSyncService;
+import org.example.web.service.ResourceVersionService;
+import org.example.web.dto.BookChanges;
+import org.example.web.dto.BookPage;
+import org.example.web.dto.BookSuggestion;
 import org.example.web.dto.CreateBookRequest;
 
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import jakarta.validation.Valid;
 
@@ -29,36 +35,142 @@ public class BookController {
     @Autowired
     private AuthenticatedUserService authenticatedUserService;
 
+    @Autowired
+    private BookSyncService bookSyncService;
+
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_CHANGES_BATCH = 1000;
+    private static final int MAX_SUGGESTIONS = 20;
+
     @GetMapping
-    public ResponseEntity<List<Book>> getAllBooks() {
+    public ResponseEntity<List<Book>> getAllBooks(WebRequest request) {
+        String etag = ConditionalGet.forRepresentation(request, resourceVersionService.etag(ResourceVersionService.Table.BOOKS));
+        if (ConditionalGet.matches(request, etag)) {
+            return ConditionalGet.notModified(etag);
+        }
         List<Book> books = bookService.getAllBooks();
-        return ResponseEntity.ok(books);
+        return ConditionalGet.ok(etag, books);
     }
 
 
+    // With facets=true the response is a BookPage (no cursor) carrying the matches and their facet counts
     @GetMapping("/search")
-    public ResponseEntity<List<Book>> searchBooks(
+    public ResponseEntity<?> searchBooks(
             @RequestParam(required = false) String query,
             @RequestParam(required = false) String category,
             @RequestParam(required = false) String author,
             @RequestParam(required = false) String status,
             @RequestParam(required = false) Integer yearFrom,
             @RequestParam(required = false) Integer yearTo,
-            @RequestParam(required = false, defaultValue = "true") Boolean excludeCurrentUser) {
+            @RequestParam(required = false, defaultValue = "true") Boolean excludeCurrentUser,
+            @RequestParam(required = false, defaultValue = "false") Boolean facets,
+            @RequestParam(required = false, defaultValue = "false") Boolean fuzzy,
+            @RequestParam(required = false, defaultValue = "50") Integer limit,
+            WebRequest request) {
         try {
             User currentUser = authenticatedUserService.getCurrentUser();
 
             // Exclude current user's books by default (for browse functionality)
             String excludeUserId = excludeCurrentUser ? currentUser.getId() : null;
 
-            List<Book> books = bookService.searchBooksWithAllFilters(
-                query, category, author, status, yearFrom, yearTo, excludeUserId);
-            return ResponseEntity.ok(books);
+            // The filters are part of the URL; only the excluded user has to go into the tag
+            String etag = ConditionalGet.forRepresentation(request, resourceVersionService.etag(ResourceVersionService.Table.BOOKS, excludeUserId));
+            if (ConditionalGet.matches(request, etag)) {
+                return ConditionalGet.notModified(etag);
+            }
+
+            // Text matches come most relevant first, and only the best limit of them are returned;
+            // filter-only searches return every match. fuzzy tolerates typos in the query and author
+            // and ranks the closest matches first
+            List<Book> books = fuzzy
+                ? bookService.searchBooksFuzzy(query, category, author, status, yearFrom, yearTo, excludeUserId, clampPageSize(limit))
+                : bookService.searchBooksWithAllFilters(query, category, author, status, yearFrom, yearTo, excludeUserId, clampPageSize(limit));
+            if (facets) {
+                BookPage result = new BookPage(books, null);
+                result.setFacets(bookService.getSearchFacets(
+                    query, category, author, status, yearFrom, yearTo, excludeUserId, fuzzy));
+                return ConditionalGet.ok(etag, result);
+            }
+            return ConditionalGet.ok(etag, books);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+
+    // Keyset-paged catalog: pass the previous page's "next" value as cursor to continue
+    @GetMapping("/page")
+    public ResponseEntity<BookPage> getBooksPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "50") Integer size) {
+        try {
+            BookPage page = bookService.getBooksPage(cursor, clampPageSize(size));
+            return ResponseEntity.ok(page);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/search/page")
+    public ResponseEntity<BookPage> searchBooksPage(
+            @RequestParam(required = false) String query,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String author,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Integer yearFrom,
+            @RequestParam(required = false) Integer yearTo,
+            @RequestParam(required = false, defaultValue = "true") Boolean excludeCurrentUser,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "50") Integer size,
+            @RequestParam(required = false, defaultValue = "false") Boolean facets) {
+        try {
+            User currentUser = authenticatedUserService.getCurrentUser();
+            String excludeUserId = excludeCurrentUser ? currentUser.getId() : null;
+
+            BookPage page = bookService.searchBooksPage(
+                query, category, author, status, yearFrom, yearTo, excludeUserId, cursor, clampPageSize(size));
+            // Facets describe the whole result set, so clients only need them with the first page
+            if (facets) {
+                page.setFacets(bookService.getSearchFacets(
+                    query, category, author, status, yearFrom, yearTo, excludeUserId));
+            }
+            return ResponseEntity.ok(page);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    // Type-ahead for the search field: titles and authors with a word starting with prefix
+    @GetMapping("/suggest")
+    public ResponseEntity<List<BookSuggestion>> suggestBooks(
+            @RequestParam(required = false) String prefix,
+            @RequestParam(required = false, defaultValue = "10") Integer limit) {
+        try {
+            return ResponseEntity.ok(bookService.suggestBooks(prefix, Math.max(1, Math.min(limit, MAX_SUGGESTIONS))));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Delta sync: books changed and ids deleted after the "since" watermark (omit it for a full snapshot);
+    // keep calling with the returned watermark while hasMore is true
+    @GetMapping("/changes")
+    public ResponseEntity<BookChanges> getChanges(
+            @RequestParam(required = false) String since,
+            @RequestParam(required = false, defaultValue = "500") Integer limit) {
+        try {
+            return ResponseEntity.ok(bookSyncService.getChanges(since, Math.max(1, Math.min(limit, MAX_CHANGES_BATCH))));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private int clampPageSize(Integer size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
 
     // Allow any authenticated user to create a book (not admin-only)
     @PostMapping
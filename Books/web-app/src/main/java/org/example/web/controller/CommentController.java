@@ -1,15 +1,18 @@
 package org.example.web.controller;
 
+import org.example.web.dto.CommentPage;
 import org.example.web.dto.CreateCommentRequest;
 import org.example.web.dto.UpdateCommentRequest;
 import org.example.web.model.Comment;
 import org.example.web.model.User;
 import org.example.web.service.CommentService;
 import org.example.web.service.AuthenticatedUserService;
+import org.example.web.service.ResourceVersionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -26,9 +29,14 @@ public class CommentController {
     @Autowired
     private AuthenticatedUserService authenticatedUserService;
 
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
     @Value("${jwt.secret}")
     private String jwtSecret;
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     // Create a new top-level comment
     @PostMapping("/books/{bookId}")
     public ResponseEntity<Comment> createComment(@PathVariable String bookId, @RequestBody CreateCommentRequest request) {
@@ -57,15 +65,49 @@ public class CommentController {
 
     // Get top-level comments with their replies (nested structure)
     @GetMapping("/books/{bookId}/nested")
-    public ResponseEntity<List<Comment>> getTopLevelCommentsWithRepliesByBookId(@PathVariable String bookId) {
+    public ResponseEntity<List<Comment>> getTopLevelCommentsWithRepliesByBookId(@PathVariable String bookId, WebRequest request) {
         try {
+            String etag = ConditionalGet.forRepresentation(request, resourceVersionService.etag(ResourceVersionService.Table.COMMENTS));
+            if (ConditionalGet.matches(request, etag)) {
+                return ConditionalGet.notModified(etag);
+            }
             List<Comment> comments = commentService.getTopLevelCommentsWithRepliesByBookId(bookId);
-            return ResponseEntity.ok(comments);
+            return ConditionalGet.ok(etag, comments);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Keyset-paged top-level comments with their replyCount; pass the previous page's "next" as cursor
+    @GetMapping("/books/{bookId}")
+    public ResponseEntity<CommentPage> getTopLevelCommentsPage(
+            @PathVariable String bookId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "20") Integer size) {
+        try {
+            return ResponseEntity.ok(commentService.getTopLevelCommentsPage(bookId, cursor, clampPageSize(size)));
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    // Keyset-paged direct replies to a comment, fetched when the client expands it
+    @GetMapping("/{commentId}/replies")
+    public ResponseEntity<CommentPage> getRepliesPage(
+            @PathVariable String commentId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "20") Integer size) {
+        try {
+            return ResponseEntity.ok(commentService.getRepliesPage(commentId, cursor, clampPageSize(size)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private int clampPageSize(Integer size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
     // Update a comment
     @PutMapping("/{commentId}")
     public ResponseEntity<Comment> updateComment(@PathVariable String commentId, @RequestBody UpdateCommentRequest request) {
@@ -0,0 +1,63 @@
+package org.example.web.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Responses of the ETag-versioned read endpoints. Controllers tag the request's representation with
+ * forRepresentation, check matches(request, etag) before querying and answer with notModified when it
+ * matches, so a 304 never touches the database.
+ */
+final class ConditionalGet {
+
+    // Clients may keep the body but must revalidate it before every use; bodies are per user
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private static final String SMILE = "application/x-jackson-smile";
+
+    private ConditionalGet() {}
+
+    // JSON and Smile bodies of one version are different representations, so they get different tags.
+    // Clients that prefer Smile list it first in Accept. Tags are weak because the body may be gzipped
+    // on the way out, and Tomcat never compresses a response that carries a strong tag.
+    static String forRepresentation(WebRequest request, String etag) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept != null && accept.trim().startsWith(SMILE)) {
+            return "W/" + etag.substring(0, etag.length() - 1) + "-smile\"";
+        }
+        return "W/" + etag;
+    }
+
+    // If-None-Match holds "*" or a comma separated list of tags; GETs compare them weakly (RFC 9110 13.1.2)
+    static boolean matches(WebRequest request, String etag) {
+        String[] headers = request.getHeaderValues(HttpHeaders.IF_NONE_MATCH);
+        if (headers == null) {
+            return false;
+        }
+        String opaque = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String header : headers) {
+            for (String candidate : header.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(opaque)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE)
+            .varyBy(HttpHeaders.ACCEPT).build();
+    }
+
+    static <T> ResponseEntity<T> ok(String etag, T body) {
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).varyBy(HttpHeaders.ACCEPT).body(body);
+    }
+}
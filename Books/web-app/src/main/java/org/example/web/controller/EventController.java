@@ -0,0 +1,34 @@
+package org.example.web.controller;
+
+import org.example.web.model.User;
+import org.example.web.service.AuthenticatedUserService;
+import org.example.web.service.UserEventService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/events")
+@CrossOrigin(origins = "*")
+public class EventController {
+
+    @Autowired
+    private UserEventService userEventService;
+
+    @Autowired
+    private AuthenticatedUserService authenticatedUserService;
+
+    // Server-Sent Events stream of the current user's events (new messages, book status changes,
+    // comments on their books); event names are the UserEvent types
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribe() {
+        try {
+            User currentUser = authenticatedUserService.getCurrentUser();
+            return ResponseEntity.ok(userEventService.subscribe(currentUser.getId()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -2,16 +2,17 @@ package org.example.web.controller;
 
 import org.example.web.model.Message;
 import org.example.web.model.User;
+import org.example.web.service.MailboxService;
 import org.example.web.service.MessageService;
 import org.example.web.service.AuthenticatedUserService;
 import org.example.web.dto.MessageDto;
+import org.example.web.dto.MessagePage;
 import org.example.web.dto.SendMessageRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 
 
@@ -24,19 +25,68 @@ public class MessageController {
     @Autowired
     private MessageService messageService;
 
+    @Autowired
+    private MailboxService mailboxService;
+
     @Autowired
     private AuthenticatedUserService authenticatedUserService;
 
+    private static final int MAX_PAGE_SIZE = 100;
 
     // Get messages for a specific user (frontend expects this endpoint)
     @GetMapping("/user/{userId}")
     public ResponseEntity<List<MessageDto>> getUserMessages(@PathVariable String userId) {
         try {
-            List<Message> messages = messageService.getUserMessages(userId);
-            List<MessageDto> messageDtos = messages.stream()
-                .map(MessageDto::new)
-                .collect(Collectors.toList());
-            return ResponseEntity.ok(messageDtos);
+            return ResponseEntity.ok(messageService.getUserMessages(userId));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Keyset-paged inbox of the current user, newest first; pass the previous page's "next" as cursor
+    @GetMapping("/inbox")
+    public ResponseEntity<MessagePage> getInbox(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "30") Integer size) {
+        try {
+            User currentUser = authenticatedUserService.getCurrentUser();
+            int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+            return ResponseEntity.ok(mailboxService.getInboxPage(currentUser.getId(), cursor, pageSize));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Number of unread messages of the current user, read from the maintained counter
+    @GetMapping("/unread-count")
+    public ResponseEntity<Long> getUnreadCount() {
+        try {
+            User currentUser = authenticatedUserService.getCurrentUser();
+            return ResponseEntity.ok(mailboxService.getUnreadCount(currentUser.getId()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Mark one message as read for the current user
+    @PostMapping("/{messageId}/read")
+    public ResponseEntity<Void> markRead(@PathVariable String messageId) {
+        try {
+            User currentUser = authenticatedUserService.getCurrentUser();
+            mailboxService.markRead(currentUser.getId(), messageId);
+            return ResponseEntity.ok().build();
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Mark the whole inbox of the current user as read
+    @PostMapping("/read-all")
+    public ResponseEntity<Void> markAllRead() {
+        try {
+            User currentUser = authenticatedUserService.getCurrentUser();
+            mailboxService.markAllRead(currentUser.getId());
+            return ResponseEntity.ok().build();
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -4,8 +4,10 @@ import org.example.web.dto.BorrowRequest;
 import org.example.web.model.Transaction;
 import org.example.web.model.User;
 import org.example.web.service.AuthenticatedUserService;
+import org.example.web.service.BookStatusConflictException;
 import org.example.web.service.TransactionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -29,6 +31,9 @@ public class TransactionController {
 
             Transaction transaction = transactionService.borrowBook(bookId, currentUser.getId());
             return ResponseEntity.ok(transaction);
+        } catch (BookStatusConflictException e) {
+            // Another request changed the book's status first
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -41,6 +46,9 @@ public class TransactionController {
 
             Transaction transaction = transactionService.reserveBook(bookId, currentUser.getId());
             return ResponseEntity.ok(transaction);
+        } catch (BookStatusConflictException e) {
+            // Another request changed the book's status first
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -51,6 +59,9 @@ public class TransactionController {
         try {
             Transaction transaction = transactionService.returnBook(bookId);
             return ResponseEntity.ok(transaction);
+        } catch (BookStatusConflictException e) {
+            // Another request changed the book's status first
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -0,0 +1,44 @@
+package org.example.web.dto;
+
+import org.example.web.model.Book;
+
+import java.util.List;
+
+/**
+ * One batch of catalog changes for delta sync. Clients upsert the updated books, drop the deleted
+ * ids, and send watermark as "since" next time; while hasMore is set they fetch again right away.
+ * reset means the client's watermark was too old (or absent): it must drop its catalog first, and
+ * the batches starting with this one rebuild it.
+ */
+public class BookChanges {
+    private List<Book> updated;
+    private List<String> deleted;
+    private String watermark;
+    private boolean hasMore;
+    private boolean reset;
+
+    public BookChanges() {}
+
+    public BookChanges(List<Book> updated, List<String> deleted, String watermark, boolean hasMore, boolean reset) {
+        this.updated = updated;
+        this.deleted = deleted;
+        this.watermark = watermark;
+        this.hasMore = hasMore;
+        this.reset = reset;
+    }
+
+    public List<Book> getUpdated() { return updated; }
+    public void setUpdated(List<Book> updated) { this.updated = updated; }
+
+    public List<String> getDeleted() { return deleted; }
+    public void setDeleted(List<String> deleted) { this.deleted = deleted; }
+
+    public String getWatermark() { return watermark; }
+    public void setWatermark(String watermark) { this.watermark = watermark; }
+
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+
+    public boolean isReset() { return reset; }
+    public void setReset(boolean reset) { this.reset = reset; }
+}
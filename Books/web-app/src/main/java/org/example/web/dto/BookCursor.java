@@ -0,0 +1,47 @@
+package org.example.web.dto;
+
+import org.example.web.model.Book;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor for book listings, ordered by (createdAt, id)
+ * Encoded as base64url of "createdAt|id" so clients never depend on its contents
+ */
+public class BookCursor {
+    private final LocalDateTime createdAt;
+    private final String id;
+
+    public BookCursor(LocalDateTime createdAt, String id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    public static BookCursor after(Book book) {
+        return new BookCursor(book.getCreatedAt(), book.getId());
+    }
+
+    // Returns null for a missing cursor (first page); throws IllegalArgumentException if malformed
+    public static BookCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new BookCursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public String getId() { return id; }
+}
@@ -0,0 +1,25 @@
+package org.example.web.dto;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Result counts per category, status and publication decade for a book search.
+ * Each facet ignores its own filter, so the counts say how many results picking that option would give.
+ */
+public class BookFacets {
+    private Map<String, Long> categories = new LinkedHashMap<>();
+    private Map<String, Long> statuses = new LinkedHashMap<>();
+    private Map<String, Long> decades = new LinkedHashMap<>();
+
+    public BookFacets() {}
+
+    public Map<String, Long> getCategories() { return categories; }
+    public void setCategories(Map<String, Long> categories) { this.categories = categories; }
+
+    public Map<String, Long> getStatuses() { return statuses; }
+    public void setStatuses(Map<String, Long> statuses) { this.statuses = statuses; }
+
+    public Map<String, Long> getDecades() { return decades; }
+    public void setDecades(Map<String, Long> decades) { this.decades = decades; }
+}
@@ -0,0 +1,45 @@
+package org.example.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.example.web.model.Book;
+
+import java.util.List;
+
+/**
+ * One page of books plus the cursor for the next page (null when this is the last page)
+ */
+public class BookPage {
+    private List<Book> items;
+    private String next;
+
+    // Only present when the caller asked for facet counts
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private BookFacets facets;
+
+    public BookPage() {}
+
+    public BookPage(List<Book> items, String next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    /**
+     * Builds a page from rows fetched with a limit of size + 1; the extra row only signals that more exist
+     */
+    public static BookPage of(List<Book> rows, int size) {
+        if (rows.size() <= size) {
+            return new BookPage(rows, null);
+        }
+        List<Book> items = rows.subList(0, size);
+        return new BookPage(items, BookCursor.after(items.get(size - 1)).encode());
+    }
+
+    public List<Book> getItems() { return items; }
+    public void setItems(List<Book> items) { this.items = items; }
+
+    public String getNext() { return next; }
+    public void setNext(String next) { this.next = next; }
+
+    public BookFacets getFacets() { return facets; }
+    public void setFacets(BookFacets facets) { this.facets = facets; }
+}
@@ -0,0 +1,30 @@
+package org.example.web.dto;
+
+/**
+ * One search-as-you-type suggestion: a book title or an author, with the number of books that have it
+ */
+public class BookSuggestion {
+
+    public enum Type { TITLE, AUTHOR }
+
+    private String text;
+    private Type type;
+    private int bookCount;
+
+    public BookSuggestion() {}
+
+    public BookSuggestion(String text, Type type, int bookCount) {
+        this.text = text;
+        this.type = type;
+        this.bookCount = bookCount;
+    }
+
+    public String getText() { return text; }
+    public void setText(String text) { this.text = text; }
+
+    public Type getType() { return type; }
+    public void setType(Type type) { this.type = type; }
+
+    public int getBookCount() { return bookCount; }
+    public void setBookCount(int bookCount) { this.bookCount = bookCount; }
+}
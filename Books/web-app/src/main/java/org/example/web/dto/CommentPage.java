@@ -0,0 +1,37 @@
+package org.example.web.dto;
+
+import org.example.web.model.Comment;
+
+import java.util.List;
+
+/**
+ * One page of comments plus the cursor for the next page (null when this is the last page).
+ * Cursors use the same (createdAt, id) encoding as book pages.
+ */
+public class CommentPage {
+    private List<Comment> items;
+    private String next;
+
+    public CommentPage() {}
+
+    public CommentPage(List<Comment> items, String next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    // Builds a page from rows fetched with a limit of size + 1; the extra row only signals that more exist
+    public static CommentPage of(List<Comment> rows, int size) {
+        if (rows.size() <= size) {
+            return new CommentPage(rows, null);
+        }
+        List<Comment> items = rows.subList(0, size);
+        Comment last = items.get(size - 1);
+        return new CommentPage(items, new BookCursor(last.getCreatedAt(), last.getId()).encode());
+    }
+
+    public List<Comment> getItems() { return items; }
+    public void setItems(List<Comment> items) { this.items = items; }
+
+    public String getNext() { return next; }
+    public void setNext(String next) { this.next = next; }
+}
@@ -46,6 +46,28 @@ public class MessageDto {
 
     }
 
+    // Constructor for the inbox projection; isRead is the reading user's own state, not the message's
+    public MessageDto(String id, String bookId, String bookTitle,
+                      String senderId, String senderFirstName, String senderLastName,
+                      String recipientId, String recipientFirstName, String recipientLastName,
+                      String content, LocalDateTime createdAt, boolean isRead,
+                      String parentMessageId, int depth, boolean isDeleted, LocalDateTime deletedAt) {
+        this.id = id;
+        this.bookId = bookId;
+        this.bookTitle = bookTitle;
+        this.senderId = senderId;
+        this.senderName = senderId != null ? senderFirstName + " " + senderLastName : null;
+        this.recipientId = recipientId;
+        this.recipientName = recipientId != null ? recipientFirstName + " " + recipientLastName : null;
+        this.content = content;
+        this.createdAt = createdAt;
+        this.isRead = isRead;
+        this.parentMessageId = parentMessageId;
+        this.depth = depth;
+        this.isDeleted = isDeleted;
+        this.deletedAt = deletedAt;
+    }
+
     // Getters and Setters
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
@@ -0,0 +1,35 @@
+package org.example.web.dto;
+
+import java.util.List;
+
+/**
+ * One page of a user's inbox, newest first, plus the cursor for the next page (null when this is the last page).
+ * Cursors use the same (createdAt, id) encoding as book pages.
+ */
+public class MessagePage {
+    private List<MessageDto> items;
+    private String next;
+
+    public MessagePage() {}
+
+    public MessagePage(List<MessageDto> items, String next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    // Builds a page from rows fetched with a limit of size + 1; the extra row only signals that more exist
+    public static MessagePage of(List<MessageDto> rows, int size) {
+        if (rows.size() <= size) {
+            return new MessagePage(rows, null);
+        }
+        List<MessageDto> items = rows.subList(0, size);
+        MessageDto last = items.get(size - 1);
+        return new MessagePage(items, new BookCursor(last.getCreatedAt(), last.getId()).encode());
+    }
+
+    public List<MessageDto> getItems() { return items; }
+    public void setItems(List<MessageDto> items) { this.items = items; }
+
+    public String getNext() { return next; }
+    public void setNext(String next) { this.next = next; }
+}
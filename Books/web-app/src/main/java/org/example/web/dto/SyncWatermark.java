@@ -0,0 +1,47 @@
+package org.example.web.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Opaque delta sync watermark: the (updatedAt, id) keyset position of the last book a client has seen,
+ * and when the server issued it. Positions inside a snapshot can be as old as the catalog, so tombstone
+ * retention is checked against issuedAt. Encoded as base64url of "updatedAt|id|issuedAt".
+ */
+public class SyncWatermark {
+    private final LocalDateTime updatedAt;
+    private final String id;
+    private final LocalDateTime issuedAt;
+
+    public SyncWatermark(LocalDateTime updatedAt, String id, LocalDateTime issuedAt) {
+        this.updatedAt = updatedAt;
+        this.id = id;
+        this.issuedAt = issuedAt;
+    }
+
+    // Returns null for a missing watermark (snapshot); throws IllegalArgumentException if malformed.
+    // Watermarks issued before issuedAt existed were final positions, taken when they were issued.
+    public static SyncWatermark decode(String watermark) {
+        if (watermark == null || watermark.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(watermark), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            LocalDateTime updatedAt = LocalDateTime.parse(parts[0]);
+            return new SyncWatermark(updatedAt, parts[1], parts.length > 2 ? LocalDateTime.parse(parts[2]) : updatedAt);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid watermark: " + watermark, e);
+        }
+    }
+
+    public String encode() {
+        String raw = updatedAt + "|" + id + "|" + issuedAt;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public String getId() { return id; }
+    public LocalDateTime getIssuedAt() { return issuedAt; }
+}
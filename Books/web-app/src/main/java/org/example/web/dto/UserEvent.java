@@ -0,0 +1,81 @@
+package org.example.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.example.web.model.Book;
+import org.example.web.model.Comment;
+
+/**
+ * One event on a user's /events stream. Only the fields of the event's type are set:
+ * MESSAGE_RECEIVED carries the message, BOOK_STATUS_CHANGED the book id, title and new status,
+ * COMMENT_ADDED the book and the new comment's id and author.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserEvent {
+
+    public enum Type {
+        MESSAGE_RECEIVED,
+        BOOK_STATUS_CHANGED,
+        COMMENT_ADDED
+    }
+
+    private Type type;
+    private String bookId;
+    private String bookTitle;
+    private Book.BookStatus bookStatus;
+    private MessageDto message;
+    private String commentId;
+    private String commentAuthorName;
+
+    public UserEvent() {}
+
+    private UserEvent(Type type) {
+        this.type = type;
+    }
+
+    public static UserEvent messageReceived(MessageDto message) {
+        UserEvent event = new UserEvent(Type.MESSAGE_RECEIVED);
+        event.bookId = message.getBookId();
+        event.bookTitle = message.getBookTitle();
+        event.message = message;
+        return event;
+    }
+
+    public static UserEvent bookStatusChanged(Book book) {
+        UserEvent event = new UserEvent(Type.BOOK_STATUS_CHANGED);
+        event.bookId = book.getId();
+        event.bookTitle = book.getTitle();
+        event.bookStatus = book.getStatus();
+        return event;
+    }
+
+    public static UserEvent commentAdded(Comment comment) {
+        UserEvent event = new UserEvent(Type.COMMENT_ADDED);
+        event.bookId = comment.getBookId();
+        event.bookTitle = comment.getBook() != null ? comment.getBook().getTitle() : null;
+        event.commentId = comment.getId();
+        event.commentAuthorName = comment.getAuthor() != null
+            ? comment.getAuthor().getFirstName() + " " + comment.getAuthor().getLastName() : null;
+        return event;
+    }
+
+    public Type getType() { return type; }
+    public void setType(Type type) { this.type = type; }
+
+    public String getBookId() { return bookId; }
+    public void setBookId(String bookId) { this.bookId = bookId; }
+
+    public String getBookTitle() { return bookTitle; }
+    public void setBookTitle(String bookTitle) { this.bookTitle = bookTitle; }
+
+    public Book.BookStatus getBookStatus() { return bookStatus; }
+    public void setBookStatus(Book.BookStatus bookStatus) { this.bookStatus = bookStatus; }
+
+    public MessageDto getMessage() { return message; }
+    public void setMessage(MessageDto message) { this.message = message; }
+
+    public String getCommentId() { return commentId; }
+    public void setCommentId(String commentId) { this.commentId = commentId; }
+
+    public String getCommentAuthorName() { return commentAuthorName; }
+    public void setCommentAuthorName(String commentAuthorName) { this.commentAuthorName = commentAuthorName; }
+}
@@ -1,13 +1,19 @@
 package org.example.web.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
 import jakarta.validation.constraints.NotBlank;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "books")
+@Table(name = "books", indexes = {
+    @Index(name = "idx_books_created_at_id", columnList = "created_at, id"),
+    @Index(name = "idx_books_updated_at_id", columnList = "updated_at, id")
+})
+// Entity saves only write changed columns, so they never overwrite the counters BookCounterService adds to
+@DynamicUpdate
 public class Book {
 
     @Id
@@ -33,14 +39,31 @@ public class Book {
     @JsonIgnore
     private User owner;
 
+    @Column(name = "created_at")
     private LocalDateTime createdAt;
 
+    // Last time anything clients display changed (fields, status or counters); drives /books/changes.
+    // Null only on rows that predate it, until BookSyncService backfills them.
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
 
 
 
 
     private Integer publicationYear;
 
+    // Popularity counters, maintained by BookCounterService; they trail the comment and transaction
+    // rows by at most one flush interval. Null only on rows that predate them, until backfilled.
+    @Column(name = "comment_count")
+    private Long commentCount = 0L;
+
+    @Column(name = "borrow_count")
+    private Long borrowCount = 0L;
+
+    @Column(name = "active_reservations")
+    private Long activeReservations = 0L;
+
     public enum BookStatus {
         AVAILABLE,
         BORROWED,
@@ -89,6 +112,7 @@ public class Book {
     // Default constructor
     public Book() {
         this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
 
         this.status = BookStatus.AVAILABLE;
     }
@@ -135,6 +159,9 @@ public class Book {
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
 
 
 
@@ -142,6 +169,12 @@ public class Book {
     public Integer getPublicationYear() { return publicationYear; }
     public void setPublicationYear(Integer publicationYear) { this.publicationYear = publicationYear; }
 
+    public long getCommentCount() { return commentCount != null ? commentCount : 0; }
+
+    public long getBorrowCount() { return borrowCount != null ? borrowCount : 0; }
+
+    public long getActiveReservations() { return activeReservations != null ? activeReservations : 0; }
+
 
 
     @Override
@@ -0,0 +1,35 @@
+package org.example.web.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Marks a deleted book so clients syncing through /books/changes can drop it.
+ * Kept for book.sync.tombstone-retention-days; older watermarks get a full resync instead.
+ */
+@Entity
+@Table(name = "book_tombstones", indexes = {
+    @Index(name = "idx_book_tombstones_deleted_at", columnList = "deleted_at")
+})
+public class BookTombstone {
+
+    @Id
+    @Column(name = "book_id")
+    private String bookId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+
+    public BookTombstone() {}
+
+    public BookTombstone(String bookId, LocalDateTime deletedAt) {
+        this.bookId = bookId;
+        this.deletedAt = deletedAt;
+    }
+
+    public String getBookId() { return bookId; }
+    public void setBookId(String bookId) { this.bookId = bookId; }
+
+    public LocalDateTime getDeletedAt() { return deletedAt; }
+    public void setDeletedAt(LocalDateTime deletedAt) { this.deletedAt = deletedAt; }
+}
@@ -1,13 +1,20 @@
 package org.example.web.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "comments")
+@Table(name = "comments", indexes = {
+    @Index(name = "idx_comments_book_parent_created", columnList = "book_id, parent_comment_id, created_at, id"),
+    @Index(name = "idx_comments_parent_created", columnList = "parent_comment_id, created_at, id")
+})
+// Edits and deletes only write the columns they change, so they never overwrite a concurrent reply_count update
+@DynamicUpdate
 public class Comment {
 
     @Id
@@ -32,10 +39,19 @@ public class Comment {
     @JsonIgnore
     private Comment parentComment;
 
+    // Left null by the paged endpoints, which report replyCount and let clients fetch replies on demand
     @OneToMany(mappedBy = "parentComment", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<Comment> replies = new ArrayList<>();
 
-    @Column(nullable = false)
+    // Number of direct, non-deleted replies; kept in step by CommentService
+    @Column(name = "reply_count")
+    private Integer replyCount = 0;
+
+    // Number of ancestors; 0 for a top-level comment
+    private int depth;
+
+    @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
     @Column(nullable = false)
@@ -58,6 +74,9 @@ public class Comment {
     public Comment(String content, User author, Book book, Comment parentComment) {
         this(content, author, book);
         this.parentComment = parentComment;
+        if (parentComment != null) {
+            this.depth = parentComment.getDepth() + 1;
+        }
     }
 
     // Getters and Setters
@@ -82,6 +101,9 @@ public class Comment {
     public List<Comment> getReplies() { return replies; }
     public void setReplies(List<Comment> replies) { this.replies = replies; }
 
+    public int getDepth() { return depth; }
+    public void setDepth(int depth) { this.depth = depth; }
+
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 
@@ -112,7 +134,15 @@ public class Comment {
     }
 
     public int getReplyCount() {
-        return replies != null ? replies.size() : 0;
+        return replyCount != null ? replyCount : 0;
+    }
+
+    public void setReplyCount(Integer replyCount) { this.replyCount = replyCount; }
+
+    // True for rows saved before reply_count existed
+    @JsonIgnore
+    public boolean isReplyCountMissing() {
+        return replyCount == null;
     }
 
     public boolean hasReplies() {
@@ -140,12 +170,4 @@ public class Comment {
     public boolean isTopLevel() {
         return parentComment == null;
     }
-
-    // Method to get the depth level of this comment
-    public int getDepth() {
-        if (parentComment == null) {
-            return 0;
-        }
-        return parentComment.getDepth() + 1;
-    }
 }
@@ -59,6 +59,12 @@ public class User implements UserDetails {
     @JsonIgnore
     private List<Message> messages;
 
+    // Unread inbox messages, maintained by MailboxService with atomic UPDATEs only; never written
+    // on entity updates, so a stale User instance (e.g. a cached principal) cannot overwrite it
+    @Column(name = "unread_messages", updatable = false)
+    @JsonIgnore
+    private Long unreadMessages = 0L;
+
     public enum UserType {
         REGULAR_USER,
         ADMIN
@@ -0,0 +1,63 @@
+package org.example.web.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Per-day, per-action-type, per-user count of user actions. Raw user_action_logs rows older than
+ * the retention window are compacted into these rows and then deleted.
+ */
+@Entity
+@Table(name = "user_action_daily_rollups",
+    uniqueConstraints = @UniqueConstraint(name = "uk_user_action_rollup_day_type_user",
+                                          columnNames = {"action_day", "action_type", "user_id"}),
+    indexes = @Index(name = "idx_user_action_rollup_type_day", columnList = "action_type, action_day"))
+public class UserActionDailyRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    // DAY is a reserved word in H2
+    @Column(name = "action_day", nullable = false)
+    private LocalDate day;
+
+    @Column(name = "action_type", nullable = false)
+    private String actionType;
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    private String userName;
+
+    @Column(nullable = false)
+    private long actionCount;
+
+    public UserActionDailyRollup() {}
+
+    public UserActionDailyRollup(LocalDate day, String actionType, String userId, String userName, long actionCount) {
+        this.day = day;
+        this.actionType = actionType;
+        this.userId = userId;
+        this.userName = userName;
+        this.actionCount = actionCount;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public LocalDate getDay() { return day; }
+    public void setDay(LocalDate day) { this.day = day; }
+
+    public String getActionType() { return actionType; }
+    public void setActionType(String actionType) { this.actionType = actionType; }
+
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+
+    public String getUserName() { return userName; }
+    public void setUserName(String userName) { this.userName = userName; }
+
+    public long getActionCount() { return actionCount; }
+    public void setActionCount(long actionCount) { this.actionCount = actionCount; }
+}
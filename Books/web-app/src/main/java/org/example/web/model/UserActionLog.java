@@ -4,7 +4,11 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "user_action_logs")
+@Table(name = "user_action_logs", indexes = {
+    // Every read is bounded by a time window, so these keep queries to the relevant day range
+    @Index(name = "idx_user_action_logs_timestamp", columnList = "timestamp"),
+    @Index(name = "idx_user_action_logs_type_timestamp", columnList = "action_type, timestamp")
+})
 public class UserActionLog {
 
     @Id
@@ -17,7 +21,7 @@ public class UserActionLog {
     @Column(nullable = false)
     private String userName;
 
-    @Column(nullable = false)
+    @Column(name = "action_type", nullable = false)
     private String actionType;
 
     @Column(nullable = false, columnDefinition = "TEXT")
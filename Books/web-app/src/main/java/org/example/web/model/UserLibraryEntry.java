@@ -0,0 +1,75 @@
+package org.example.web.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One book in a user's library (the My Books view) and why it is there. Kept up to date by
+ * BookService and TransactionService in the same transaction as the change that causes it,
+ * so reading a library is a single indexed lookup by user_id.
+ */
+@Entity
+@Table(name = "user_library",
+    uniqueConstraints = @UniqueConstraint(name = "uk_user_library_user_book_role",
+                                          columnNames = {"user_id", "book_id", "library_role"}),
+    indexes = @Index(name = "idx_user_library_book", columnList = "book_id"))
+public class UserLibraryEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "book_id", nullable = false)
+    private Book book;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "library_role", nullable = false)
+    private Role role;
+
+    private LocalDateTime addedAt;
+
+    public enum Role {
+        OWNED,
+        BORROWED,
+        RESERVED;
+
+        // The role an active transaction gives its borrower, or null for types that add nothing
+        public static Role forTransaction(Transaction.TransactionType type) {
+            return switch (type) {
+                case BORROW -> BORROWED;
+                case RESERVE -> RESERVED;
+                default -> null;
+            };
+        }
+    }
+
+    public UserLibraryEntry() {
+        this.addedAt = LocalDateTime.now();
+    }
+
+    public UserLibraryEntry(String userId, Book book, Role role) {
+        this();
+        this.userId = userId;
+        this.book = book;
+        this.role = role;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+
+    public Book getBook() { return book; }
+    public void setBook(Book book) { this.book = book; }
+
+    public Role getRole() { return role; }
+    public void setRole(Role role) { this.role = role; }
+
+    public LocalDateTime getAddedAt() { return addedAt; }
+    public void setAddedAt(LocalDateTime addedAt) { this.addedAt = addedAt; }
+}
@@ -0,0 +1,61 @@
+package org.example.web.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A message as it appears in one user's inbox. Every message gets an entry for its sender (already
+ * read), the book owner and the recipient, so an inbox page is a range scan of
+ * (user_id, created_at) instead of an OR across sender and book owner.
+ */
+@Entity
+@Table(name = "user_mailbox",
+    uniqueConstraints = @UniqueConstraint(name = "uk_user_mailbox_user_message", columnNames = {"user_id", "message_id"}),
+    indexes = {
+        @Index(name = "idx_user_mailbox_user_created", columnList = "user_id, created_at, message_id"),
+        @Index(name = "idx_user_mailbox_message", columnList = "message_id")
+    })
+public class UserMailboxEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "message_id", nullable = false)
+    private Message message;
+
+    // Copy of the message's createdAt so the inbox index covers the sort
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "is_read", nullable = false)
+    private boolean isRead;
+
+    public UserMailboxEntry() {}
+
+    public UserMailboxEntry(String userId, Message message, LocalDateTime createdAt, boolean isRead) {
+        this.userId = userId;
+        this.message = message;
+        this.createdAt = createdAt;
+        this.isRead = isRead;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+
+    public Message getMessage() { return message; }
+    public void setMessage(Message message) { this.message = message; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public boolean isRead() { return isRead; }
+    public void setRead(boolean read) { isRead = read; }
+}
@@ -1,12 +1,17 @@
 package org.example.web.repository;
 
 import org.example.web.model.Book;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -33,6 +38,136 @@ public interface BookRepository extends JpaRepository<Book, String> {
                                         @Param("yearTo") Integer yearTo,
                                         @Param("excludeUserId") String excludeUserId);
 
+    // Same filters as above, but the text query has already been resolved to ids by BookSearchIndex
+    @Query("SELECT b FROM Book b WHERE b.id IN :ids AND " +
+           "(:category IS NULL OR b.category = :category) AND " +
+           "(:author IS NULL OR LOWER(b.author) LIKE LOWER(CONCAT('%', :author, '%'))) AND " +
+           "(:status IS NULL OR b.status = :status) AND " +
+           "(:yearFrom IS NULL OR b.publicationYear IS NULL OR b.publicationYear >= :yearFrom) AND " +
+           "(:yearTo IS NULL OR b.publicationYear IS NULL OR b.publicationYear <= :yearTo) AND " +
+           "(:excludeUserId IS NULL OR b.owner.id != :excludeUserId)")
+    List<Book> findByIdsWithAllFilters(@Param("ids") Collection<String> ids,
+                                       @Param("category") Book.BookCategory category,
+                                       @Param("author") String author,
+                                       @Param("status") Book.BookStatus status,
+                                       @Param("yearFrom") Integer yearFrom,
+                                       @Param("yearTo") Integer yearTo,
+                                       @Param("excludeUserId") String excludeUserId);
+
+    // Keyset pages ordered by (createdAt, id): rows strictly after the cursor, never OFFSET
+    @Query("SELECT b FROM Book b WHERE " +
+           "(:afterCreatedAt IS NULL OR b.createdAt > :afterCreatedAt OR (b.createdAt = :afterCreatedAt AND b.id > :afterId)) " +
+           "ORDER BY b.createdAt ASC, b.id ASC")
+    List<Book> findPageAfter(@Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                             @Param("afterId") String afterId,
+                             Pageable pageable);
+
+    @Query("SELECT b FROM Book b WHERE " +
+           "(:category IS NULL OR b.category = :category) AND " +
+           "(:author IS NULL OR LOWER(b.author) LIKE LOWER(CONCAT('%', :author, '%'))) AND " +
+           "(:status IS NULL OR b.status = :status) AND " +
+           "(:yearFrom IS NULL OR b.publicationYear IS NULL OR b.publicationYear >= :yearFrom) AND " +
+           "(:yearTo IS NULL OR b.publicationYear IS NULL OR b.publicationYear <= :yearTo) AND " +
+           "(:excludeUserId IS NULL OR b.owner.id != :excludeUserId) AND " +
+           "(:afterCreatedAt IS NULL OR b.createdAt > :afterCreatedAt OR (b.createdAt = :afterCreatedAt AND b.id > :afterId)) " +
+           "ORDER BY b.createdAt ASC, b.id ASC")
+    List<Book> searchPageWithAllFilters(@Param("category") Book.BookCategory category,
+                                        @Param("author") String author,
+                                        @Param("status") Book.BookStatus status,
+                                        @Param("yearFrom") Integer yearFrom,
+                                        @Param("yearTo") Integer yearTo,
+                                        @Param("excludeUserId") String excludeUserId,
+                                        @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                        @Param("afterId") String afterId,
+                                        Pageable pageable);
+
+    @Query("SELECT b FROM Book b WHERE b.id IN :ids AND " +
+           "(:category IS NULL OR b.category = :category) AND " +
+           "(:author IS NULL OR LOWER(b.author) LIKE LOWER(CONCAT('%', :author, '%'))) AND " +
+           "(:status IS NULL OR b.status = :status) AND " +
+           "(:yearFrom IS NULL OR b.publicationYear IS NULL OR b.publicationYear >= :yearFrom) AND " +
+           "(:yearTo IS NULL OR b.publicationYear IS NULL OR b.publicationYear <= :yearTo) AND " +
+           "(:excludeUserId IS NULL OR b.owner.id != :excludeUserId) AND " +
+           "(:afterCreatedAt IS NULL OR b.createdAt > :afterCreatedAt OR (b.createdAt = :afterCreatedAt AND b.id > :afterId)) " +
+           "ORDER BY b.createdAt ASC, b.id ASC")
+    List<Book> findPageByIdsWithAllFilters(@Param("ids") Collection<String> ids,
+                                           @Param("category") Book.BookCategory category,
+                                           @Param("author") String author,
+                                           @Param("status") Book.BookStatus status,
+                                           @Param("yearFrom") Integer yearFrom,
+                                           @Param("yearTo") Integer yearTo,
+                                           @Param("excludeUserId") String excludeUserId,
+                                           @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                           @Param("afterId") String afterId,
+                                           Pageable pageable);
+
+    // Applies one batch of counter increments from BookCounterService
+    default int addToCounters(String id, long comments, long borrows, long reservations) {
+        return addToCounters(id, comments, borrows, reservations, LocalDateTime.now());
+    }
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Book b SET b.commentCount = COALESCE(b.commentCount, 0) + :comments, " +
+           "b.borrowCount = COALESCE(b.borrowCount, 0) + :borrows, " +
+           "b.activeReservations = COALESCE(b.activeReservations, 0) + :reservations, " +
+           "b.updatedAt = :updatedAt WHERE b.id = :id")
+    int addToCounters(@Param("id") String id, @Param("comments") long comments,
+                      @Param("borrows") long borrows, @Param("reservations") long reservations,
+                      @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Book b SET b.commentCount = 0, b.borrowCount = 0, b.activeReservations = 0")
+    int resetCounters();
+
+    @Query("SELECT COUNT(b) FROM Book b WHERE b.commentCount IS NULL OR b.borrowCount IS NULL OR b.activeReservations IS NULL")
+    long countWithoutCounters();
+
+    // Atomic status transition: updates only if the book is still in the expected status.
+    // Returns 1 for the caller that won, 0 if another request changed the status first.
+    default int compareAndSetStatus(String id, Book.BookStatus expectedStatus, Book.BookStatus newStatus) {
+        return compareAndSetStatus(id, expectedStatus, newStatus, LocalDateTime.now());
+    }
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Book b SET b.status = :newStatus, b.updatedAt = :updatedAt WHERE b.id = :id AND b.status = :expectedStatus")
+    int compareAndSetStatus(@Param("id") String id,
+                            @Param("expectedStatus") Book.BookStatus expectedStatus,
+                            @Param("newStatus") Book.BookStatus newStatus,
+                            @Param("updatedAt") LocalDateTime updatedAt);
+
+    // Books changed after the (updatedAt, id) position, oldest change first, with owners for their names
+    @Query("SELECT b FROM Book b LEFT JOIN FETCH b.owner WHERE " +
+           ":afterUpdatedAt IS NULL OR b.updatedAt > :afterUpdatedAt OR (b.updatedAt = :afterUpdatedAt AND b.id > :afterId) " +
+           "ORDER BY b.updatedAt ASC, b.id ASC")
+    List<Book> findChangedAfter(@Param("afterUpdatedAt") LocalDateTime afterUpdatedAt,
+                                @Param("afterId") String afterId,
+                                Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Book b SET b.updatedAt = COALESCE(b.createdAt, :now) WHERE b.updatedAt IS NULL")
+    int backfillUpdatedAt(@Param("now") LocalDateTime now);
+
+    // One grouped pass for facet counts: rows of (category, status, publicationYear, count).
+    // Category, status and year filters are applied per facet in BookService, not here.
+    @Query("SELECT b.category, b.status, b.publicationYear, COUNT(b) FROM Book b WHERE " +
+           "(:author IS NULL OR LOWER(b.author) LIKE LOWER(CONCAT('%', :author, '%'))) AND " +
+           "(:excludeUserId IS NULL OR b.owner.id != :excludeUserId) " +
+           "GROUP BY b.category, b.status, b.publicationYear")
+    List<Object[]> countFacetGroups(@Param("author") String author,
+                                    @Param("excludeUserId") String excludeUserId);
+
+    @Query("SELECT b.category, b.status, b.publicationYear, COUNT(b) FROM Book b WHERE b.id IN :ids AND " +
+           "(:author IS NULL OR LOWER(b.author) LIKE LOWER(CONCAT('%', :author, '%'))) AND " +
+           "(:excludeUserId IS NULL OR b.owner.id != :excludeUserId) " +
+           "GROUP BY b.category, b.status, b.publicationYear")
+    List<Object[]> countFacetGroupsByIds(@Param("ids") Collection<String> ids,
+                                         @Param("author") String author,
+                                         @Param("excludeUserId") String excludeUserId);
+
     @Query("SELECT b FROM Book b WHERE b.owner.id = :ownerId")
     List<Book> findByOwnerId(@Param("ownerId") String ownerId);
 
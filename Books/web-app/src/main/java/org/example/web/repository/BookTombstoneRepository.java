@@ -0,0 +1,25 @@
+package org.example.web.repository;
+
+import org.example.web.model.BookTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface BookTombstoneRepository extends JpaRepository<BookTombstone, String> {
+
+    // Ids of books deleted in [from, to)
+    @Query("SELECT t.bookId FROM BookTombstone t WHERE t.deletedAt >= :from AND t.deletedAt < :to")
+    List<String> findBookIdsDeletedBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM BookTombstone t WHERE t.deletedAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -1,11 +1,14 @@
 package org.example.web.repository;
 
 import org.example.web.model.Comment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,13 +29,44 @@ public interface CommentRepository extends JpaRepository<Comment, String> {
     @Query("SELECT c FROM Comment c WHERE c.parentComment.id = :parentCommentId AND c.isDeleted = false ORDER BY c.createdAt ASC")
     List<Comment> findRepliesByParentCommentId(@Param("parentCommentId") String parentCommentId);
 
-    // Find all comments for a book with their replies (nested structure)
-    @Query("SELECT c FROM Comment c LEFT JOIN FETCH c.replies r WHERE c.book.id = :bookId AND c.parentComment IS NULL AND c.isDeleted = false AND (r IS NULL OR r.isDeleted = false) ORDER BY c.createdAt ASC, r.createdAt ASC")
-    List<Comment> findTopLevelCommentsWithRepliesByBookId(@Param("bookId") String bookId);
-
-    // Count comments for a book
-    @Query("SELECT COUNT(c) FROM Comment c WHERE c.book.id = :bookId AND c.isDeleted = false")
-    long countCommentsByBookId(@Param("bookId") String bookId);
+    // Whole thread of a book in one query, authors included; CommentService assembles the tree
+    @Query("SELECT c FROM Comment c JOIN FETCH c.author WHERE c.book.id = :bookId AND c.isDeleted = false ORDER BY c.createdAt ASC, c.id ASC")
+    List<Comment> findThreadByBookId(@Param("bookId") String bookId);
+
+    // Keyset pages ordered by (createdAt, id), like the book listings
+    @Query("SELECT c FROM Comment c JOIN FETCH c.author WHERE c.book.id = :bookId AND c.parentComment IS NULL AND c.isDeleted = false AND " +
+           "(:afterCreatedAt IS NULL OR c.createdAt > :afterCreatedAt OR (c.createdAt = :afterCreatedAt AND c.id > :afterId)) " +
+           "ORDER BY c.createdAt ASC, c.id ASC")
+    List<Comment> findTopLevelPageAfter(@Param("bookId") String bookId,
+                                        @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                        @Param("afterId") String afterId,
+                                        Pageable pageable);
+
+    @Query("SELECT c FROM Comment c JOIN FETCH c.author WHERE c.parentComment.id = :parentCommentId AND c.isDeleted = false AND " +
+           "(:afterCreatedAt IS NULL OR c.createdAt > :afterCreatedAt OR (c.createdAt = :afterCreatedAt AND c.id > :afterId)) " +
+           "ORDER BY c.createdAt ASC, c.id ASC")
+    List<Comment> findRepliesPageAfter(@Param("parentCommentId") String parentCommentId,
+                                       @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                       @Param("afterId") String afterId,
+                                       Pageable pageable);
+
+    // Atomic so concurrent replies to the same comment do not lose updates
+    @Modifying
+    @Query("UPDATE Comment c SET c.replyCount = COALESCE(c.replyCount, 0) + :delta WHERE c.id = :id")
+    int adjustReplyCount(@Param("id") String id, @Param("delta") int delta);
+
+    // (parent id, count) of direct non-deleted replies, for backfilling reply_count
+    @Query("SELECT c.parentComment.id, COUNT(c) FROM Comment c WHERE c.parentComment IS NOT NULL AND c.isDeleted = false " +
+           "GROUP BY c.parentComment.id")
+    List<Object[]> countRepliesByParent();
+
+    // Comments saved before depth and reply counts existed
+    @Query("SELECT COUNT(c) FROM Comment c WHERE c.replyCount IS NULL")
+    long countWithoutThreadColumns();
+
+    // (book id, count) of non-deleted comments; per-book counts are otherwise read from Book.commentCount
+    @Query("SELECT c.book.id, COUNT(c) FROM Comment c WHERE c.isDeleted = false GROUP BY c.book.id")
+    List<Object[]> countCommentsByBook();
 
 
 
@@ -19,7 +19,8 @@ public interface MessageRepository extends JpaRepository<Message, String> {
     @Query("SELECT m FROM Message m WHERE m.sender.id = :userId OR m.recipient.id = :userId")
     List<Message> findBySenderOrRecipient(@Param("userId") String userId);
 
-    // Messages where the user is sender or the owner of the related book, ordered newest first
-    @Query("SELECT m FROM Message m WHERE m.sender.id = :userId OR m.book.owner.id = :userId ORDER BY m.createdAt DESC")
-    List<Message> findMessagesForUser(@Param("userId") String userId);
+    // (message id, sender id, recipient id, book owner id, createdAt, isRead) of every message, for building mailboxes
+    @Query("SELECT m.id, s.id, r.id, o.id, m.createdAt, m.isRead FROM Message m " +
+           "LEFT JOIN m.sender s LEFT JOIN m.recipient r LEFT JOIN m.book b LEFT JOIN b.owner o")
+    List<Object[]> findMailboxParticipants();
 }
@@ -27,4 +27,13 @@ public interface TransactionRepository extends JpaRepository<Transaction, String
     // Find all transactions where given user is the borrower (any status)
     @Query("SELECT t FROM Transaction t WHERE t.borrower.id = :userId")
     List<Transaction> findByBorrowerId(@Param("userId") String userId);
+
+    @Query("SELECT t FROM Transaction t WHERE t.status = :status")
+    List<Transaction> findByStatus(@Param("status") Transaction.TransactionStatus status);
+
+    // (book id, count) of transactions of one type, optionally only those in one status
+    @Query("SELECT t.book.id, COUNT(t) FROM Transaction t WHERE t.type = :type AND (:status IS NULL OR t.status = :status) " +
+           "GROUP BY t.book.id")
+    List<Object[]> countByBook(@Param("type") Transaction.TransactionType type,
+                               @Param("status") Transaction.TransactionStatus status);
 }
@@ -0,0 +1,23 @@
+package org.example.web.repository;
+
+import org.example.web.model.UserActionDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UserActionDailyRollupRepository extends JpaRepository<UserActionDailyRollup, String> {
+
+    Optional<UserActionDailyRollup> findByDayAndActionTypeAndUserId(LocalDate day, String actionType, String userId);
+
+    @Query("SELECT r FROM UserActionDailyRollup r WHERE r.day >= :fromDay AND r.day <= :toDay AND " +
+           "(:actionType IS NULL OR r.actionType = :actionType) ORDER BY r.day DESC, r.actionType, r.userName")
+    List<UserActionDailyRollup> findInWindow(@Param("fromDay") LocalDate fromDay,
+                                             @Param("toDay") LocalDate toDay,
+                                             @Param("actionType") String actionType);
+}
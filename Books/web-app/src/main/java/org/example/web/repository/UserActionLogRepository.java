@@ -1,23 +1,58 @@
 package org.example.web.repository;
 
 import org.example.web.model.UserActionLog;
+import org.hibernate.jpa.HibernateHints;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserActionLogRepository extends JpaRepository<UserActionLog, String> {
 
-    // Find all actions ordered by timestamp (most recent first)
-    List<UserActionLog> findAllByOrderByTimestampDesc();
-
-    // Find actions by type
-    @Query("SELECT l FROM UserActionLog l WHERE l.actionType = :actionType ORDER BY l.timestamp DESC")
-    List<UserActionLog> findByActionTypeOrderByTimestampDesc(@Param("actionType") String actionType);
+    // Time-windowed reads: [from, to) on the timestamp index
+    @Query("SELECT l FROM UserActionLog l WHERE l.timestamp >= :from AND l.timestamp < :to ORDER BY l.timestamp DESC")
+    List<UserActionLog> findInWindow(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT l FROM UserActionLog l WHERE l.actionType = :actionType AND " +
+           "l.timestamp >= :from AND l.timestamp < :to ORDER BY l.timestamp DESC")
+    List<UserActionLog> findByTypeInWindow(@Param("actionType") String actionType,
+                                           @Param("from") LocalDateTime from,
+                                           @Param("to") LocalDateTime to);
+
+    // Rollup input for one day: rows of (actionType, userId, userName, count)
+    @Query("SELECT l.actionType, l.userId, MAX(l.userName), COUNT(l) FROM UserActionLog l " +
+           "WHERE l.timestamp >= :from AND l.timestamp < :to GROUP BY l.actionType, l.userId")
+    List<Object[]> countByTypeAndUserInWindow(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Modifying
+    @Query("DELETE FROM UserActionLog l WHERE l.timestamp >= :from AND l.timestamp < :to")
+    int deleteInWindow(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT MIN(l.timestamp) FROM UserActionLog l")
+    LocalDateTime findOldestTimestamp();
+
+    // Forward-only cursor for exports; rows arrive in fetch-size chunks instead of one List.
+    // Must be consumed inside a transaction. On MySQL this needs useCursorFetch=true in the JDBC URL.
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT l FROM UserActionLog l WHERE " +
+           "(:actionType IS NULL OR l.actionType = :actionType) AND " +
+           "(:userName IS NULL OR LOWER(l.userName) LIKE LOWER(CONCAT('%', :userName, '%'))) " +
+           "ORDER BY l.timestamp DESC")
+    Stream<UserActionLog> streamForExport(@Param("actionType") String actionType,
+                                          @Param("userName") String userName);
 
 
 }
@@ -0,0 +1,34 @@
+package org.example.web.repository;
+
+import org.example.web.model.Book;
+import org.example.web.model.UserLibraryEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface UserLibraryEntryRepository extends JpaRepository<UserLibraryEntry, String> {
+
+    // Served by the (user_id, book_id, library_role) unique index; DISTINCT covers an owner borrowing their own book
+    @Query("SELECT DISTINCT e.book FROM UserLibraryEntry e WHERE e.userId = :userId")
+    List<Book> findBooksByUserId(@Param("userId") String userId);
+
+    boolean existsByUserIdAndBookIdAndRole(String userId, String bookId, UserLibraryEntry.Role role);
+
+    @Modifying
+    @Query("DELETE FROM UserLibraryEntry e WHERE e.userId = :userId AND e.book.id = :bookId AND e.role = :role")
+    int deleteEntry(@Param("userId") String userId, @Param("bookId") String bookId,
+                    @Param("role") UserLibraryEntry.Role role);
+
+    @Modifying
+    @Query("DELETE FROM UserLibraryEntry e WHERE e.book.id = :bookId")
+    int deleteByBookId(@Param("bookId") String bookId);
+
+    @Modifying
+    @Query("DELETE FROM UserLibraryEntry e WHERE e.userId = :userId")
+    int deleteByUserId(@Param("userId") String userId);
+}
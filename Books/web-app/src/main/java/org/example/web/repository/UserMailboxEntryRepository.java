@@ -0,0 +1,59 @@
+package org.example.web.repository;
+
+import org.example.web.dto.MessageDto;
+import org.example.web.model.Message;
+import org.example.web.model.UserMailboxEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UserMailboxEntryRepository extends JpaRepository<UserMailboxEntry, String> {
+
+    // Newest first, keyset on (createdAt, message id); book, sender, recipient and parent are joined into the DTO
+    @Query("SELECT new org.example.web.dto.MessageDto(m.id, b.id, b.title, s.id, s.firstName, s.lastName, " +
+           "r.id, r.firstName, r.lastName, m.content, m.createdAt, e.isRead, p.id, m.depth, m.isDeleted, m.deletedAt) " +
+           "FROM UserMailboxEntry e JOIN e.message m LEFT JOIN m.book b LEFT JOIN m.sender s " +
+           "LEFT JOIN m.recipient r LEFT JOIN m.parentMessage p " +
+           "WHERE e.userId = :userId AND " +
+           "(:beforeCreatedAt IS NULL OR e.createdAt < :beforeCreatedAt OR (e.createdAt = :beforeCreatedAt AND m.id < :beforeId)) " +
+           "ORDER BY e.createdAt DESC, m.id DESC")
+    List<MessageDto> findInboxPage(@Param("userId") String userId,
+                                   @Param("beforeCreatedAt") LocalDateTime beforeCreatedAt,
+                                   @Param("beforeId") String beforeId,
+                                   Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE UserMailboxEntry e SET e.isRead = true WHERE e.userId = :userId AND e.message.id = :messageId AND e.isRead = false")
+    int markRead(@Param("userId") String userId, @Param("messageId") String messageId);
+
+    @Modifying
+    @Query("UPDATE UserMailboxEntry e SET e.isRead = true WHERE e.userId = :userId AND e.isRead = false")
+    int markAllRead(@Param("userId") String userId);
+
+    // (user id, count) of unread entries for the given messages
+    @Query("SELECT e.userId, COUNT(e) FROM UserMailboxEntry e WHERE e.message IN :messages AND e.isRead = false GROUP BY e.userId")
+    List<Object[]> countUnreadByUserForMessages(@Param("messages") List<Message> messages);
+
+    @Modifying
+    @Query("UPDATE UserMailboxEntry e SET e.isRead = true WHERE e.message IN :messages AND e.isRead = false")
+    int markReadForMessages(@Param("messages") List<Message> messages);
+
+    @Modifying
+    @Query("DELETE FROM UserMailboxEntry e WHERE e.message IN :messages")
+    int deleteByMessages(@Param("messages") List<Message> messages);
+
+    @Modifying
+    @Query("DELETE FROM UserMailboxEntry e WHERE e.userId = :userId")
+    int deleteByUserId(@Param("userId") String userId);
+
+    // (user id, count) of all unread entries, for rebuilding the per-user counters
+    @Query("SELECT e.userId, COUNT(e) FROM UserMailboxEntry e WHERE e.isRead = false GROUP BY e.userId")
+    List<Object[]> countUnreadByUser();
+}
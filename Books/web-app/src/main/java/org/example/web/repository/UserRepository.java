@@ -2,7 +2,11 @@ package org.example.web.repository;
 
 import org.example.web.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -10,4 +14,17 @@ import java.util.Optional;
 public interface UserRepository extends JpaRepository<User, String> {
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
+
+    @Query("SELECT COALESCE(u.unreadMessages, 0) FROM User u WHERE u.id = :userId")
+    Optional<Long> findUnreadMessages(@Param("userId") String userId);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.unreadMessages = COALESCE(u.unreadMessages, 0) + :delta WHERE u.id = :userId")
+    int adjustUnreadMessages(@Param("userId") String userId, @Param("delta") long delta);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.unreadMessages = 0")
+    int resetUnreadMessages();
 }
@@ -0,0 +1,200 @@
+package org.example.web.search;
+
+import org.example.web.model.Book;
+import org.example.web.repository.BookRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory bitmap index over the low-cardinality book columns: category, status and owner.
+ *
+ * Every indexed book gets a dense integer ordinal, and each column value keeps a bitmap of the
+ * ordinals that have it. Filter combinations are answered with bitmap AND / ANDNOT, so only
+ * matching ids ever reach the database. Writes go through BookService, TransactionService and
+ * AdminService.
+ */
+@Component
+public class BookFilterIndex {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // ordinal <-> book id; ordinals of removed books are reused
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final List<String> ids = new ArrayList<>();
+    // owner id per ordinal, so an update only touches that owner's bitmap
+    private final List<String> owners = new ArrayList<>();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+
+    private final BitSet live = new BitSet();
+    private final Map<Book.BookCategory, BitSet> byCategory = new EnumMap<>(Book.BookCategory.class);
+    private final Map<Book.BookStatus, BitSet> byStatus = new EnumMap<>(Book.BookStatus.class);
+    private final Map<String, BitSet> byOwner = new HashMap<>();
+
+    @PostConstruct
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            ordinals.clear();
+            ids.clear();
+            owners.clear();
+            freeOrdinals.clear();
+            live.clear();
+            byCategory.clear();
+            byStatus.clear();
+            byOwner.clear();
+            for (Book book : bookRepository.findAll()) {
+                index(book);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Add a book or refresh its category, status and owner bits
+    public void index(Book book) {
+        if (book == null || book.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(book.getId());
+            if (ordinal == null) {
+                ordinal = freeOrdinals.isEmpty() ? ids.size() : freeOrdinals.pop();
+                if (ordinal == ids.size()) {
+                    ids.add(book.getId());
+                    owners.add(null);
+                } else {
+                    ids.set(ordinal, book.getId());
+                }
+                ordinals.put(book.getId(), ordinal);
+            } else {
+                clearBits(ordinal);
+            }
+
+            live.set(ordinal);
+            if (book.getCategory() != null) {
+                byCategory.computeIfAbsent(book.getCategory(), c -> new BitSet()).set(ordinal);
+            }
+            if (book.getStatus() != null) {
+                byStatus.computeIfAbsent(book.getStatus(), s -> new BitSet()).set(ordinal);
+            }
+            if (book.getOwnerId() != null) {
+                byOwner.computeIfAbsent(book.getOwnerId(), o -> new BitSet()).set(ordinal);
+            }
+            owners.set(ordinal, book.getOwnerId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String bookId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(bookId);
+            if (ordinal == null) {
+                return;
+            }
+            clearBits(ordinal);
+            live.clear(ordinal);
+            ids.set(ordinal, null);
+            freeOrdinals.push(ordinal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of books matching every given filter; null filters match everything.
+     * Books owned by excludeOwnerId are left out.
+     */
+    public List<String> filter(Book.BookCategory category, Book.BookStatus status, String excludeOwnerId) {
+        lock.readLock().lock();
+        try {
+            return toIds(match(category, status, excludeOwnerId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Same as filter, restricted to the given candidate ids (e.g. text search matches)
+    public List<String> filter(Collection<String> candidateIds, Book.BookCategory category,
+                               Book.BookStatus status, String excludeOwnerId) {
+        lock.readLock().lock();
+        try {
+            BitSet candidates = new BitSet();
+            for (String id : candidateIds) {
+                Integer ordinal = ordinals.get(id);
+                if (ordinal != null) {
+                    candidates.set(ordinal);
+                }
+            }
+            candidates.and(match(category, status, excludeOwnerId));
+            return toIds(candidates);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Caller holds the read or write lock
+    private BitSet match(Book.BookCategory category, Book.BookStatus status, String excludeOwnerId) {
+        BitSet result = (BitSet) live.clone();
+        if (category != null) {
+            result.and(byCategory.getOrDefault(category, new BitSet()));
+        }
+        if (status != null) {
+            result.and(byStatus.getOrDefault(status, new BitSet()));
+        }
+        if (excludeOwnerId != null) {
+            BitSet owned = byOwner.get(excludeOwnerId);
+            if (owned != null) {
+                result.andNot(owned);
+            }
+        }
+        return result;
+    }
+
+    private List<String> toIds(BitSet bits) {
+        List<String> result = new ArrayList<>(bits.cardinality());
+        for (int ordinal = bits.nextSetBit(0); ordinal >= 0; ordinal = bits.nextSetBit(ordinal + 1)) {
+            result.add(ids.get(ordinal));
+        }
+        return result;
+    }
+
+    private void clearBits(int ordinal) {
+        for (BitSet bitmap : byCategory.values()) {
+            bitmap.clear(ordinal);
+        }
+        for (BitSet bitmap : byStatus.values()) {
+            bitmap.clear(ordinal);
+        }
+        String owner = owners.set(ordinal, null);
+        if (owner != null) {
+            BitSet owned = byOwner.get(owner);
+            if (owned != null) {
+                owned.clear(ordinal);
+                if (owned.isEmpty()) {
+                    byOwner.remove(owner);
+                }
+            }
+        }
+    }
+}
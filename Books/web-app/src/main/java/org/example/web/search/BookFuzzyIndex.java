@@ -0,0 +1,270 @@
+package org.example.web.search;
+
+import org.example.web.model.Book;
+import org.example.web.repository.BookRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory trigram index over the words of book titles and authors, for typo-tolerant search.
+ *
+ * Every distinct word is split into padded trigrams ("orwell" -> "  o", " or", "orw", ..., "ll ").
+ * A query word only looks at the words sharing enough trigrams with it, found through the posting
+ * lists of its own trigrams, so the work grows with the number of similar words and not with the
+ * catalog. Each candidate is then verified with an edit distance bounded by the query word's length:
+ * "tolkein" finds "tolkien" and "orwel" finds "orwell". Query words also match words they are a
+ * prefix of, like BookSearchIndex. Writes go through BookService and AdminService.
+ */
+@Component
+public class BookFuzzyIndex {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    // trigram -> words containing it
+    private final Map<String, Set<String>> wordsByTrigram = new ConcurrentHashMap<>();
+
+    // word -> ids of books with it in the title, and in the author
+    private final Map<String, Set<String>> titleIds = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> authorIds = new ConcurrentHashMap<>();
+
+    // book id -> words it was indexed under, so updates and deletes can clean up old postings
+    private record IndexedWords(Set<String> title, Set<String> author) {}
+    private final Map<String, IndexedWords> indexedBooks = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void rebuild() {
+        synchronized (this) {
+            wordsByTrigram.clear();
+            titleIds.clear();
+            authorIds.clear();
+            indexedBooks.clear();
+            for (Book book : bookRepository.findAll()) {
+                index(book);
+            }
+        }
+    }
+
+    // Add or re-index a book
+    public synchronized void index(Book book) {
+        if (book == null || book.getId() == null) {
+            return;
+        }
+        remove(book.getId());
+
+        IndexedWords words = new IndexedWords(new HashSet<>(BookSearchIndex.tokenize(book.getTitle())),
+                                              new HashSet<>(BookSearchIndex.tokenize(book.getAuthor())));
+        for (String word : words.title()) {
+            add(titleIds, word, book.getId());
+        }
+        for (String word : words.author()) {
+            add(authorIds, word, book.getId());
+        }
+        indexedBooks.put(book.getId(), words);
+    }
+
+    public synchronized void remove(String bookId) {
+        IndexedWords words = indexedBooks.remove(bookId);
+        if (words == null) {
+            return;
+        }
+        for (String word : words.title()) {
+            drop(titleIds, word, bookId);
+        }
+        for (String word : words.author()) {
+            drop(authorIds, word, bookId);
+        }
+    }
+
+    /**
+     * Ids of books whose title or author has a word close to every word of the query, most similar first.
+     * Returns an empty list when nothing matches or the query has no searchable words.
+     */
+    public List<String> search(String query) {
+        return rank(query, false);
+    }
+
+    // Like search, but only looks at authors
+    public List<String> searchAuthors(String author) {
+        return rank(author, true);
+    }
+
+    public int size() {
+        return indexedBooks.size();
+    }
+
+    private List<String> rank(String text, boolean authorsOnly) {
+        List<String> queryWords = BookSearchIndex.tokenize(text);
+        if (queryWords.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // A book has to match every query word; its score is the sum of its best similarity per word
+        Map<String, Double> scores = null;
+        for (String queryWord : new LinkedHashSet<>(queryWords)) {
+            Map<String, Double> matches = booksNear(queryWord, authorsOnly);
+            if (scores == null) {
+                scores = matches;
+            } else {
+                Map<String, Double> both = new HashMap<>();
+                for (Map.Entry<String, Double> entry : matches.entrySet()) {
+                    Double score = scores.get(entry.getKey());
+                    if (score != null) {
+                        both.put(entry.getKey(), score + entry.getValue());
+                    }
+                }
+                scores = both;
+            }
+            if (scores.isEmpty()) {
+                return Collections.emptyList();
+            }
+        }
+
+        List<Map.Entry<String, Double>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<String, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        List<String> ids = new ArrayList<>(ranked.size());
+        for (Map.Entry<String, Double> entry : ranked) {
+            ids.add(entry.getKey());
+        }
+        return ids;
+    }
+
+    // Book id -> best similarity of any of its words to queryWord
+    private Map<String, Double> booksNear(String queryWord, boolean authorsOnly) {
+        Set<String> queryGrams = new HashSet<>(trigrams(queryWord));
+        Map<String, Integer> shared = new HashMap<>();
+        for (String gram : queryGrams) {
+            Set<String> words = wordsByTrigram.get(gram);
+            if (words != null) {
+                for (String word : words) {
+                    shared.merge(word, 1, Integer::sum);
+                }
+            }
+        }
+
+        // Each edit breaks at most four trigrams (three, or four for a swap), and a prefix misses
+        // only the last one, so anything sharing fewer cannot pass the verification below
+        int maxEdits = maxEdits(queryWord.length());
+        int minShared = Math.max(1, queryGrams.size() - Math.max(4 * maxEdits, 1));
+
+        Map<String, Double> books = new HashMap<>();
+        for (Map.Entry<String, Integer> candidate : shared.entrySet()) {
+            String word = candidate.getKey();
+            int common = candidate.getValue();
+            if (common < minShared) {
+                continue;
+            }
+            if (!word.startsWith(queryWord) && editDistance(queryWord, word, maxEdits) > maxEdits) {
+                continue;
+            }
+            double similarity = (double) common / (queryGrams.size() + word.length() + 1 - common);
+            addScores(books, authorIds.get(word), similarity);
+            if (!authorsOnly) {
+                addScores(books, titleIds.get(word), similarity);
+            }
+        }
+        return books;
+    }
+
+    private static void addScores(Map<String, Double> books, Set<String> ids, double similarity) {
+        if (ids == null) {
+            return;
+        }
+        for (String id : ids) {
+            books.merge(id, similarity, Math::max);
+        }
+    }
+
+    private void add(Map<String, Set<String>> field, String word, String bookId) {
+        if (!titleIds.containsKey(word) && !authorIds.containsKey(word)) {
+            for (String gram : trigrams(word)) {
+                wordsByTrigram.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(word);
+            }
+        }
+        field.computeIfAbsent(word, w -> ConcurrentHashMap.newKeySet()).add(bookId);
+    }
+
+    private void drop(Map<String, Set<String>> field, String word, String bookId) {
+        Set<String> ids = field.get(word);
+        if (ids == null) {
+            return;
+        }
+        ids.remove(bookId);
+        if (!ids.isEmpty()) {
+            return;
+        }
+        field.remove(word);
+        if (titleIds.containsKey(word) || authorIds.containsKey(word)) {
+            return;
+        }
+        for (String gram : trigrams(word)) {
+            Set<String> words = wordsByTrigram.get(gram);
+            if (words != null) {
+                words.remove(word);
+                if (words.isEmpty()) {
+                    wordsByTrigram.remove(gram);
+                }
+            }
+        }
+    }
+
+    // Words of up to two characters only match exactly or as a prefix; longer ones allow one or two typos
+    static int maxEdits(int length) {
+        if (length <= 2) {
+            return 0;
+        }
+        return length <= 5 ? 1 : 2;
+    }
+
+    // Two spaces in front and one behind, so the start of a word weighs more than its end
+    static List<String> trigrams(String word) {
+        String padded = "  " + word + " ";
+        List<String> grams = new ArrayList<>(padded.length() - 2);
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    /**
+     * Optimal string alignment distance (insertions, deletions, substitutions and swaps of adjacent
+     * characters), or max + 1 as soon as it is certain to exceed max.
+     */
+    static int editDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previousRow = null;
+        int[] row = new int[b.length() + 1];
+        int[] nextRow = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            row[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            nextRow[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(nextRow[j - 1] + 1, row[j] + 1), row[j - 1] + cost);
+                if (previousRow != null && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previousRow[j - 2] + 1);
+                }
+                nextRow[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = previousRow != null ? previousRow : new int[b.length() + 1];
+            previousRow = row;
+            row = nextRow;
+            nextRow = recycled;
+        }
+        return Math.min(row[b.length()], max + 1);
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.web.search;
+
+import org.example.web.model.Book;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Applies book writes to every in-memory book index. Inside a transaction the indexes only change
+ * once it commits, so a rolled-back create or delete never leaves them out of step with the table.
+ */
+@Component
+public class BookIndexes {
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private BookFilterIndex bookFilterIndex;
+
+    @Autowired
+    private BookSuggestIndex bookSuggestIndex;
+
+    @Autowired
+    private BookFuzzyIndex bookFuzzyIndex;
+
+    // Add or re-index a saved book
+    public void index(Book book) {
+        afterCommit(() -> {
+            bookSearchIndex.index(book);
+            bookFilterIndex.index(book);
+            bookSuggestIndex.index(book);
+            bookFuzzyIndex.index(book);
+        });
+    }
+
+    public void remove(String bookId) {
+        afterCommit(() -> {
+            bookSearchIndex.remove(bookId);
+            bookFilterIndex.remove(bookId);
+            bookSuggestIndex.remove(bookId);
+            bookFuzzyIndex.remove(bookId);
+        });
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package org.example.web.search;
+
+import org.example.web.model.Book;
+import org.example.web.repository.BookRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory inverted index over book title, author and description.
+ *
+ * Each token maps to the books containing it, with how often it occurs in each field. Tokens are kept
+ * in a sorted map so a query word also matches indexed words it is a prefix of ("gats" finds "Gatsby").
+ * The counts and field lengths let rank order matches by BM25 relevance, with a title hit weighing more
+ * than an author hit and that more than a mention in the description.
+ * Writes go through BookService; reads never touch the database.
+ */
+@Component
+public class BookSearchIndex {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    // How much a match counts in title, author and description, the order of the per-field arrays below
+    private static final double[] FIELD_BOOSTS = {3.0, 2.0, 1.0};
+
+    // BM25 term frequency saturation and length normalization
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // token -> ids of books containing it -> occurrences per field
+    private final ConcurrentSkipListMap<String, Map<String, int[]>> postings = new ConcurrentSkipListMap<>();
+
+    // book id -> tokens it was indexed under, so updates and deletes can clean up old postings
+    private final Map<String, Set<String>> indexedTokens = new ConcurrentHashMap<>();
+
+    // book id -> number of tokens per field, and the sums over all books for the average lengths
+    private final Map<String, int[]> fieldLengths = new ConcurrentHashMap<>();
+    private final AtomicLongArray fieldTotals = new AtomicLongArray(3);
+
+    @PostConstruct
+    public void rebuild() {
+        synchronized (this) {
+            postings.clear();
+            indexedTokens.clear();
+            fieldLengths.clear();
+            for (int field = 0; field < fieldTotals.length(); field++) {
+                fieldTotals.set(field, 0);
+            }
+            for (Book book : bookRepository.findAll()) {
+                index(book);
+            }
+        }
+    }
+
+    // Add or re-index a book
+    public synchronized void index(Book book) {
+        if (book == null || book.getId() == null) {
+            return;
+        }
+        remove(book.getId());
+
+        List<List<String>> fields = List.of(tokenize(book.getTitle()), tokenize(book.getAuthor()),
+                                            tokenize(book.getDescription()));
+        Map<String, int[]> counts = new HashMap<>();
+        int[] lengths = new int[fields.size()];
+        for (int field = 0; field < fields.size(); field++) {
+            for (String token : fields.get(field)) {
+                counts.computeIfAbsent(token, t -> new int[fields.size()])[field]++;
+            }
+            lengths[field] = fields.get(field).size();
+            fieldTotals.addAndGet(field, lengths[field]);
+        }
+
+        for (Map.Entry<String, int[]> entry : counts.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), t -> new ConcurrentHashMap<>()).put(book.getId(), entry.getValue());
+        }
+        fieldLengths.put(book.getId(), lengths);
+        indexedTokens.put(book.getId(), counts.keySet());
+    }
+
+    public synchronized void remove(String bookId) {
+        Set<String> tokens = indexedTokens.remove(bookId);
+        if (tokens == null) {
+            return;
+        }
+        for (String token : tokens) {
+            Map<String, int[]> books = postings.get(token);
+            if (books != null) {
+                books.remove(bookId);
+                if (books.isEmpty()) {
+                    postings.remove(token);
+                }
+            }
+        }
+        int[] lengths = fieldLengths.remove(bookId);
+        for (int field = 0; field < lengths.length; field++) {
+            fieldTotals.addAndGet(field, -lengths[field]);
+        }
+    }
+
+    /**
+     * Ids of books matching every word of the query (each word as a token prefix).
+     * Returns an empty set when nothing matches or the query has no searchable words.
+     */
+    public Set<String> search(String query) {
+        List<String> queryTokens = tokenize(query);
+        if (queryTokens.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        // Intersect starting from the rarest word to keep the working set small
+        List<Set<String>> matches = new ArrayList<>();
+        for (String token : new LinkedHashSet<>(queryTokens)) {
+            Set<String> ids = idsWithPrefix(token);
+            if (ids.isEmpty()) {
+                return Collections.emptySet();
+            }
+            matches.add(ids);
+        }
+        matches.sort(Comparator.comparingInt(Set::size));
+
+        Set<String> result = new HashSet<>(matches.get(0));
+        for (int i = 1; i < matches.size() && !result.isEmpty(); i++) {
+            result.retainAll(matches.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * The best limit of candidateIds for query, most relevant first. Each query word is scored with
+     * BM25 over the tokens it is a prefix of, counting a match in each field by that field's boost.
+     * Candidates go through a min-heap of at most limit entries, so a broad query costs
+     * O(matches * log limit) rather than a sort of every match.
+     */
+    public List<String> rank(String query, Collection<String> candidateIds, int limit) {
+        List<String> queryTokens = tokenize(query);
+        if (queryTokens.isEmpty() || candidateIds.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        Set<String> candidates = candidateIds instanceof Set ? (Set<String>) candidateIds : new HashSet<>(candidateIds);
+
+        int books = Math.max(1, fieldLengths.size());
+        double[] averageLengths = new double[FIELD_BOOSTS.length];
+        for (int field = 0; field < averageLengths.length; field++) {
+            averageLengths[field] = Math.max(1.0, (double) fieldTotals.get(field) / books);
+        }
+
+        Map<String, Double> scores = new HashMap<>();
+        for (String token : new LinkedHashSet<>(queryTokens)) {
+            ConcurrentNavigableMap<String, Map<String, int[]>> range = postings.subMap(token, true, token + Character.MAX_VALUE, true);
+
+            // Boosted, length-normalized occurrences of the word in each candidate
+            Map<String, Double> weighted = new HashMap<>();
+            for (Map<String, int[]> tokenBooks : range.values()) {
+                for (Map.Entry<String, int[]> posting : tokenBooks.entrySet()) {
+                    if (!candidates.contains(posting.getKey())) {
+                        continue;
+                    }
+                    int[] lengths = fieldLengths.get(posting.getKey());
+                    if (lengths == null) {
+                        continue;
+                    }
+                    double frequency = 0;
+                    for (int field = 0; field < FIELD_BOOSTS.length; field++) {
+                        int count = posting.getValue()[field];
+                        if (count > 0) {
+                            frequency += FIELD_BOOSTS[field] * count / (1 - B + B * lengths[field] / averageLengths[field]);
+                        }
+                    }
+                    weighted.merge(posting.getKey(), frequency, Double::sum);
+                }
+            }
+
+            int documentFrequency = idsWithPrefix(token).size();
+            double idf = Math.log(1 + (books - documentFrequency + 0.5) / (documentFrequency + 0.5));
+            for (Map.Entry<String, Double> entry : weighted.entrySet()) {
+                double frequency = entry.getValue();
+                scores.merge(entry.getKey(), idf * frequency * (K1 + 1) / (frequency + K1), Double::sum);
+            }
+        }
+
+        // Keep the best limit; the weakest kept entry sits on top of the heap and is the one replaced.
+        // Equal scores fall back to the id so the order does not change between calls
+        Comparator<Map.Entry<String, Double>> weakestFirst = Map.Entry.<String, Double>comparingByValue()
+            .thenComparing(Map.Entry.<String, Double>comparingByKey().reversed());
+        PriorityQueue<Map.Entry<String, Double>> best = new PriorityQueue<>(Math.min(limit, scores.size()) + 1, weakestFirst);
+        for (Map.Entry<String, Double> entry : scores.entrySet()) {
+            if (best.size() < limit) {
+                best.add(entry);
+            } else if (weakestFirst.compare(entry, best.peek()) > 0) {
+                best.poll();
+                best.add(entry);
+            }
+        }
+
+        String[] ranked = new String[best.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = best.poll().getKey();
+        }
+        return Arrays.asList(ranked);
+    }
+
+    public int size() {
+        return indexedTokens.size();
+    }
+
+    private Set<String> idsWithPrefix(String prefix) {
+        ConcurrentNavigableMap<String, Map<String, int[]>> range = postings.subMap(prefix, true, prefix + Character.MAX_VALUE, true);
+        Iterator<Map<String, int[]>> postingsInRange = range.values().iterator();
+        if (!postingsInRange.hasNext()) {
+            return Collections.emptySet();
+        }
+        Set<String> first = postingsInRange.next().keySet();
+        if (!postingsInRange.hasNext()) {
+            return first;
+        }
+        Set<String> ids = new HashSet<>(first);
+        while (postingsInRange.hasNext()) {
+            ids.addAll(postingsInRange.next().keySet());
+        }
+        return ids;
+    }
+
+    // Lower-cases and splits on anything that is not a letter or digit
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return Collections.emptyList();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String part : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{Nd}]+")) {
+            if (!part.isEmpty()) {
+                tokens.add(part);
+            }
+        }
+        return tokens;
+    }
+}
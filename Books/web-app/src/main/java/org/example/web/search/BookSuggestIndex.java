@@ -0,0 +1,164 @@
+package org.example.web.search;
+
+import org.example.web.dto.BookSuggestion;
+import org.example.web.model.Book;
+import org.example.web.repository.BookRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+/**
+ * In-memory prefix index for search-as-you-type over book titles and authors.
+ *
+ * Every distinct title and author (compared case-insensitively) is one suggestion, counted once per book
+ * that has it. Suggestions sit in two sorted maps: one keyed by their whole normalized text and one by
+ * the text from each later word on, so "gre" finds "Great Expectations" first and "The Great Gatsby"
+ * after it. A lookup is one seek per map plus a scan that stops after limit suggestions, so it costs
+ * O(log n + limit) however large the catalog is. Writes go through BookService and AdminService.
+ */
+@Component
+public class BookSuggestIndex {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    // Separates the indexed text from the suggestion key; sorts before every other character,
+    // so a key always falls inside the prefix range of its text
+    private static final char SEPARATOR = '\u0000';
+
+    private static final class Suggestion {
+        final String key;
+        final String text;
+        final BookSuggestion.Type type;
+        volatile int books;
+
+        Suggestion(String key, String text, BookSuggestion.Type type) {
+            this.key = key;
+            this.text = text;
+            this.type = type;
+        }
+    }
+
+    // type + normalized text -> suggestion; only touched under the lock
+    private final Map<String, Suggestion> suggestions = new HashMap<>();
+    // normalized text -> suggestion, and the text from each later word -> suggestion
+    private final ConcurrentSkipListMap<String, Suggestion> byStart = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<String, Suggestion> byWord = new ConcurrentSkipListMap<>();
+    // book id -> the suggestions it counts towards, so updates and deletes can give them back
+    private final Map<String, List<Suggestion>> indexedBooks = new HashMap<>();
+
+    @PostConstruct
+    public void rebuild() {
+        synchronized (this) {
+            suggestions.clear();
+            byStart.clear();
+            byWord.clear();
+            indexedBooks.clear();
+            for (Book book : bookRepository.findAll()) {
+                index(book);
+            }
+        }
+    }
+
+    // Add or re-index a book
+    public synchronized void index(Book book) {
+        if (book == null || book.getId() == null) {
+            return;
+        }
+        remove(book.getId());
+
+        List<Suggestion> counted = new ArrayList<>(2);
+        addTo(counted, book.getTitle(), BookSuggestion.Type.TITLE);
+        addTo(counted, book.getAuthor(), BookSuggestion.Type.AUTHOR);
+        indexedBooks.put(book.getId(), counted);
+    }
+
+    public synchronized void remove(String bookId) {
+        List<Suggestion> counted = indexedBooks.remove(bookId);
+        if (counted == null) {
+            return;
+        }
+        for (Suggestion suggestion : counted) {
+            suggestion.books--;
+            if (suggestion.books == 0) {
+                suggestions.remove(suggestion.key);
+                forEachEntryKey(suggestion, byStart::remove, byWord::remove);
+            }
+        }
+    }
+
+    /**
+     * Up to limit titles and authors whose text, or one of whose words, starts with prefix.
+     * Whole-text matches come first; within each group suggestions are in alphabetical order.
+     */
+    public List<BookSuggestion> suggest(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        Set<Suggestion> found = new LinkedHashSet<>();
+        collect(byStart, normalized, limit, found);
+        collect(byWord, normalized, limit, found);
+
+        List<BookSuggestion> result = new ArrayList<>(found.size());
+        for (Suggestion suggestion : found) {
+            result.add(new BookSuggestion(suggestion.text, suggestion.type, suggestion.books));
+        }
+        return result;
+    }
+
+    public synchronized int size() {
+        return suggestions.size();
+    }
+
+    private void addTo(List<Suggestion> counted, String text, BookSuggestion.Type type) {
+        String normalized = normalize(text);
+        if (normalized.isEmpty()) {
+            return;
+        }
+        Suggestion suggestion = suggestions.get(type + ":" + normalized);
+        if (suggestion == null) {
+            suggestion = new Suggestion(type + ":" + normalized, text.trim(), type);
+            suggestions.put(suggestion.key, suggestion);
+            Suggestion added = suggestion;
+            forEachEntryKey(added, key -> byStart.put(key, added), key -> byWord.put(key, added));
+        }
+        suggestion.books++;
+        counted.add(suggestion);
+    }
+
+    // Entry keys of a suggestion: its whole text for byStart, and the tail from every later word for byWord
+    private static void forEachEntryKey(Suggestion suggestion, Consumer<String> start, Consumer<String> word) {
+        String normalized = suggestion.key.substring(suggestion.key.indexOf(':') + 1);
+        start.accept(normalized + SEPARATOR + suggestion.key);
+        for (int i = normalized.indexOf(' '); i >= 0; i = normalized.indexOf(' ', i + 1)) {
+            word.accept(normalized.substring(i + 1) + SEPARATOR + suggestion.key);
+        }
+    }
+
+    private static void collect(ConcurrentSkipListMap<String, Suggestion> map, String prefix, int limit,
+                                Set<Suggestion> found) {
+        if (found.size() >= limit) {
+            return;
+        }
+        for (Suggestion suggestion : map.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values()) {
+            found.add(suggestion);
+            if (found.size() >= limit) {
+                return;
+            }
+        }
+    }
+
+    // Lower-cases and turns every run of characters that are not letters or digits into one space
+    static String normalize(String text) {
+        if (text == null || text.isBlank()) {
+            return "";
+        }
+        return String.join(" ", BookSearchIndex.tokenize(text));
+    }
+}
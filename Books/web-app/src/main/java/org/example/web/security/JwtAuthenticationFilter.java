@@ -5,9 +5,7 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.example.web.model.User;
-import org.example.web.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -17,23 +15,14 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.util.Collections;
-import java.nio.charset.StandardCharsets;
 
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jws;
 import io.jsonwebtoken.JwtException;
-import io.jsonwebtoken.security.Keys;
-import javax.crypto.SecretKey;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    @Value("${jwt.secret}")
-    private String jwtSecret;
-
     @Autowired
-    private UserRepository userRepository;
+    private JwtPrincipalCache jwtPrincipalCache;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -99,17 +88,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 }
 
                 try {
-                    SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
-                    // Use parser() then build() to obtain a JwtParser and parse the token
-                    Jws<Claims> jws = Jwts.parser().setSigningKey(key).build().parseClaimsJws(token);
-                    String userId = jws.getBody().getSubject();
-
-                    if (userId == null) {
-                        response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid token: missing subject");
-                        return;
-                    }
-
-                    User user = userRepository.findById(userId).orElse(null);
+                    // Parsing and the user lookup are cached per token (see JwtPrincipalCache)
+                    User user = jwtPrincipalCache.resolve(token);
                     if (user == null) {
                         response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "User not found for token subject");
                         return;
@@ -0,0 +1,139 @@
+package org.example.web.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.example.web.model.User;
+import org.example.web.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PostConstruct;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Resolves bearer tokens to users without parsing the token or hitting the database on every request.
+ *
+ * The signing key and parser are built once. Resolved principals are cached by a SHA-256 hash of the
+ * token for jwt.principal-cache.ttl-seconds (never past the token's own expiry), in an LRU map capped
+ * at jwt.principal-cache.max-size entries. Call evictUser when a user changes or is deleted.
+ */
+@Component
+public class JwtPrincipalCache {
+
+    @Value("${jwt.secret}")
+    private String jwtSecret;
+
+    @Value("${jwt.principal-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${jwt.principal-cache.max-size:10000}")
+    private int maxSize;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private JwtParser parser;
+    private Map<String, CachedPrincipal> cache;
+
+    private record CachedPrincipal(User user, long expiresAtMillis) {}
+
+    @PostConstruct
+    public void init() {
+        SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser().verifyWith(key).build();
+        cache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedPrincipal> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * The user the token belongs to, or null when the token is valid but its user no longer exists.
+     * Throws JwtException / IllegalArgumentException for invalid or expired tokens, like the parser does.
+     */
+    public User resolve(String token) {
+        String key = hash(token);
+        long now = System.currentTimeMillis();
+
+        synchronized (cache) {
+            CachedPrincipal cached = cache.get(key);
+            if (cached != null) {
+                if (cached.expiresAtMillis() > now) {
+                    return cached.user();
+                }
+                cache.remove(key);
+            }
+        }
+
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        String userId = claims.getSubject();
+        if (userId == null) {
+            throw new IllegalArgumentException("Invalid token: missing subject");
+        }
+        User user = userRepository.findById(userId).orElse(null);
+        if (user == null) {
+            return null;
+        }
+
+        long expiresAt = now + ttlSeconds * 1000;
+        Date tokenExpiry = claims.getExpiration();
+        if (tokenExpiry != null) {
+            expiresAt = Math.min(expiresAt, tokenExpiry.getTime());
+        }
+        synchronized (cache) {
+            cache.put(key, new CachedPrincipal(user, expiresAt));
+        }
+        return user;
+    }
+
+    // Drops every cached token of this user so the next request reloads (or rejects) it. Inside a
+    // transaction it drops them again after commit: a request in between still sees the old row and
+    // would otherwise cache it for the full TTL
+    public void evictUser(String userId) {
+        evict(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(userId);
+                }
+            });
+        }
+    }
+
+    private void evict(String userId) {
+        synchronized (cache) {
+            cache.values().removeIf(cached -> userId.equals(cached.user().getId()));
+        }
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -2,11 +2,14 @@ package org.example.web.service;
 
 import org.example.web.model.Book;
 import org.example.web.model.User;
+import org.example.web.model.UserActionDailyRollup;
 import org.example.web.model.UserActionLog;
 import org.example.web.repository.BookRepository;
 import org.example.web.repository.UserRepository;
 import org.example.web.repository.TransactionRepository;
 import org.example.web.repository.MessageRepository;
+import org.example.web.security.JwtPrincipalCache;
+import org.example.web.search.BookIndexes;
 
 
 
@@ -14,6 +17,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Service
@@ -34,6 +39,27 @@ public class AdminService {
     @Autowired
     private UserActionLogService userActionLogService;
 
+    @Autowired
+    private BookIndexes bookIndexes;
+
+    @Autowired
+    private JwtPrincipalCache jwtPrincipalCache;
+
+    @Autowired
+    private UserLibraryService userLibraryService;
+
+    @Autowired
+    private BookCounterService bookCounterService;
+
+    @Autowired
+    private MailboxService mailboxService;
+
+    @Autowired
+    private BookSyncService bookSyncService;
+
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
 
     public List<User> getAllUsers() {
         return userRepository.findAll();
@@ -46,6 +72,10 @@ public class AdminService {
             return false;
         }
 
+        // Drop the user's library entries; entries of other users for the user's books go with each book below
+        userLibraryService.removeUser(userId);
+        mailboxService.removeUser(userId);
+
         // Delete transactions where user is borrower
         var borrowerTxs = transactionRepository.findByBorrowerId(userId);
         if (borrowerTxs != null && !borrowerTxs.isEmpty()) {
@@ -55,6 +85,7 @@ public class AdminService {
         // Delete messages where user is sender or recipient
         var userMessages = messageRepository.findBySenderOrRecipient(userId);
         if (userMessages != null && !userMessages.isEmpty()) {
+            mailboxService.removeMessages(userMessages);
             messageRepository.deleteAll(userMessages);
         }
 
@@ -68,14 +99,23 @@ public class AdminService {
             // Delete messages for this book
             var msgs = messageRepository.findByBook(b);
             if (msgs != null && !msgs.isEmpty()) {
+                mailboxService.removeMessages(msgs);
                 messageRepository.deleteAll(msgs);
             }
+            userLibraryService.removeBook(b.getId());
             bookRepository.deleteById(b.getId());
+            bookSyncService.bookDeleted(b.getId());
+            bookIndexes.remove(b.getId());
+            bookCounterService.forget(b.getId());
             // Optionally log book deletion per owner - skipped here
         }
 
         // Finally delete the user
         userRepository.deleteById(userId);
+        resourceVersionService.changed(ResourceVersionService.Table.BOOKS);
+        // Tokens of the deleted user must stop authenticating right away, not when the cache entry expires;
+        // the cache evicts again once the delete commits
+        jwtPrincipalCache.evictUser(userId);
         return true;
     }
 
@@ -100,22 +140,33 @@ public class AdminService {
             // Remove messages referring to the book (FK constraint)
             var msgs = messageRepository.findByBook(b);
             if (msgs != null && !msgs.isEmpty()) {
+                mailboxService.removeMessages(msgs);
                 messageRepository.deleteAll(msgs);
             }
         }
 
+        userLibraryService.removeBook(bookId);
         bookRepository.deleteById(bookId);
+        bookSyncService.bookDeleted(bookId);
+        bookIndexes.remove(bookId);
+        bookCounterService.forget(bookId);
+        resourceVersionService.changed(ResourceVersionService.Table.BOOKS);
         return true;
     }
 
-    public List<UserActionLog> getAllUserActions() {
+    // from/to may be null; the service then uses its default time window
+    public List<UserActionLog> getAllUserActions(LocalDateTime from, LocalDateTime to) {
         // Use the efficient database-based approach
-        return userActionLogService.getAllActions();
+        return userActionLogService.getActions(from, to);
     }
 
-    public List<UserActionLog> getActionsByType(String actionType) {
+    public List<UserActionLog> getActionsByType(String actionType, LocalDateTime from, LocalDateTime to) {
         // Use the efficient database-based approach
-        return userActionLogService.getActionsByType(actionType);
+        return userActionLogService.getActionsByType(actionType, from, to);
+    }
+
+    public List<UserActionDailyRollup> getDailyActionRollups(LocalDate fromDay, LocalDate toDay, String actionType) {
+        return userActionLogService.getDailyRollups(fromDay, toDay, actionType);
     }
 
 
@@ -0,0 +1,163 @@
+package org.example.web.service;
+
+import org.example.web.model.Transaction;
+import org.example.web.repository.BookRepository;
+import org.example.web.repository.CommentRepository;
+import org.example.web.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Keeps Book.commentCount, borrowCount and activeReservations up to date without locking the book
+ * row on every comment or transaction.
+ *
+ * Changes are added to per-book LongAdders, which concurrent writers update without contention, and
+ * every book.counters.flush-interval-ms the accumulated differences are written with one UPDATE per
+ * changed book. A change made inside a transaction is only counted once that transaction commits.
+ * The stored counters therefore trail the source rows by at most one flush interval.
+ */
+@Service
+public class BookCounterService {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
+    private static final class Counters {
+        final LongAdder comments = new LongAdder();
+        final LongAdder borrows = new LongAdder();
+        final LongAdder reservations = new LongAdder();
+        // What has already been written; only read and written by flush
+        long flushedComments;
+        long flushedBorrows;
+        long flushedReservations;
+    }
+
+    // One entry per book touched since startup. Entries are never swapped out while in use, so no increment
+    // can land on a holder the flush has stopped looking at; deleted books are removed through forget.
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    // Rows that predate the counter columns get counts from the comment and transaction tables
+    @PostConstruct
+    public void backfillIfMissing() {
+        if (bookRepository.countWithoutCounters() == 0) {
+            return;
+        }
+        recount();
+        System.out.println("Backfilled book counters");
+    }
+
+    // Recomputes every book's counters from the source rows; call while no counter changes are pending
+    public void recount() {
+        bookRepository.resetCounters();
+        for (Object[] row : commentRepository.countCommentsByBook()) {
+            bookRepository.addToCounters((String) row[0], ((Number) row[1]).longValue(), 0, 0);
+        }
+        for (Object[] row : transactionRepository.countByBook(Transaction.TransactionType.BORROW, null)) {
+            bookRepository.addToCounters((String) row[0], 0, ((Number) row[1]).longValue(), 0);
+        }
+        for (Object[] row : transactionRepository.countByBook(Transaction.TransactionType.RESERVE,
+                                                              Transaction.TransactionStatus.ACTIVE)) {
+            bookRepository.addToCounters((String) row[0], 0, 0, ((Number) row[1]).longValue());
+        }
+    }
+
+    public void commentAdded(String bookId) {
+        record(bookId, c -> c.comments.increment());
+    }
+
+    public void commentRemoved(String bookId) {
+        record(bookId, c -> c.comments.decrement());
+    }
+
+    public void borrowed(String bookId) {
+        record(bookId, c -> c.borrows.increment());
+    }
+
+    public void reservationStarted(String bookId) {
+        record(bookId, c -> c.reservations.increment());
+    }
+
+    public void reservationEnded(String bookId) {
+        record(bookId, c -> c.reservations.decrement());
+    }
+
+    // Drops pending changes of a deleted book, once the delete has committed
+    public void forget(String bookId) {
+        afterCommit(() -> counters.remove(bookId));
+    }
+
+    @Scheduled(fixedDelayString = "${book.counters.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        boolean written = false;
+        for (Map.Entry<String, Counters> entry : counters.entrySet()) {
+            Counters c = entry.getValue();
+            // sum() may miss an increment that races with it; that one is picked up by the next flush
+            long comments = c.comments.sum() - c.flushedComments;
+            long borrows = c.borrows.sum() - c.flushedBorrows;
+            long reservations = c.reservations.sum() - c.flushedReservations;
+            if (comments == 0 && borrows == 0 && reservations == 0) {
+                continue;
+            }
+            try {
+                bookRepository.addToCounters(entry.getKey(), comments, borrows, reservations);
+                c.flushedComments += comments;
+                c.flushedBorrows += borrows;
+                c.flushedReservations += reservations;
+                written = true;
+            } catch (Exception e) {
+                // Nothing is marked as written, so the same difference is retried next time
+                System.err.println("Failed to flush counters for book " + entry.getKey() + ": " + e.getMessage());
+            }
+        }
+        // The counters are part of every book in /books, so cached lists have to be revalidated
+        if (written) {
+            resourceVersionService.changed(ResourceVersionService.Table.BOOKS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void record(String bookId, Consumer<Counters> change) {
+        if (bookId == null) {
+            return;
+        }
+        afterCommit(() -> change.accept(counters.computeIfAbsent(bookId, id -> new Counters())));
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+}
@@ -2,18 +2,29 @@ package org.example.web.service;
 
 import org.example.web.model.Book;
 import org.example.web.model.User;
-import org.example.web.model.Transaction;
 import org.example.web.repository.BookRepository;
 import org.example.web.repository.UserRepository;
-import org.example.web.repository.TransactionRepository;
+import org.example.web.dto.BookCursor;
+import org.example.web.dto.BookFacets;
+import org.example.web.dto.BookPage;
+import org.example.web.dto.BookSuggestion;
 import org.example.web.dto.CreateBookRequest;
 import org.example.web.model.UserActionLog;
+import org.example.web.model.UserLibraryEntry;
+import org.example.web.search.BookFilterIndex;
+import org.example.web.search.BookFuzzyIndex;
+import org.example.web.search.BookIndexes;
+import org.example.web.search.BookSearchIndex;
+import org.example.web.search.BookSuggestIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 
+import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 public class BookService {
@@ -25,10 +36,38 @@ public class BookService {
     private UserRepository userRepository;
 
     @Autowired
-    private TransactionRepository transactionRepository;
+    private UserActionLogService userActionLogService;
 
     @Autowired
-    private UserActionLogService userActionLogService;
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private BookFilterIndex bookFilterIndex;
+
+    @Autowired
+    private BookSuggestIndex bookSuggestIndex;
+
+    @Autowired
+    private BookFuzzyIndex bookFuzzyIndex;
+
+    // Index writes go through here so they only take effect once the transaction commits
+    @Autowired
+    private BookIndexes bookIndexes;
+
+    @Autowired
+    private UserLibraryService userLibraryService;
+
+    @Autowired
+    private BookCounterService bookCounterService;
+
+    @Autowired
+    private BookSyncService bookSyncService;
+
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
+    // Keeps IN (...) lists within what MySQL and H2 handle comfortably
+    private static final int SEARCH_ID_BATCH_SIZE = 1000;
 
     public List<Book> getAllBooks() {
         return bookRepository.findAll();
@@ -38,7 +77,8 @@ public class BookService {
         return bookRepository.findById(id);
     }
 
-        public Book createBook(CreateBookRequest request) {
+    @Transactional
+    public Book createBook(CreateBookRequest request) {
 
         if ("Hobitas".equals(request.getTitle())) {
             Book book = new Book();
@@ -72,6 +112,9 @@ public class BookService {
         }
 
         Book savedBook = bookRepository.save(book);
+        userLibraryService.add(owner.getId(), savedBook, UserLibraryEntry.Role.OWNED);
+        bookIndexes.index(savedBook);
+        resourceVersionService.changed(ResourceVersionService.Table.BOOKS);
 
         // Log the book creation action
         userActionLogService.logAction(UserActionLog.bookCreated(owner, savedBook));
@@ -91,16 +134,26 @@ public class BookService {
             if (request.getStatus() != null) {
                 book.setStatus(request.getStatus());
             }
-            return Optional.of(bookRepository.save(book));
+            book.setUpdatedAt(LocalDateTime.now());
+            Book savedBook = bookRepository.save(book);
+            bookIndexes.index(savedBook);
+            resourceVersionService.changed(ResourceVersionService.Table.BOOKS);
+            return Optional.of(savedBook);
         }
         return Optional.empty();
     }
 
-            public void deleteUserBook(Book book, User user) {
+    @Transactional
+    public void deleteUserBook(Book book, User user) {
         // Log the user book deletion action before deleting
         userActionLogService.logAction(UserActionLog.bookDeleted(user, book));
 
+        userLibraryService.removeBook(book.getId());
         bookRepository.deleteById(book.getId());
+        bookSyncService.bookDeleted(book.getId());
+        bookIndexes.remove(book.getId());
+        bookCounterService.forget(book.getId());
+        resourceVersionService.changed(ResourceVersionService.Table.BOOKS);
     }
 
     public List<Book> getBooksByOwner(String ownerId) {
@@ -111,80 +164,273 @@ public class BookService {
 
 
 
+    // Owned, borrowed and reserved books, read from the user_library projection
     public List<Book> getAllUserRelatedBooks(String userId) {
-        try {
-            // Get books owned by user
-            List<Book> ownedBooks = bookRepository.findByOwnerId(userId);
-
-            // Get transactions where user is the borrower (borrowed or reserved books)
-            List<Transaction> userTransactions = transactionRepository.findByBorrowerIdAndStatus(userId, Transaction.TransactionStatus.ACTIVE);
-
-            // Extract books from transactions (handle potential null books)
-            List<Book> borrowedReservedBooks = userTransactions.stream()
-                .map(Transaction::getBook)
-                .filter(Objects::nonNull) // Filter out null books
-                .collect(Collectors.toList());
-
-            // Combine both lists and remove duplicates
-            Set<String> seenBookIds = new HashSet<>();
-            List<Book> allBooks = new ArrayList<>();
-
-            // Add owned books
-            for (Book book : ownedBooks) {
-                if (book != null && book.getId() != null && seenBookIds.add(book.getId())) {
-                    allBooks.add(book);
-                }
+        return userLibraryService.getLibrary(userId);
+    }
+
+
+
+    public List<Book> getAvailableBooksExcludingUser(String userId) {
+        // Status and owner are answered by the bitmap index; only the matching rows are loaded
+        List<String> ids = bookFilterIndex.filter(null, Book.BookStatus.AVAILABLE, userId);
+        return findByIds(ids, null, null, null);
+    }
+
+    // Search-as-you-type: titles and authors starting with prefix, answered from memory
+    public List<BookSuggestion> suggestBooks(String prefix, int limit) {
+        return bookSuggestIndex.suggest(prefix, limit);
+    }
+
+
+
+    /**
+     * Unified search with all filters - supports status, year range, and user exclusion. With a text
+     * query it returns the limit most relevant matches, best first (BM25 over title, author and
+     * description); without one it returns every match in database order.
+     */
+    public List<Book> searchBooksWithAllFilters(String query, String category, String author, String status,
+                                               Integer yearFrom, Integer yearTo, String excludeUserId, int limit) {
+        Book.BookCategory categoryEnum = parseCategory(category);
+        Book.BookStatus statusEnum = parseStatus(status);
+
+        // Text query, category, status and owner are resolved in memory;
+        // the database only applies the author and year filters
+        if (query == null || query.isBlank()) {
+            return findByIds(bookFilterIndex.filter(categoryEnum, statusEnum, excludeUserId), author, yearFrom, yearTo);
+        }
+        List<String> ids = bookFilterIndex.filter(bookSearchIndex.search(query), categoryEnum, statusEnum, excludeUserId);
+        if (!hasDatabaseFilters(author, yearFrom, yearTo)) {
+            // Every filter was answered in memory, so only the best limit rows are loaded
+            List<String> best = bookSearchIndex.rank(query, ids, limit);
+            return inOrder(best, findByIds(best, null, null, null));
+        }
+        // Rank every candidate in memory; the database then only sees them best first, until limit pass
+        return findRanked(bookSearchIndex.rank(query, ids, ids.size()), author, yearFrom, yearTo, limit);
+    }
+
+    /**
+     * Typo-tolerant variant of searchBooksWithAllFilters: query words are matched against titles and
+     * authors, and the author filter against authors, within a small edit distance ("Tolkein" finds
+     * Tolkien). Results come back most similar first.
+     */
+    public List<Book> searchBooksFuzzy(String query, String category, String author, String status,
+                                       Integer yearFrom, Integer yearTo, String excludeUserId, int limit) {
+        List<String> ranked = fuzzyMatches(query, author);
+        if (ranked == null) {
+            return searchBooksWithAllFilters(query, category, author, status, yearFrom, yearTo, excludeUserId, limit);
+        }
+        Set<String> allowed = new HashSet<>(
+            bookFilterIndex.filter(ranked, parseCategory(category), parseStatus(status), excludeUserId));
+        List<String> ids = new ArrayList<>();
+        for (String id : ranked) {
+            if (allowed.contains(id)) {
+                ids.add(id);
             }
+        }
+        return findRanked(ids, null, yearFrom, yearTo, limit);
+    }
+
+    private static boolean hasDatabaseFilters(String author, Integer yearFrom, Integer yearTo) {
+        return (author != null && !author.isBlank()) || yearFrom != null || yearTo != null;
+    }
 
-            // Add borrowed/reserved books
-            for (Book book : borrowedReservedBooks) {
-                if (book != null && book.getId() != null && seenBookIds.add(book.getId())) {
-                    allBooks.add(book);
-                }
+    // The database returns rows in its own order; puts them back in the order of ids, dropping rows not listed
+    private static List<Book> inOrder(List<String> ids, List<Book> rows) {
+        Map<String, Book> byId = new HashMap<>();
+        for (Book book : rows) {
+            byId.put(book.getId(), book);
+        }
+        List<Book> books = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Book book = byId.get(id);
+            if (book != null) {
+                books.add(book);
             }
+        }
+        return books;
+    }
 
-            return allBooks;
-        } catch (Exception e) {
-            // Log the error and return only owned books as fallback
-            System.err.println("Error in getAllUserRelatedBooks: " + e.getMessage());
-            e.printStackTrace();
-            return bookRepository.findByOwnerId(userId);
+    // Ranked ids of books fuzzily matching the query and the author, or null if neither is given
+    private List<String> fuzzyMatches(String query, String author) {
+        boolean hasQuery = query != null && !query.isBlank();
+        boolean hasAuthor = author != null && !author.isBlank();
+        if (!hasQuery && !hasAuthor) {
+            return null;
+        }
+        if (!hasAuthor) {
+            return bookFuzzyIndex.search(query);
         }
+        List<String> byAuthor = bookFuzzyIndex.searchAuthors(author);
+        if (!hasQuery) {
+            return byAuthor;
+        }
+        Set<String> authorMatches = new HashSet<>(byAuthor);
+        List<String> ranked = new ArrayList<>();
+        for (String id : bookFuzzyIndex.search(query)) {
+            if (authorMatches.contains(id)) {
+                ranked.add(id);
+            }
+        }
+        return ranked;
     }
 
+    // The first limit of the ranked ids that pass the author and year filters, in rank order.
+    // Loads them best first in chunks that start at limit and double, stopping once limit rows pass
+    private List<Book> findRanked(List<String> rankedIds, String author, Integer yearFrom, Integer yearTo, int limit) {
+        List<Book> books = new ArrayList<>(limit);
+        int chunk = Math.min(limit, SEARCH_ID_BATCH_SIZE);
+        int from = 0;
+        while (from < rankedIds.size() && books.size() < limit) {
+            int to = Math.min(from + chunk, rankedIds.size());
+            List<String> batch = rankedIds.subList(from, to);
+            books.addAll(inOrder(batch, bookRepository.findByIdsWithAllFilters(batch, null, author, null,
+                                                                              yearFrom, yearTo, null)));
+            from = to;
+            chunk = Math.min(chunk * 2, SEARCH_ID_BATCH_SIZE);
+        }
+        return books.size() > limit ? new ArrayList<>(books.subList(0, limit)) : books;
+    }
 
+    // Loads books by id in IN (...) batches, applying the filters the in-memory indexes do not cover
+    private List<Book> findByIds(List<String> ids, String author, Integer yearFrom, Integer yearTo) {
+        List<Book> books = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += SEARCH_ID_BATCH_SIZE) {
+            List<String> batch = ids.subList(from, Math.min(from + SEARCH_ID_BATCH_SIZE, ids.size()));
+            books.addAll(bookRepository.findByIdsWithAllFilters(batch, null, author, null,
+                                                                yearFrom, yearTo, null));
+        }
+        return books;
+    }
 
-    public List<Book> getAvailableBooksExcludingUser(String userId) {
-        return bookRepository.findByStatusAndOwnerIdNot(Book.BookStatus.AVAILABLE, userId);
+    // Keyset-paged listing of the whole catalog, ordered by (createdAt, id)
+    public BookPage getBooksPage(String cursor, int size) {
+        BookCursor after = BookCursor.decode(cursor);
+        List<Book> rows = bookRepository.findPageAfter(
+            after != null ? after.getCreatedAt() : null,
+            after != null ? after.getId() : null,
+            PageRequest.of(0, size + 1));
+        return BookPage.of(rows, size);
     }
 
+    // Keyset-paged variant of searchBooksWithAllFilters
+    public BookPage searchBooksPage(String query, String category, String author, String status,
+                                    Integer yearFrom, Integer yearTo, String excludeUserId,
+                                    String cursor, int size) {
+        Book.BookCategory categoryEnum = parseCategory(category);
+        Book.BookStatus statusEnum = parseStatus(status);
+        BookCursor after = BookCursor.decode(cursor);
+        LocalDateTime afterCreatedAt = after != null ? after.getCreatedAt() : null;
+        String afterId = after != null ? after.getId() : null;
+        Pageable limit = PageRequest.of(0, size + 1);
+
+        if (query == null || query.isBlank()) {
+            return BookPage.of(bookRepository.searchPageWithAllFilters(categoryEnum, author, statusEnum,
+                yearFrom, yearTo, excludeUserId, afterCreatedAt, afterId, limit), size);
+        }
+
+        // Each id batch yields its own first size + 1 rows after the cursor; the overall page is the
+        // first size + 1 of their union in the same (createdAt, id) order
+        List<String> matchingIds = new ArrayList<>(bookSearchIndex.search(query));
+        List<Book> candidates = new ArrayList<>();
+        for (int from = 0; from < matchingIds.size(); from += SEARCH_ID_BATCH_SIZE) {
+            List<String> batch = matchingIds.subList(from, Math.min(from + SEARCH_ID_BATCH_SIZE, matchingIds.size()));
+            candidates.addAll(bookRepository.findPageByIdsWithAllFilters(batch, categoryEnum, author, statusEnum,
+                yearFrom, yearTo, excludeUserId, afterCreatedAt, afterId, limit));
+        }
+        candidates.sort(Comparator.comparing(Book::getCreatedAt).thenComparing(Book::getId));
+        return BookPage.of(candidates, size);
+    }
 
+    /**
+     * Facet counts for a search. One grouped query returns (category, status, year, count) rows for
+     * everything matching the text query, author and owner filters; each facet then sums those rows
+     * while applying every filter except its own.
+     */
+    public BookFacets getSearchFacets(String query, String category, String author, String status,
+                                      Integer yearFrom, Integer yearTo, String excludeUserId) {
+        return getSearchFacets(query, category, author, status, yearFrom, yearTo, excludeUserId, false);
+    }
 
-    // Unified search with all filters - supports status, year range, and user exclusion
-    public List<Book> searchBooksWithAllFilters(String query, String category, String author,
-                                               String status, Integer yearFrom, Integer yearTo, String excludeUserId) {
-        // Convert category string to enum
-        Book.BookCategory categoryEnum = null;
-        if (category != null && !category.trim().isEmpty() && !"All Categories".equals(category)) {
-            try {
-                categoryEnum = Book.BookCategory.fromDisplayName(category);
-            } catch (IllegalArgumentException e) {
-                categoryEnum = null;
+    // With fuzzy, counts the books searchBooksFuzzy would match instead
+    public BookFacets getSearchFacets(String query, String category, String author, String status,
+                                      Integer yearFrom, Integer yearTo, String excludeUserId, boolean fuzzy) {
+        Book.BookCategory categoryEnum = parseCategory(category);
+        Book.BookStatus statusEnum = parseStatus(status);
+
+        List<String> fuzzyIds = fuzzy ? fuzzyMatches(query, author) : null;
+        List<Object[]> groups = new ArrayList<>();
+        if (fuzzyIds != null) {
+            // The author was already matched fuzzily
+            for (int from = 0; from < fuzzyIds.size(); from += SEARCH_ID_BATCH_SIZE) {
+                List<String> batch = fuzzyIds.subList(from, Math.min(from + SEARCH_ID_BATCH_SIZE, fuzzyIds.size()));
+                groups.addAll(bookRepository.countFacetGroupsByIds(batch, null, excludeUserId));
+            }
+        } else if (query == null || query.isBlank()) {
+            groups.addAll(bookRepository.countFacetGroups(author, excludeUserId));
+        } else {
+            List<String> matchingIds = new ArrayList<>(bookSearchIndex.search(query));
+            for (int from = 0; from < matchingIds.size(); from += SEARCH_ID_BATCH_SIZE) {
+                List<String> batch = matchingIds.subList(from, Math.min(from + SEARCH_ID_BATCH_SIZE, matchingIds.size()));
+                groups.addAll(bookRepository.countFacetGroupsByIds(batch, author, excludeUserId));
             }
         }
 
-        // Convert status string to enum
-        Book.BookStatus statusEnum = null;
-        if (status != null && !status.trim().isEmpty() && !"All Statuses".equals(status)) {
-            try {
-                statusEnum = Book.BookStatus.valueOf(status.toUpperCase());
-            } catch (IllegalArgumentException e) {
-                statusEnum = null;
+        BookFacets facets = new BookFacets();
+        for (Book.BookCategory c : Book.BookCategory.values()) {
+            facets.getCategories().put(c.getDisplayName(), 0L);
+        }
+        for (Book.BookStatus s : Book.BookStatus.values()) {
+            facets.getStatuses().put(s.name(), 0L);
+        }
+        TreeMap<Integer, Long> decades = new TreeMap<>();
+
+        for (Object[] group : groups) {
+            Book.BookCategory rowCategory = (Book.BookCategory) group[0];
+            Book.BookStatus rowStatus = (Book.BookStatus) group[1];
+            Integer rowYear = (Integer) group[2];
+            long count = ((Number) group[3]).longValue();
+
+            boolean categoryMatches = categoryEnum == null || categoryEnum == rowCategory;
+            boolean statusMatches = statusEnum == null || statusEnum == rowStatus;
+            // Same rule as the search queries: books without a year pass the year range
+            boolean yearMatches = rowYear == null
+                || ((yearFrom == null || rowYear >= yearFrom) && (yearTo == null || rowYear <= yearTo));
+
+            if (rowCategory != null && statusMatches && yearMatches) {
+                facets.getCategories().merge(rowCategory.getDisplayName(), count, Long::sum);
+            }
+            if (rowStatus != null && categoryMatches && yearMatches) {
+                facets.getStatuses().merge(rowStatus.name(), count, Long::sum);
+            }
+            if (rowYear != null && categoryMatches && statusMatches) {
+                decades.merge(Math.floorDiv(rowYear, 10) * 10, count, Long::sum);
             }
         }
+        decades.forEach((decade, count) -> facets.getDecades().put(decade + "s", count));
+        return facets;
+    }
 
-        return bookRepository.searchBooksWithAllFilters(query, categoryEnum, author, statusEnum,
-                                                       yearFrom, yearTo, excludeUserId);
+    private Book.BookCategory parseCategory(String category) {
+        if (category == null || category.trim().isEmpty() || "All Categories".equals(category)) {
+            return null;
+        }
+        try {
+            return Book.BookCategory.fromDisplayName(category);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private Book.BookStatus parseStatus(String status) {
+        if (status == null || status.trim().isEmpty() || "All Statuses".equals(status)) {
+            return null;
+        }
+        try {
+            return Book.BookStatus.valueOf(status.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
     }
 
 
@@ -0,0 +1,11 @@
+package org.example.web.service;
+
+/**
+ * Thrown when a book's status changed between reading it and trying to move it to a new status,
+ * i.e. another request won the race. Controllers answer 409 Conflict.
+ */
+public class BookStatusConflictException extends RuntimeException {
+    public BookStatusConflictException(String bookId) {
+        super("Book " + bookId + " was borrowed, reserved or returned by another request, please refresh");
+    }
+}
@@ -0,0 +1,97 @@
+package org.example.web.service;
+
+import org.example.web.dto.BookChanges;
+import org.example.web.dto.SyncWatermark;
+import org.example.web.model.Book;
+import org.example.web.model.BookTombstone;
+import org.example.web.repository.BookRepository;
+import org.example.web.repository.BookTombstoneRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Delta sync of the book catalog: books changed after a client's watermark, plus tombstones of
+ * books deleted since then.
+ *
+ * The watermark is a (updatedAt, id) keyset position plus the time it was issued. A final batch does not advance it past
+ * now minus book.sync.overlap-ms, so rows written by transactions that committed late (with an
+ * updatedAt older than their commit) are still picked up by the next sync; clients upsert, so
+ * seeing a row twice is harmless.
+ */
+@Service
+public class BookSyncService {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookTombstoneRepository bookTombstoneRepository;
+
+    @Value("${book.sync.overlap-ms:5000}")
+    private long overlapMs;
+
+    @Value("${book.sync.tombstone-retention-days:30}")
+    private int tombstoneRetentionDays;
+
+    // Rows that predate updated_at start out as changed when they were created
+    @PostConstruct
+    public void backfillUpdatedAt() {
+        int updated = bookRepository.backfillUpdatedAt(LocalDateTime.now());
+        if (updated > 0) {
+            System.out.println("Backfilled updatedAt of " + updated + " books");
+        }
+    }
+
+    // Call in the transaction that deletes the book
+    public void bookDeleted(String bookId) {
+        bookTombstoneRepository.save(new BookTombstone(bookId, LocalDateTime.now()));
+    }
+
+    public BookChanges getChanges(String since, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        SyncWatermark after = SyncWatermark.decode(since);
+        // Deletions older than the retained tombstones cannot be replayed, so clients that last synced
+        // before then start over. The position itself may be older: snapshots walk books changed long ago.
+        boolean reset = after == null || after.getIssuedAt().isBefore(now.minusDays(tombstoneRetentionDays));
+        if (reset) {
+            after = null;
+        }
+
+        List<Book> rows = bookRepository.findChangedAfter(
+            after != null ? after.getUpdatedAt() : null,
+            after != null ? after.getId() : null,
+            PageRequest.of(0, limit + 1));
+        boolean hasMore = rows.size() > limit;
+        List<Book> updated = hasMore ? rows.subList(0, limit) : rows;
+
+        SyncWatermark watermark;
+        if (hasMore) {
+            Book last = updated.get(limit - 1);
+            watermark = new SyncWatermark(last.getUpdatedAt(), last.getId(), now);
+        } else {
+            watermark = new SyncWatermark(now.minusNanos(overlapMs * 1_000_000), "", now);
+        }
+
+        // A snapshot has nothing to delete; otherwise the deletions between the two watermarks
+        List<String> deleted = reset ? List.of()
+            : bookTombstoneRepository.findBookIdsDeletedBetween(after.getUpdatedAt(), watermark.getUpdatedAt());
+
+        return new BookChanges(updated, deleted, watermark.encode(), hasMore, reset);
+    }
+
+    @Scheduled(cron = "${book.sync.tombstone-purge-cron:0 45 3 * * *}")
+    public void purgeTombstones() {
+        int purged = bookTombstoneRepository.deleteOlderThan(LocalDateTime.now().minusDays(tombstoneRetentionDays));
+        if (purged > 0) {
+            System.out.println("Purged " + purged + " book tombstones");
+        }
+    }
+}
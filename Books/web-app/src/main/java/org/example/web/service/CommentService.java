@@ -1,5 +1,8 @@
 package org.example.web.service;
 
+import org.example.web.dto.BookCursor;
+import org.example.web.dto.CommentPage;
+import org.example.web.dto.UserEvent;
 import org.example.web.model.Book;
 import org.example.web.model.Comment;
 import org.example.web.model.User;
@@ -8,13 +11,25 @@ import org.example.web.repository.CommentRepository;
 import org.example.web.repository.UserRepository;
 import org.example.web.model.UserActionLog;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class CommentService {
 
+    // Deepest reply level; the nested thread endpoint renders every level, so it has to stay bounded
+    static final int MAX_REPLY_DEPTH = 50;
+
     @Autowired
     private CommentRepository commentRepository;
 
@@ -27,6 +42,58 @@ public class CommentService {
     @Autowired
     private UserActionLogService userActionLogService;
 
+    @Autowired
+    private BookCounterService bookCounterService;
+
+    @Autowired
+    private UserEventService userEventService;
+
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Fills depth and reply_count for comments saved before those columns existed
+    @PostConstruct
+    public void backfillThreadColumns() {
+        if (commentRepository.countWithoutThreadColumns() == 0) {
+            return;
+        }
+        List<Comment> all = commentRepository.findAll();
+        Map<String, String> parentIds = new HashMap<>();
+        for (Comment comment : all) {
+            parentIds.put(comment.getId(), comment.getParentComment() != null ? comment.getParentComment().getId() : null);
+        }
+        Map<String, Long> replyCounts = new HashMap<>();
+        for (Object[] row : commentRepository.countRepliesByParent()) {
+            replyCounts.put((String) row[0], ((Number) row[1]).longValue());
+        }
+        // Both columns arrived together, so a row without a reply count has no depth either
+        Map<String, Integer> depths = new HashMap<>();
+        List<Comment> changed = new ArrayList<>();
+        for (Comment comment : all) {
+            if (comment.isReplyCountMissing()) {
+                comment.setDepth(depthOf(comment.getId(), parentIds, depths));
+                comment.setReplyCount(replyCounts.getOrDefault(comment.getId(), 0L).intValue());
+                changed.add(comment);
+            }
+        }
+        commentRepository.saveAll(changed);
+        System.out.println("Backfilled thread columns for " + changed.size() + " comments");
+    }
+
+    private static int depthOf(String id, Map<String, String> parentIds, Map<String, Integer> depths) {
+        Integer cached = depths.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        String parentId = parentIds.get(id);
+        int depth = parentId == null ? 0 : depthOf(parentId, parentIds, depths) + 1;
+        depths.put(id, depth);
+        return depth;
+    }
+
     // Create a new top-level comment
     public Comment createComment(String content, String authorId, String bookId) {
         User author = userRepository.findById(authorId)
@@ -37,6 +104,9 @@ public class CommentService {
 
         Comment comment = new Comment(content, author, book);
         Comment savedComment = commentRepository.save(comment);
+        bookCounterService.commentAdded(bookId);
+        resourceVersionService.changed(ResourceVersionService.Table.COMMENTS);
+        notifyBookOwner(savedComment);
 
         // Log the comment creation action
         userActionLogService.logAction(UserActionLog.commentAdded(author, savedComment));
@@ -45,6 +115,7 @@ public class CommentService {
     }
 
     // Create a reply to an existing comment
+    @Transactional
     public Comment createReply(String content, String authorId, String parentCommentId) {
         User author = userRepository.findById(authorId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + authorId));
@@ -52,12 +123,18 @@ public class CommentService {
         Comment parentComment = commentRepository.findByIdAndNotDeleted(parentCommentId)
                 .orElseThrow(() -> new IllegalArgumentException("Parent comment not found with ID: " + parentCommentId));
 
+        if (parentComment.getDepth() >= MAX_REPLY_DEPTH) {
+            throw new IllegalArgumentException("Replies cannot be nested more than " + MAX_REPLY_DEPTH + " levels deep");
+        }
+
+        // Depth comes from the parent; the reply owns the parent_comment_id link,
+        // so the parent's replies collection is never loaded
         Comment reply = new Comment(content, author, parentComment.getBook(), parentComment);
         Comment savedReply = commentRepository.save(reply);
-
-        // Add the reply to the parent comment's replies list
-        parentComment.addReply(savedReply);
-        commentRepository.save(parentComment);
+        commentRepository.adjustReplyCount(parentCommentId, 1);
+        bookCounterService.commentAdded(savedReply.getBookId());
+        resourceVersionService.changed(ResourceVersionService.Table.COMMENTS);
+        notifyBookOwner(savedReply);
 
         // Log the comment reply action
         userActionLogService.logAction(UserActionLog.commentAdded(author, savedReply));
@@ -65,18 +142,86 @@ public class CommentService {
         return savedReply;
     }
 
+    // Tells the book's owner about a new comment, unless they wrote it themselves
+    private void notifyBookOwner(Comment comment) {
+        Book book = comment.getBook();
+        if (book == null || book.getOwner() == null || book.getOwner().getId().equals(comment.getAuthor().getId())) {
+            return;
+        }
+        userEventService.publish(book.getOwner().getId(), UserEvent.commentAdded(comment));
+    }
+
     // Get all top-level comments for a book
 
 
     // Get all comments for a book (including replies)
 
 
-    // Get top-level comments with their replies (nested structure)
+    /**
+     * Top-level comments with all their replies nested, at any depth. The thread is read in one
+     * query and assembled in memory; the entities are detached first so the assembled reply lists
+     * are never mistaken for changes to the mapped collection or lazily reloaded.
+     */
+    @Transactional(readOnly = true)
     public List<Comment> getTopLevelCommentsWithRepliesByBookId(String bookId) {
-        return commentRepository.findTopLevelCommentsWithRepliesByBookId(bookId);
+        List<Comment> thread = commentRepository.findThreadByBookId(bookId);
+        thread.forEach(entityManager::detach);
+        return assembleTree(thread);
     }
 
-    // Get replies to a specific comment
+    // Links each comment to its parent in O(n). Replies of comments missing from the list
+    // (deleted ones) are dropped with them, as before.
+    static List<Comment> assembleTree(List<Comment> comments) {
+        Map<String, Comment> byId = new HashMap<>(comments.size() * 2);
+        for (Comment comment : comments) {
+            comment.setReplies(new ArrayList<>());
+            byId.put(comment.getId(), comment);
+        }
+        List<Comment> roots = new ArrayList<>();
+        for (Comment comment : comments) {
+            String parentId = comment.getParentCommentId();
+            if (parentId == null) {
+                roots.add(comment);
+            } else {
+                Comment parent = byId.get(parentId);
+                if (parent != null) {
+                    parent.getReplies().add(comment);
+                }
+            }
+        }
+        return roots;
+    }
+
+    // One page of a book's top-level comments; each carries replyCount but not its replies
+    @Transactional(readOnly = true)
+    public CommentPage getTopLevelCommentsPage(String bookId, String cursor, int size) {
+        BookCursor after = BookCursor.decode(cursor);
+        List<Comment> rows = commentRepository.findTopLevelPageAfter(bookId,
+            after != null ? after.getCreatedAt() : null,
+            after != null ? after.getId() : null,
+            PageRequest.of(0, size + 1));
+        return CommentPage.of(withoutReplies(rows), size);
+    }
+
+    // One page of the direct replies to a comment, for expanding a thread on demand
+    @Transactional(readOnly = true)
+    public CommentPage getRepliesPage(String commentId, String cursor, int size) {
+        BookCursor after = BookCursor.decode(cursor);
+        List<Comment> rows = commentRepository.findRepliesPageAfter(commentId,
+            after != null ? after.getCreatedAt() : null,
+            after != null ? after.getId() : null,
+            PageRequest.of(0, size + 1));
+        return CommentPage.of(withoutReplies(rows), size);
+    }
+
+    // Detached with a null replies list, so serializing the page never loads a replies collection
+    private List<Comment> withoutReplies(List<Comment> comments) {
+        for (Comment comment : comments) {
+            entityManager.detach(comment);
+            comment.setReplies(null);
+        }
+        return comments;
+    }
 
 
 
@@ -94,10 +239,13 @@ public class CommentService {
         }
 
         comment.setContent(newContent);
-        return commentRepository.save(comment);
+        Comment saved = commentRepository.save(comment);
+        resourceVersionService.changed(ResourceVersionService.Table.COMMENTS);
+        return saved;
     }
 
     // Soft delete a comment (mark as deleted)
+    @Transactional
     public boolean deleteComment(String commentId, String authorId) {
         Comment comment = commentRepository.findByIdAndNotDeleted(commentId)
                 .orElseThrow(() -> new IllegalArgumentException("Comment not found with ID: " + commentId));
@@ -109,6 +257,11 @@ public class CommentService {
 
         comment.setDeleted(true);
         commentRepository.save(comment);
+        if (comment.getParentComment() != null) {
+            commentRepository.adjustReplyCount(comment.getParentComment().getId(), -1);
+        }
+        bookCounterService.commentRemoved(comment.getBookId());
+        resourceVersionService.changed(ResourceVersionService.Table.COMMENTS);
         return true;
     }
 
@@ -0,0 +1,189 @@
+package org.example.web.service;
+
+import org.example.web.dto.BookCursor;
+import org.example.web.dto.MessageDto;
+import org.example.web.dto.MessagePage;
+import org.example.web.model.Message;
+import org.example.web.model.UserMailboxEntry;
+import org.example.web.repository.MessageRepository;
+import org.example.web.repository.UserMailboxEntryRepository;
+import org.example.web.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.annotation.PostConstruct;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maintains the user_mailbox table and the per-user unread counters.
+ *
+ * Each message gets one mailbox entry per participant: the sender (already read), the recipient and
+ * the owner of the book. Reading the inbox is then an index range scan on (user_id, created_at), and
+ * the unread badge is a single column read instead of a COUNT. Counters only change through the
+ * same transaction that changes the entries' read state, so the two stay in step.
+ */
+@Service
+public class MailboxService {
+
+    @Autowired
+    private UserMailboxEntryRepository userMailboxEntryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    // Messages sent before the mailbox existed get their entries once; their read state is taken from the message
+    @PostConstruct
+    public void backfillIfEmpty() {
+        if (userMailboxEntryRepository.count() > 0 || messageRepository.count() == 0) {
+            return;
+        }
+        List<UserMailboxEntry> entries = new ArrayList<>();
+        for (Object[] row : messageRepository.findMailboxParticipants()) {
+            Message message = messageRepository.getReferenceById((String) row[0]);
+            LocalDateTime createdAt = (LocalDateTime) row[4];
+            boolean read = Boolean.TRUE.equals(row[5]);
+            for (Map.Entry<String, Boolean> participant : participants((String) row[1], (String) row[2], (String) row[3]).entrySet()) {
+                entries.add(new UserMailboxEntry(participant.getKey(), message, createdAt, participant.getValue() || read));
+            }
+        }
+        userMailboxEntryRepository.saveAll(entries);
+        recountUnread();
+        System.out.println("Backfilled " + entries.size() + " user mailbox entries");
+    }
+
+    // Participant user id -> whether their entry starts out read; the sender has always read their own message
+    private static Map<String, Boolean> participants(String senderId, String recipientId, String ownerId) {
+        Map<String, Boolean> participants = new LinkedHashMap<>();
+        if (senderId != null) {
+            participants.put(senderId, true);
+        }
+        if (recipientId != null) {
+            participants.putIfAbsent(recipientId, false);
+        }
+        if (ownerId != null) {
+            participants.putIfAbsent(ownerId, false);
+        }
+        return participants;
+    }
+
+    // Rebuilds every user's unread counter from the mailbox entries
+    public void recountUnread() {
+        userRepository.resetUnreadMessages();
+        for (Object[] row : userMailboxEntryRepository.countUnreadByUser()) {
+            userRepository.adjustUnreadMessages((String) row[0], ((Number) row[1]).longValue());
+        }
+    }
+
+    // Puts a newly saved message into the inbox of every participant; returns the users it is unread for
+    @Transactional
+    public List<String> deliver(Message message) {
+        String ownerId = message.getBook() != null && message.getBook().getOwner() != null
+            ? message.getBook().getOwner().getId() : null;
+        Map<String, Boolean> participants = participants(message.getSenderId(), message.getRecipientId(), ownerId);
+        List<String> unreadFor = new ArrayList<>();
+        for (Map.Entry<String, Boolean> participant : participants.entrySet()) {
+            boolean read = participant.getValue();
+            userMailboxEntryRepository.save(new UserMailboxEntry(participant.getKey(), message, message.getCreatedAt(), read));
+            if (!read) {
+                userRepository.adjustUnreadMessages(participant.getKey(), 1);
+                unreadFor.add(participant.getKey());
+            }
+        }
+        return unreadFor;
+    }
+
+    @Transactional
+    public boolean markRead(String userId, String messageId) {
+        int changed = userMailboxEntryRepository.markRead(userId, messageId);
+        if (changed > 0) {
+            userRepository.adjustUnreadMessages(userId, -changed);
+        }
+        return changed > 0;
+    }
+
+    @Transactional
+    public int markAllRead(String userId) {
+        int changed = userMailboxEntryRepository.markAllRead(userId);
+        if (changed > 0) {
+            userRepository.adjustUnreadMessages(userId, -changed);
+        }
+        return changed;
+    }
+
+    // A soft-deleted message no longer counts as unread for anyone
+    @Transactional
+    public void messageDeleted(Message message) {
+        List<Message> messages = List.of(message);
+        decrementUnread(messages);
+        userMailboxEntryRepository.markReadForMessages(messages);
+    }
+
+    // Drops the entries of messages about to be deleted, including the replies the delete cascades to;
+    // call before deleting the messages themselves
+    @Transactional
+    public void removeMessages(List<Message> roots) {
+        if (roots == null || roots.isEmpty()) {
+            return;
+        }
+        Set<Message> all = new LinkedHashSet<>();
+        Deque<Message> pending = new ArrayDeque<>(roots);
+        while (!pending.isEmpty()) {
+            Message message = pending.pop();
+            if (all.add(message)) {
+                pending.addAll(message.getReplies());
+            }
+        }
+        List<Message> messages = new ArrayList<>(all);
+        decrementUnread(messages);
+        userMailboxEntryRepository.deleteByMessages(messages);
+    }
+
+    // Drops a deleted user's own inbox; their counter goes with the user row
+    @Transactional
+    public void removeUser(String userId) {
+        userMailboxEntryRepository.deleteByUserId(userId);
+    }
+
+    private void decrementUnread(List<Message> messages) {
+        for (Object[] row : userMailboxEntryRepository.countUnreadByUserForMessages(messages)) {
+            userRepository.adjustUnreadMessages((String) row[0], -((Number) row[1]).longValue());
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public MessagePage getInboxPage(String userId, String cursor, int size) {
+        BookCursor before = BookCursor.decode(cursor);
+        return MessagePage.of(findInbox(userId, before, PageRequest.of(0, size + 1)), size);
+    }
+
+    @Transactional(readOnly = true)
+    public List<MessageDto> getInbox(String userId) {
+        return findInbox(userId, null, Pageable.unpaged());
+    }
+
+    public long getUnreadCount(String userId) {
+        return userRepository.findUnreadMessages(userId).orElse(0L);
+    }
+
+    private List<MessageDto> findInbox(String userId, BookCursor before, Pageable pageable) {
+        return userMailboxEntryRepository.findInboxPage(userId,
+            before != null ? before.getCreatedAt() : null,
+            before != null ? before.getId() : null,
+            pageable);
+    }
+}
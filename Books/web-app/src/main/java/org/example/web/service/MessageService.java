@@ -1,5 +1,7 @@
 package org.example.web.service;
 
+import org.example.web.dto.MessageDto;
+import org.example.web.dto.UserEvent;
 import org.example.web.model.Book;
 import org.example.web.model.Message;
 import org.example.web.model.User;
@@ -9,6 +11,7 @@ import org.example.web.repository.UserRepository;
 import org.example.web.model.UserActionLog;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -27,16 +30,24 @@ public class MessageService {
     @Autowired
     private UserActionLogService userActionLogService;
 
+    @Autowired
+    private MailboxService mailboxService;
+
+    @Autowired
+    private UserEventService userEventService;
 
 
 
 
-    public List<Message> getUserMessages(String userId) {
-        return messageRepository.findMessagesForUser(userId);
+
+    // Every message in the user's mailbox, newest first; isRead is the user's own read state
+    public List<MessageDto> getUserMessages(String userId) {
+        return mailboxService.getInbox(userId);
     }
 
 
 
+    @Transactional
     public boolean deleteMessage(String messageId, String userId) {
         Message message = messageRepository.findById(messageId)
                 .orElseThrow(() -> new RuntimeException("Message not found"));
@@ -50,12 +61,14 @@ public class MessageService {
         // Soft delete - mark as deleted but keep in database
         message.setDeleted(true);
         messageRepository.save(message);
+        mailboxService.messageDeleted(message);
         return true;
     }
 
 
 
     // New methods for the updated messaging system
+    @Transactional
     public Message sendMessage(String senderId, String bookId, String content, String parentMessageId, String recipientId) {
         User sender = userRepository.findById(senderId)
                 .orElseThrow(() -> new RuntimeException("Sender not found"));
@@ -89,6 +102,10 @@ public class MessageService {
         }
 
         Message savedMessage = messageRepository.save(message);
+        UserEvent event = UserEvent.messageReceived(new MessageDto(savedMessage));
+        for (String userId : mailboxService.deliver(savedMessage)) {
+            userEventService.publish(userId, event);
+        }
 
         // Log the message sent action
         userActionLogService.logAction(UserActionLog.messageSent(sender, savedMessage));
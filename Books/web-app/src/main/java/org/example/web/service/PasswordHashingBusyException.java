@@ -0,0 +1,11 @@
+package org.example.web.service;
+
+/**
+ * Thrown when the password hashing executor and its queue are full; callers should answer 503 and let
+ * the client retry instead of tying up a request thread.
+ */
+public class PasswordHashingBusyException extends RuntimeException {
+    public PasswordHashingBusyException() {
+        super("Too many login or registration requests right now, please retry shortly");
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.web.service;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-table modification counters that the ETags of the read endpoints are built from.
+ *
+ * Services call changed whenever they write one of the tables. Inside a transaction the counter
+ * only moves once the transaction commits, so a response can never carry the new version with the
+ * old rows. Controllers read the version before they query, so a race at worst tags new rows with
+ * the old version, which costs the client one extra full response and never a stale one.
+ * The counters are kept in memory; every tag also carries the startup time, so tags handed out
+ * before a restart never match afterwards.
+ */
+@Service
+public class ResourceVersionService {
+
+    public enum Table { BOOKS, COMMENTS, USER_ACTIONS }
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Table, AtomicLong> versions = new EnumMap<>(Table.class);
+
+    public ResourceVersionService() {
+        for (Table table : Table.values()) {
+            versions.put(table, new AtomicLong());
+        }
+    }
+
+    public long version(Table table) {
+        return versions.get(table).get();
+    }
+
+    public void changed(Table table) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    versions.get(table).incrementAndGet();
+                }
+            });
+        } else {
+            versions.get(table).incrementAndGet();
+        }
+    }
+
+    /**
+     * Quoted entity tag for a response built from table. variants are whatever else shapes the response
+     * besides its URL, such as the current user; they are hashed into the tag.
+     */
+    public String etag(Table table, Object... variants) {
+        String tag = table.name().toLowerCase() + "-" + epoch + "-" + version(table);
+        if (variants.length > 0) {
+            tag += "-" + Integer.toHexString(Arrays.hashCode(variants));
+        }
+        return "\"" + tag + "\"";
+    }
+}
@@ -1,5 +1,6 @@
 package org.example.web.service;
 
+import org.example.web.dto.UserEvent;
 import org.example.web.model.Book;
 import org.example.web.model.Transaction;
 import org.example.web.model.User;
@@ -7,8 +8,13 @@ import org.example.web.repository.BookRepository;
 import org.example.web.repository.TransactionRepository;
 import org.example.web.repository.UserRepository;
 import org.example.web.model.UserActionLog;
+import org.example.web.model.UserLibraryEntry;
+import org.example.web.search.BookFilterIndex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 
@@ -28,10 +34,26 @@ public class TransactionService {
     @Autowired
     private UserActionLogService userActionLogService;
 
+    @Autowired
+    private BookFilterIndex bookFilterIndex;
+
+    @Autowired
+    private UserLibraryService userLibraryService;
+
+    @Autowired
+    private BookCounterService bookCounterService;
+
+    @Autowired
+    private UserEventService userEventService;
+
+    @Autowired
+    private ResourceVersionService resourceVersionService;
 
 
 
 
+
+    @Transactional
     public Transaction borrowBook(String bookId, String userId) {
         Book book = bookRepository.findById(bookId)
                 .orElseThrow(() -> new RuntimeException("Book not found"));
@@ -65,9 +87,13 @@ public class TransactionService {
         }
 
         User lender = book.getOwner();
+        Book.BookStatus previousStatus = book.getStatus();
+
+        // Claim the book before any other writes; a concurrent borrower that read the same status loses here
+        claimStatus(book, Book.BookStatus.BORROWED);
 
         // If book was reserved, complete the reservation transaction first
-        if (book.getStatus() == Book.BookStatus.RESERVED) {
+        if (previousStatus == Book.BookStatus.RESERVED) {
             List<Transaction> activeReservations = transactionRepository.findByBookAndStatus(
                 book, Transaction.TransactionStatus.ACTIVE);
 
@@ -75,6 +101,8 @@ public class TransactionService {
                 if (reservation.getType() == Transaction.TransactionType.RESERVE) {
                     reservation.setStatus(Transaction.TransactionStatus.COMPLETED);
                     transactionRepository.save(reservation);
+                    userLibraryService.remove(reservation.getBorrower().getId(), book.getId(), UserLibraryEntry.Role.RESERVED);
+                    bookCounterService.reservationEnded(book.getId());
                 }
             }
         }
@@ -83,11 +111,9 @@ public class TransactionService {
         Transaction transaction = new Transaction(book, borrower, lender, Transaction.TransactionType.BORROW);
         transaction.setStatus(Transaction.TransactionStatus.ACTIVE);
 
-        // Update book status
-        book.setStatus(Book.BookStatus.BORROWED);
-        bookRepository.save(book);
-
         Transaction savedTransaction = transactionRepository.save(transaction);
+        userLibraryService.add(borrower.getId(), book, UserLibraryEntry.Role.BORROWED);
+        bookCounterService.borrowed(book.getId());
 
         // Log the book borrow action
         userActionLogService.logAction(UserActionLog.bookBorrowed(borrower, book));
@@ -95,6 +121,7 @@ public class TransactionService {
         return savedTransaction;
     }
 
+    @Transactional
     public Transaction reserveBook(String bookId, String userId) {
         Book book = bookRepository.findById(bookId)
                 .orElseThrow(() -> new RuntimeException("Book not found"));
@@ -114,15 +141,15 @@ public class TransactionService {
 
         User lender = book.getOwner();
 
+        claimStatus(book, Book.BookStatus.RESERVED);
+
         // Create transaction
         Transaction transaction = new Transaction(book, borrower, lender, Transaction.TransactionType.RESERVE);
         transaction.setStatus(Transaction.TransactionStatus.ACTIVE);
 
-        // Update book status
-        book.setStatus(Book.BookStatus.RESERVED);
-        bookRepository.save(book);
-
         Transaction savedTransaction = transactionRepository.save(transaction);
+        userLibraryService.add(borrower.getId(), book, UserLibraryEntry.Role.RESERVED);
+        bookCounterService.reservationStarted(book.getId());
 
         // Log the book reserve action
         userActionLogService.logAction(UserActionLog.bookReserved(borrower, book));
@@ -130,6 +157,7 @@ public class TransactionService {
         return savedTransaction;
     }
 
+    @Transactional
     public Transaction returnBook(String bookId) {
         Book book = bookRepository.findById(bookId)
                 .orElseThrow(() -> new RuntimeException("Book not found"));
@@ -142,14 +170,20 @@ public class TransactionService {
             throw new RuntimeException("No active transaction found for this book");
         }
 
+        // Update book status back to available; a concurrent return of the same book loses here
+        claimStatus(book, Book.BookStatus.AVAILABLE);
+
         Transaction transaction = activeTransactions.get(0);
         transaction.setStatus(Transaction.TransactionStatus.COMPLETED);
 
-        // Update book status back to available
-        book.setStatus(Book.BookStatus.AVAILABLE);
-        bookRepository.save(book);
-
         Transaction savedTransaction = transactionRepository.save(transaction);
+        UserLibraryEntry.Role role = UserLibraryEntry.Role.forTransaction(transaction.getType());
+        if (role != null) {
+            userLibraryService.remove(transaction.getBorrower().getId(), book.getId(), role);
+        }
+        if (transaction.getType() == Transaction.TransactionType.RESERVE) {
+            bookCounterService.reservationEnded(book.getId());
+        }
 
         // Log the book return action
         userActionLogService.logAction(UserActionLog.bookReturned(transaction.getBorrower(), book));
@@ -182,4 +216,22 @@ public class TransactionService {
         );
         return userRepository.save(defaultUser);
     }
+
+    // Compare-and-set from the status this request read to newStatus; throws if another request got there first
+    private void claimStatus(Book book, Book.BookStatus newStatus) {
+        if (bookRepository.compareAndSetStatus(book.getId(), book.getStatus(), newStatus) == 0) {
+            throw new BookStatusConflictException(book.getId());
+        }
+        book.setStatus(newStatus);
+        resourceVersionService.changed(ResourceVersionService.Table.BOOKS);
+        // Only publish the new status to the filter index once it is committed
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                bookFilterIndex.index(book);
+            }
+        });
+        // Every connected client may show the book in its browse table, so all of them get the change
+        userEventService.broadcast(UserEvent.bookStatusChanged(book));
+    }
 }
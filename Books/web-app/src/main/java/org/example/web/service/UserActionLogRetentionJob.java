@@ -0,0 +1,45 @@
+package org.example.web.service;
+
+import org.example.web.repository.UserActionLogRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Keeps user_action_logs bounded. Raw rows are grouped into one logical partition per day; every day
+ * older than audit.log.retention-days is compacted into UserActionDailyRollup rows and its raw rows
+ * are dropped, one day per transaction.
+ */
+@Component
+public class UserActionLogRetentionJob {
+
+    @Autowired
+    private UserActionLogService userActionLogService;
+
+    @Autowired
+    private UserActionLogRepository userActionLogRepository;
+
+    @Value("${audit.log.retention-days:90}")
+    private int retentionDays;
+
+    @Scheduled(cron = "${audit.log.rollup-cron:0 30 3 * * *}")
+    public void compactExpiredDays() {
+        LocalDate cutoff = LocalDate.now().minusDays(retentionDays);
+        LocalDateTime oldest = userActionLogRepository.findOldestTimestamp();
+        if (oldest == null) {
+            return;
+        }
+        for (LocalDate day = oldest.toLocalDate(); day.isBefore(cutoff); day = day.plusDays(1)) {
+            try {
+                userActionLogService.compactDay(day);
+            } catch (Exception e) {
+                // Leave this day for the next run and carry on with the rest
+                System.err.println("Failed to compact user actions for " + day + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -1,12 +1,29 @@
 package org.example.web.service;
 
+import org.example.web.model.UserActionDailyRollup;
 import org.example.web.model.UserActionLog;
+import org.example.web.repository.UserActionDailyRollupRepository;
 import org.example.web.repository.UserActionLogRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 public class UserActionLogService {
@@ -14,27 +31,150 @@ public class UserActionLogService {
     @Autowired
     private UserActionLogRepository userActionLogRepository;
 
+    @Autowired
+    private UserActionLogWriter userActionLogWriter;
+
+    @Autowired
+    private UserActionDailyRollupRepository userActionDailyRollupRepository;
+
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
+    // Window used when a caller does not give one
+    @Value("${audit.log.query-window-days:30}")
+    private int queryWindowDays;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     /**
-     * Log a user action
+     * Log a user action. The entry is queued and written in the background by UserActionLogWriter,
+     * so the returned action has no id yet.
      */
-    @Transactional
     public UserActionLog logAction(UserActionLog action) {
-        return userActionLogRepository.save(action);
+        userActionLogWriter.enqueue(action);
+        return action;
     }
 
     /**
-     * Get all user actions (most recent first)
+     * Get user actions from the default window (most recent first)
      */
     public List<UserActionLog> getAllActions() {
-        return userActionLogRepository.findAllByOrderByTimestampDesc();
+        return getActions(null, null);
     }
 
     /**
-     * Get actions by type
+     * Get user actions in [from, to) (most recent first); missing bounds fall back to the default window
+     */
+    public List<UserActionLog> getActions(LocalDateTime from, LocalDateTime to) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now().plusSeconds(1);
+        LocalDateTime start = from != null ? from : end.minusDays(queryWindowDays);
+        return userActionLogRepository.findInWindow(start, end);
+    }
+
+    /**
+     * Get actions by type from the default window
      */
     public List<UserActionLog> getActionsByType(String actionType) {
-        return userActionLogRepository.findByActionTypeOrderByTimestampDesc(actionType);
+        return getActionsByType(actionType, null, null);
+    }
+
+    public List<UserActionLog> getActionsByType(String actionType, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now().plusSeconds(1);
+        LocalDateTime start = from != null ? from : end.minusDays(queryWindowDays);
+        return userActionLogRepository.findByTypeInWindow(actionType, start, end);
+    }
+
+    /**
+     * Per-day counts for days that have been compacted by the retention job
+     */
+    public List<UserActionDailyRollup> getDailyRollups(LocalDate fromDay, LocalDate toDay, String actionType) {
+        LocalDate end = toDay != null ? toDay : LocalDate.now();
+        LocalDate start = fromDay != null ? fromDay : end.minusDays(queryWindowDays);
+        return userActionDailyRollupRepository.findInWindow(start, end, blankToNull(actionType));
+    }
+
+    /**
+     * Fold one day of raw actions into per-actionType, per-user rollup rows, then delete the raw rows.
+     * Runs in one transaction, so a failure leaves the day untouched. Re-running a day adds to the
+     * existing rollup counts, which only happens if raw rows for that day arrived after it was compacted.
+     */
+    @Transactional
+    public int compactDay(LocalDate day) {
+        LocalDateTime from = day.atStartOfDay();
+        LocalDateTime to = day.plusDays(1).atStartOfDay();
+
+        for (Object[] group : userActionLogRepository.countByTypeAndUserInWindow(from, to)) {
+            String actionType = (String) group[0];
+            String userId = (String) group[1];
+            String userName = (String) group[2];
+            long count = ((Number) group[3]).longValue();
+
+            UserActionDailyRollup rollup = userActionDailyRollupRepository
+                .findByDayAndActionTypeAndUserId(day, actionType, userId)
+                .orElseGet(() -> new UserActionDailyRollup(day, actionType, userId, userName, 0));
+            rollup.setActionCount(rollup.getActionCount() + count);
+            userActionDailyRollupRepository.save(rollup);
+        }
+        resourceVersionService.changed(ResourceVersionService.Table.USER_ACTIONS);
+        return userActionLogRepository.deleteInWindow(from, to);
     }
 
+    /**
+     * Write matching actions (most recent first) to out as NDJSON or CSV, one row at a time.
+     * Rows come from a forward-only cursor and are detached once written, so memory use does
+     * not grow with the size of the table.
+     */
+    @Transactional(readOnly = true)
+    public void exportActions(String actionType, String userName, String format, OutputStream out) throws IOException {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (csv) {
+            writer.write("timestamp,userId,userName,actionType,description,targetId,targetType");
+            writer.newLine();
+        }
+        try (Stream<UserActionLog> actions = userActionLogRepository.streamForExport(blankToNull(actionType), blankToNull(userName))) {
+            actions.forEach(action -> {
+                try {
+                    if (csv) {
+                        writer.write(String.join(",",
+                            csvField(action.getTimestamp() != null ? action.getTimestamp().toString() : null),
+                            csvField(action.getUserId()),
+                            csvField(action.getUserName()),
+                            csvField(action.getActionType()),
+                            csvField(action.getDescription()),
+                            csvField(action.getTargetId()),
+                            csvField(action.getTargetType())));
+                    } else {
+                        writer.write(objectMapper.writeValueAsString(action));
+                    }
+                    writer.newLine();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                entityManager.detach(action);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
 
+    // RFC 4180 quoting: wrap in quotes when needed and double any embedded quotes
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
 }
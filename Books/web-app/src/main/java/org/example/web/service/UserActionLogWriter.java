@@ -0,0 +1,255 @@
+package org.example.web.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.example.web.model.UserActionLog;
+import org.example.web.repository.UserActionLogRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Writes user action logs off the request thread.
+ *
+ * logAction only puts the entry on a bounded queue; inside a transaction that happens once it
+ * commits, so a rolled-back change leaves no audit entry. A single background thread drains it and
+ * saves entries in batches, flushing when a batch is full or flush-interval-ms has passed since
+ * the first entry of the batch arrived. What happens when the queue is full is set by
+ * audit.log.backpressure:
+ *   block - wait for room (the caller slows down, nothing is lost)
+ *   drop  - discard the entry and count it
+ *   spill - append the entry to audit.log.spill-file; spilled entries are loaded on next startup
+ * Batches that fail to save are spilled too. On shutdown the queue is drained before returning.
+ */
+@Component
+public class UserActionLogWriter {
+
+    public enum BackpressurePolicy { BLOCK, DROP, SPILL }
+
+    @Autowired
+    private UserActionLogRepository userActionLogRepository;
+
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
+    @Value("${audit.log.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${audit.log.batch-size:100}")
+    private int batchSize;
+
+    @Value("${audit.log.flush-interval-ms:500}")
+    private long flushIntervalMs;
+
+    @Value("${audit.log.backpressure:block}")
+    private String backpressure;
+
+    @Value("${audit.log.spill-file:./audit-spill.ndjson}")
+    private String spillFile;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final AtomicLong dropped = new AtomicLong();
+
+    private BlockingQueue<UserActionLog> queue;
+    private BackpressurePolicy policy;
+    private Thread drainer;
+    private volatile boolean running;
+    // Enqueuers hold the read lock from their running check until the entry is queued, so once
+    // shutdown has taken the write lock every queued entry is seen by the final drain
+    private final ReadWriteLock stopLock = new ReentrantReadWriteLock();
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        policy = BackpressurePolicy.valueOf(backpressure.trim().toUpperCase());
+        replaySpill();
+
+        running = true;
+        drainer = new Thread(this::drainLoop, "user-action-log-writer");
+        drainer.start();
+    }
+
+    // Flushes everything still queued; called by Spring on a graceful stop
+    @PreDestroy
+    public void shutdown() {
+        stopLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            stopLock.writeLock().unlock();
+        }
+        if (drainer != null) {
+            try {
+                drainer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Anything enqueued after the drainer exited
+        List<UserActionLog> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        flush(rest);
+    }
+
+    public void enqueue(UserActionLog action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    queue(action);
+                }
+            });
+        } else {
+            queue(action);
+        }
+    }
+
+    private void queue(UserActionLog action) {
+        stopLock.readLock().lock();
+        try {
+            if (running) {
+                if (!queue.offer(action)) {
+                    overflow(action);
+                }
+                return;
+            }
+        } finally {
+            stopLock.readLock().unlock();
+        }
+        // Not started yet or already shut down: write through
+        flush(new ArrayList<>(List.of(action)));
+    }
+
+    private void overflow(UserActionLog action) {
+        switch (policy) {
+            case BLOCK -> {
+                try {
+                    // The drainer keeps running until shutdown gets the write lock, so this always gets room
+                    queue.put(action);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    spill(List.of(action));
+                }
+            }
+            case DROP -> dropped.incrementAndGet();
+            case SPILL -> spill(List.of(action));
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private void drainLoop() {
+        List<UserActionLog> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                UserActionLog first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                        break;
+                    }
+                    UserActionLog next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Stop waiting; whatever is in the batch is flushed below and the loop drains the rest
+                running = false;
+            }
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    // saveAll runs in one transaction, and hibernate.jdbc.batch_size turns it into batched inserts
+    private void flush(List<UserActionLog> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            userActionLogRepository.saveAll(batch);
+            resourceVersionService.changed(ResourceVersionService.Table.USER_ACTIONS);
+        } catch (Exception e) {
+            System.err.println("Failed to write " + batch.size() + " user action logs, spilling to file: " + e.getMessage());
+            spill(batch);
+        }
+    }
+
+    private synchronized void spill(List<UserActionLog> actions) {
+        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(spillFile), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (UserActionLog action : actions) {
+                writer.write(objectMapper.writeValueAsString(action));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            dropped.addAndGet(actions.size());
+            System.err.println("Failed to spill " + actions.size() + " user action logs: " + e.getMessage());
+        }
+    }
+
+    // Saves entries spilled by a previous run, then removes the file
+    private void replaySpill() {
+        Path path = Paths.get(spillFile);
+        if (!Files.exists(path)) {
+            return;
+        }
+        List<UserActionLog> batch = new ArrayList<>(batchSize);
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                UserActionLog action = objectMapper.readValue(line, UserActionLog.class);
+                action.setId(null);
+                batch.add(action);
+                if (batch.size() >= batchSize) {
+                    userActionLogRepository.saveAll(batch);
+                    batch.clear();
+                }
+            }
+            userActionLogRepository.saveAll(batch);
+            Files.delete(path);
+        } catch (Exception e) {
+            // Leave the file in place so nothing is lost; it is retried on the next startup
+            System.err.println("Failed to replay spilled user action logs from " + path + ": " + e.getMessage());
+        }
+    }
+}
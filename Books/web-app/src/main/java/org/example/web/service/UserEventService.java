@@ -0,0 +1,137 @@
+package org.example.web.service;
+
+import org.example.web.dto.UserEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PreDestroy;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Pushes UserEvents to the Server-Sent Events streams of connected users.
+ *
+ * A user may have several streams open (one per running client). Events published inside a
+ * transaction are only sent once it commits. Sending happens on one background thread, so a
+ * request that publishes never waits on a slow client, and each stream receives events in the
+ * order they were published. A comment heartbeat every events.heartbeat-interval-ms finds
+ * streams whose client went away.
+ */
+@Service
+public class UserEventService {
+
+    @Value("${events.stream-timeout-ms:1800000}")
+    private long streamTimeoutMs;
+
+    private final Map<String, List<SseEmitter>> emitters = new ConcurrentHashMap<>();
+
+    private final ExecutorService sender = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "user-events");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Opens a stream for the user; the client reconnects when it times out
+    public SseEmitter subscribe(String userId) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        emitters.computeIfAbsent(userId, id -> new CopyOnWriteArrayList<>()).add(emitter);
+        emitter.onCompletion(() -> remove(userId, emitter));
+        emitter.onTimeout(() -> remove(userId, emitter));
+        emitter.onError(e -> remove(userId, emitter));
+        return emitter;
+    }
+
+    // Sends the event to every stream of one user
+    public void publish(String userId, UserEvent event) {
+        if (userId == null) {
+            return;
+        }
+        afterCommit(() -> {
+            List<SseEmitter> streams = emitters.get(userId);
+            if (streams != null) {
+                for (SseEmitter emitter : streams) {
+                    send(userId, emitter, event);
+                }
+            }
+        });
+    }
+
+    // Sends the event to every connected user
+    public void broadcast(UserEvent event) {
+        afterCommit(() -> emitters.forEach((userId, streams) -> {
+            for (SseEmitter emitter : streams) {
+                send(userId, emitter, event);
+            }
+        }));
+    }
+
+    @Scheduled(fixedDelayString = "${events.heartbeat-interval-ms:25000}")
+    public void heartbeat() {
+        sender.execute(() -> emitters.forEach((userId, streams) -> {
+            for (SseEmitter emitter : streams) {
+                try {
+                    emitter.send(SseEmitter.event().comment("keep-alive"));
+                } catch (IOException | IllegalStateException e) {
+                    drop(userId, emitter);
+                }
+            }
+        }));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        emitters.values().forEach(streams -> streams.forEach(SseEmitter::complete));
+        emitters.clear();
+    }
+
+    private void afterCommit(Runnable send) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    sender.execute(send);
+                }
+            });
+        } else {
+            sender.execute(send);
+        }
+    }
+
+    // Runs on the sender thread
+    private void send(String userId, SseEmitter emitter, UserEvent event) {
+        try {
+            emitter.send(SseEmitter.event().name(event.getType().name()).data(event, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            drop(userId, emitter);
+        }
+    }
+
+    // A stream that failed to write is closed for good; the client reconnects if it is still there
+    private void drop(String userId, SseEmitter emitter) {
+        remove(userId, emitter);
+        try {
+            emitter.completeWithError(new IOException("Event stream closed"));
+        } catch (IllegalStateException ignored) {
+            // Already completed
+        }
+    }
+
+    private void remove(String userId, SseEmitter emitter) {
+        emitters.computeIfPresent(userId, (id, streams) -> {
+            streams.remove(emitter);
+            return streams.isEmpty() ? null : streams;
+        });
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.web.service;
+
+import org.example.web.model.Book;
+import org.example.web.model.Transaction;
+import org.example.web.model.UserLibraryEntry;
+import org.example.web.repository.BookRepository;
+import org.example.web.repository.TransactionRepository;
+import org.example.web.repository.UserLibraryEntryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.annotation.PostConstruct;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maintains the user_library projection: for each user, the books they own, borrow or reserve.
+ *
+ * Writes join the caller's transaction, so an entry appears or disappears together with the book
+ * or transaction change that caused it. On startup an empty table is filled from books and
+ * active transactions, which covers databases created before the projection existed.
+ */
+@Service
+public class UserLibraryService {
+
+    @Autowired
+    private UserLibraryEntryRepository userLibraryEntryRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @PostConstruct
+    public void backfillIfEmpty() {
+        if (userLibraryEntryRepository.count() > 0) {
+            return;
+        }
+        List<UserLibraryEntry> entries = new ArrayList<>();
+        for (Book book : bookRepository.findAll()) {
+            if (book.getOwner() != null) {
+                entries.add(new UserLibraryEntry(book.getOwner().getId(), book, UserLibraryEntry.Role.OWNED));
+            }
+        }
+        for (Transaction transaction : transactionRepository.findByStatus(Transaction.TransactionStatus.ACTIVE)) {
+            UserLibraryEntry.Role role = UserLibraryEntry.Role.forTransaction(transaction.getType());
+            if (role != null && transaction.getBook() != null && transaction.getBorrower() != null) {
+                entries.add(new UserLibraryEntry(transaction.getBorrower().getId(), transaction.getBook(), role));
+            }
+        }
+        if (!entries.isEmpty()) {
+            userLibraryEntryRepository.saveAll(entries);
+            System.out.println("Backfilled " + entries.size() + " user library entries");
+        }
+    }
+
+    public List<Book> getLibrary(String userId) {
+        return userLibraryEntryRepository.findBooksByUserId(userId);
+    }
+
+    @Transactional
+    public void add(String userId, Book book, UserLibraryEntry.Role role) {
+        if (!userLibraryEntryRepository.existsByUserIdAndBookIdAndRole(userId, book.getId(), role)) {
+            userLibraryEntryRepository.save(new UserLibraryEntry(userId, book, role));
+        }
+    }
+
+    @Transactional
+    public void remove(String userId, String bookId, UserLibraryEntry.Role role) {
+        userLibraryEntryRepository.deleteEntry(userId, bookId, role);
+    }
+
+    // Must run before the book row is deleted (book_id is a foreign key)
+    @Transactional
+    public void removeBook(String bookId) {
+        userLibraryEntryRepository.deleteByBookId(bookId);
+    }
+
+    @Transactional
+    public void removeUser(String userId) {
+        userLibraryEntryRepository.deleteByUserId(userId);
+    }
+}
@@ -4,11 +4,14 @@ import org.example.web.model.User;
 import org.example.web.repository.UserRepository;
 import org.example.web.dto.RegisterRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
 
@@ -18,22 +21,31 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    // Spring Boot's shared task pool; the insert after hashing runs here so it never holds a BCrypt worker
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor taskExecutor;
+
     private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
 
-    public User authenticateUser(String username, String password) {
+    // Completes with the user, or null for bad credentials. BCrypt runs on PasswordHashingService's pool,
+    // which throws PasswordHashingBusyException straight away when it is saturated.
+    public CompletableFuture<User> authenticateUser(String username, String password) {
         Optional<User> userOpt = userRepository.findByUsername(username);
-        if (userOpt.isPresent()) {
-            User user = userOpt.get();
-            // Use BCrypt to verify password
-            if (passwordEncoder.matches(password, user.getPassword())) {
-                return user;
-            }
+        if (userOpt.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
         }
-        return null;
+        User user = userOpt.get();
+        return passwordHashingService.matches(password, user.getPassword())
+                .thenApply(matches -> matches ? user : null);
     }
 
-    // Register a new user from a RegisterRequest DTO
-    public User registerUser(RegisterRequest req) {
+    // Register a new user from a RegisterRequest DTO; the password is hashed on the hashing pool and
+    // the user saved on the task pool once the hash is ready
+    public CompletableFuture<User> registerUser(RegisterRequest req) {
         // Basic uniqueness checks
         if (userRepository.findByUsername(req.getUsername()).isPresent()) {
             throw new RuntimeException("Username already exists");
@@ -49,18 +61,19 @@ public class UserService {
             throw new RuntimeException("Invalid dateOfBirth format. Expected yyyy-MM-dd");
         }
 
-        User user = new User(
-                req.getUsername(),
-                passwordEncoder.encode(req.getPassword()),
-                req.getFirstName(),
-                req.getLastName(),
-                req.getEmail(),
-                req.getPhone(),
-                dob,
-                User.UserType.REGULAR_USER
-        );
-
-        return userRepository.save(user);
+        return passwordHashingService.encode(req.getPassword()).thenApplyAsync(hash -> {
+            User user = new User(
+                    req.getUsername(),
+                    hash,
+                    req.getFirstName(),
+                    req.getLastName(),
+                    req.getEmail(),
+                    req.getPhone(),
+                    dob,
+                    User.UserType.REGULAR_USER
+            );
+            return userRepository.save(user);
+        }, taskExecutor);
     }
 
 
@@ -51,7 +51,7 @@ class BookControllerMockMvcTest {
     void searchBooks_returnsFilteredList() throws Exception {
         Book bookB = new Book();
         bookB.setTitle("Book B");
-        when(bookService.searchBooksWithAllFilters(any(), any(), any(), any(), any(), any(), any())).thenReturn(List.of(bookB));
+        when(bookService.searchBooksWithAllFilters(any(), any(), any(), any(), any(), any(), any(), anyInt())).thenReturn(List.of(bookB));
         mockMvc.perform(get("/books/search?query=Book B"))
                 .andExpect(status().isOk())
                 .andExpect(content().string(org.hamcrest.Matchers.containsString("Book B")));
@@ -5,6 +5,11 @@ import org.example.web.model.User;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @DataJpaTest
@@ -22,5 +27,79 @@ class BookRepositoryTest {
         assertNotNull(saved.getId());
         assertEquals("JUnit Book", saved.getTitle());
     }
-}
 
+    @Test
+    void testFindPageAfterSeeksPastCursor() {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 12, 0);
+        for (int i = 0; i < 3; i++) {
+            Book book = new Book();
+            book.setTitle("Paged " + i);
+            book.setAuthor("Author");
+            book.setCreatedAt(base.plusMinutes(i));
+            bookRepository.save(book);
+        }
+
+        List<Book> first = bookRepository.findPageAfter(null, null, PageRequest.of(0, 2));
+        assertEquals(List.of("Paged 0", "Paged 1"), first.stream().map(Book::getTitle).toList());
+
+        Book last = first.get(1);
+        List<Book> second = bookRepository.findPageAfter(last.getCreatedAt(), last.getId(), PageRequest.of(0, 2));
+        assertEquals(List.of("Paged 2"), second.stream().map(Book::getTitle).toList());
+    }
+
+    @Test
+    void testCountFacetGroupsGroupsByCategoryStatusAndYear() {
+        for (int i = 0; i < 2; i++) {
+            Book book = new Book();
+            book.setTitle("Facet " + i);
+            book.setAuthor("Facet Author");
+            book.setCategory(Book.BookCategory.FICTION);
+            book.setPublicationYear(1965);
+            bookRepository.save(book);
+        }
+        Book other = new Book();
+        other.setTitle("Facet 2");
+        other.setAuthor("Facet Author");
+        other.setCategory(Book.BookCategory.FICTION);
+        other.setStatus(Book.BookStatus.BORROWED);
+        other.setPublicationYear(1965);
+        bookRepository.save(other);
+
+        List<Object[]> groups = bookRepository.countFacetGroups("facet author", null);
+        assertEquals(2, groups.size());
+        for (Object[] group : groups) {
+            assertEquals(Book.BookCategory.FICTION, group[0]);
+            assertEquals(1965, group[2]);
+            long expected = group[1] == Book.BookStatus.AVAILABLE ? 2L : 1L;
+            assertEquals(expected, ((Number) group[3]).longValue());
+        }
+    }
+
+    @Test
+    void testFindChangedAfterFollowsUpdatesAndStatusChanges() {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 12, 0);
+        Book first = null;
+        for (int i = 0; i < 3; i++) {
+            Book book = new Book();
+            book.setTitle("Synced " + i);
+            book.setAuthor("Author");
+            book.setUpdatedAt(base.plusMinutes(i));
+            book = bookRepository.save(book);
+            if (first == null) {
+                first = book;
+            }
+        }
+
+        List<Book> changed = bookRepository.findChangedAfter(null, null, PageRequest.of(0, 10));
+        assertEquals(List.of("Synced 0", "Synced 1", "Synced 2"), changed.stream().map(Book::getTitle).toList());
+
+        Book last = changed.get(2);
+        assertTrue(bookRepository.findChangedAfter(last.getUpdatedAt(), last.getId(), PageRequest.of(0, 10)).isEmpty());
+
+        // A status transition moves the book past the watermark
+        bookRepository.compareAndSetStatus(first.getId(), Book.BookStatus.AVAILABLE, Book.BookStatus.BORROWED,
+            base.plusMinutes(10));
+        List<Book> after = bookRepository.findChangedAfter(last.getUpdatedAt(), last.getId(), PageRequest.of(0, 10));
+        assertEquals(List.of(first.getId()), after.stream().map(Book::getId).toList());
+    }
+}
@@ -0,0 +1,62 @@
+package org.example.web.repository;
+
+import org.example.web.model.Book;
+import org.example.web.model.Comment;
+import org.example.web.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class CommentRepositoryTest {
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void testPagesTopLevelCommentsAndRepliesSeparately() {
+        User author = entityManager.persist(new User("commenter", "secret", "Comment", "Author",
+            "commenter@example.com", null, LocalDate.of(1990, 1, 1), User.UserType.REGULAR_USER));
+        Book book = new Book();
+        book.setTitle("Discussed");
+        book.setAuthor("Author");
+        book = entityManager.persist(book);
+
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 12, 0);
+        Comment first = null;
+        for (int i = 0; i < 3; i++) {
+            Comment comment = new Comment("Top " + i, author, book);
+            comment.setCreatedAt(base.plusMinutes(i));
+            comment = commentRepository.save(comment);
+            if (first == null) {
+                first = comment;
+            }
+        }
+        Comment reply = new Comment("Reply", author, book, first);
+        reply.setCreatedAt(base.plusMinutes(10));
+        commentRepository.save(reply);
+        commentRepository.adjustReplyCount(first.getId(), 1);
+        entityManager.clear();
+
+        List<Comment> page = commentRepository.findTopLevelPageAfter(book.getId(), null, null, PageRequest.of(0, 2));
+        assertEquals(List.of("Top 0", "Top 1"), page.stream().map(Comment::getContent).toList());
+        assertEquals(1, page.get(0).getReplyCount());
+
+        Comment last = page.get(1);
+        List<Comment> next = commentRepository.findTopLevelPageAfter(book.getId(), last.getCreatedAt(), last.getId(), PageRequest.of(0, 2));
+        assertEquals(List.of("Top 2"), next.stream().map(Comment::getContent).toList());
+
+        List<Comment> replies = commentRepository.findRepliesPageAfter(first.getId(), null, null, PageRequest.of(0, 2));
+        assertEquals(List.of("Reply"), replies.stream().map(Comment::getContent).toList());
+    }
+}
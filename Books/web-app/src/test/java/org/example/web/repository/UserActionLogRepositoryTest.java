@@ -0,0 +1,63 @@
+package org.example.web.repository;
+
+import org.example.web.model.UserActionLog;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class UserActionLogRepositoryTest {
+    @Autowired
+    private UserActionLogRepository userActionLogRepository;
+
+    @Test
+    void testStreamForExportFiltersAndOrdersNewestFirst() {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 12, 0);
+        String[][] rows = {
+            {"Alice Smith", "BOOK_CREATED"},
+            {"Bob Jones", "BOOK_CREATED"},
+            {"Alice Smith", "MESSAGE_SENT"},
+            {"Alice Smith", "BOOK_CREATED"}
+        };
+        for (int i = 0; i < rows.length; i++) {
+            UserActionLog log = new UserActionLog("user-" + i, rows[i][0], rows[i][1], "Action " + i);
+            log.setTimestamp(base.plusMinutes(i));
+            userActionLogRepository.save(log);
+        }
+
+        try (Stream<UserActionLog> stream = userActionLogRepository.streamForExport("BOOK_CREATED", "alice")) {
+            assertEquals(List.of("Action 3", "Action 0"), stream.map(UserActionLog::getDescription).toList());
+        }
+        try (Stream<UserActionLog> stream = userActionLogRepository.streamForExport(null, null)) {
+            assertEquals(4, stream.count());
+        }
+    }
+
+    @Test
+    void testDayWindowGroupsAndDeletesOnlyThatDay() {
+        LocalDateTime day = LocalDateTime.of(2024, 3, 10, 0, 0);
+        LocalDateTime[] times = {day.plusHours(1), day.plusHours(2), day.plusHours(3), day.plusDays(1).plusHours(1)};
+        String[] types = {"BOOK_CREATED", "BOOK_CREATED", "MESSAGE_SENT", "BOOK_CREATED"};
+        for (int i = 0; i < times.length; i++) {
+            UserActionLog log = new UserActionLog("user-1", "Alice Smith", types[i], "Action " + i);
+            log.setTimestamp(times[i]);
+            userActionLogRepository.save(log);
+        }
+
+        List<Object[]> groups = userActionLogRepository.countByTypeAndUserInWindow(day, day.plusDays(1));
+        assertEquals(2, groups.size());
+        for (Object[] group : groups) {
+            long expected = "BOOK_CREATED".equals(group[0]) ? 2L : 1L;
+            assertEquals(expected, ((Number) group[3]).longValue());
+        }
+
+        assertEquals(3, userActionLogRepository.deleteInWindow(day, day.plusDays(1)));
+        assertEquals(day.plusDays(1).plusHours(1), userActionLogRepository.findOldestTimestamp());
+    }
+}
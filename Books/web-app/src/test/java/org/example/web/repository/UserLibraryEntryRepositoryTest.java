@@ -0,0 +1,57 @@
+package org.example.web.repository;
+
+import org.example.web.model.Book;
+import org.example.web.model.UserLibraryEntry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class UserLibraryEntryRepositoryTest {
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserLibraryEntryRepository userLibraryEntryRepository;
+
+    private Book book(String title) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setAuthor("Author");
+        return bookRepository.save(book);
+    }
+
+    @Test
+    void testLibraryIsDistinctBooksOfOneUser() {
+        Book owned = book("Owned");
+        Book borrowed = book("Borrowed");
+        userLibraryEntryRepository.save(new UserLibraryEntry("user-1", owned, UserLibraryEntry.Role.OWNED));
+        // Owner borrowing their own book still lists it once
+        userLibraryEntryRepository.save(new UserLibraryEntry("user-1", owned, UserLibraryEntry.Role.BORROWED));
+        userLibraryEntryRepository.save(new UserLibraryEntry("user-1", borrowed, UserLibraryEntry.Role.BORROWED));
+        userLibraryEntryRepository.save(new UserLibraryEntry("user-2", borrowed, UserLibraryEntry.Role.OWNED));
+
+        List<String> titles = userLibraryEntryRepository.findBooksByUserId("user-1").stream()
+            .map(Book::getTitle).sorted().toList();
+        assertEquals(List.of("Borrowed", "Owned"), titles);
+    }
+
+    @Test
+    void testDeleteEntryAndByBookRemoveOnlyMatchingRows() {
+        Book first = book("First");
+        Book second = book("Second");
+        userLibraryEntryRepository.save(new UserLibraryEntry("user-1", first, UserLibraryEntry.Role.RESERVED));
+        userLibraryEntryRepository.save(new UserLibraryEntry("user-1", second, UserLibraryEntry.Role.OWNED));
+        userLibraryEntryRepository.save(new UserLibraryEntry("user-2", second, UserLibraryEntry.Role.BORROWED));
+
+        assertEquals(1, userLibraryEntryRepository.deleteEntry("user-1", first.getId(), UserLibraryEntry.Role.RESERVED));
+        assertFalse(userLibraryEntryRepository.existsByUserIdAndBookIdAndRole("user-1", first.getId(), UserLibraryEntry.Role.RESERVED));
+
+        assertEquals(2, userLibraryEntryRepository.deleteByBookId(second.getId()));
+        assertEquals(0, userLibraryEntryRepository.count());
+    }
+}
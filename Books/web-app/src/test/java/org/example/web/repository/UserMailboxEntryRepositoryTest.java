@@ -0,0 +1,92 @@
+package org.example.web.repository;
+
+import org.example.web.dto.MessageDto;
+import org.example.web.model.Book;
+import org.example.web.model.Message;
+import org.example.web.model.User;
+import org.example.web.model.UserMailboxEntry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class UserMailboxEntryRepositoryTest {
+    @Autowired
+    private UserMailboxEntryRepository userMailboxEntryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private User user(String username) {
+        return entityManager.persist(new User(username, "secret", username, "Reader",
+            username + "@example.com", null, LocalDate.of(1990, 1, 1), User.UserType.REGULAR_USER));
+    }
+
+    @Test
+    void testInboxIsPagedNewestFirstWithPerUserReadState() {
+        User owner = user("owner");
+        User sender = user("sender");
+        Book book = new Book();
+        book.setTitle("Asked About");
+        book.setAuthor("Author");
+        book.setOwner(owner);
+        book = entityManager.persist(book);
+
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 12, 0);
+        for (int i = 0; i < 3; i++) {
+            Message message = new Message(book, sender, "Question " + i, null);
+            message.setRecipient(owner);
+            message.setCreatedAt(base.plusMinutes(i));
+            message = entityManager.persist(message);
+            userMailboxEntryRepository.save(new UserMailboxEntry(sender.getId(), message, message.getCreatedAt(), true));
+            userMailboxEntryRepository.save(new UserMailboxEntry(owner.getId(), message, message.getCreatedAt(), false));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        List<MessageDto> page = userMailboxEntryRepository.findInboxPage(owner.getId(), null, null, PageRequest.of(0, 2));
+        assertEquals(List.of("Question 2", "Question 1"), page.stream().map(MessageDto::getContent).toList());
+        assertEquals("Asked About", page.get(0).getBookTitle());
+        assertEquals("sender Reader", page.get(0).getSenderName());
+        assertFalse(page.get(0).isRead());
+
+        MessageDto last = page.get(1);
+        List<MessageDto> next = userMailboxEntryRepository.findInboxPage(owner.getId(), last.getCreatedAt(), last.getId(), PageRequest.of(0, 2));
+        assertEquals(List.of("Question 0"), next.stream().map(MessageDto::getContent).toList());
+
+        // The sender's copy of the same message is already read
+        assertTrue(userMailboxEntryRepository.findInboxPage(sender.getId(), null, null, PageRequest.of(0, 1)).get(0).isRead());
+
+        assertEquals(1, userMailboxEntryRepository.markRead(owner.getId(), last.getId()));
+        assertEquals(0, userMailboxEntryRepository.markRead(owner.getId(), last.getId()));
+        assertEquals(2, userMailboxEntryRepository.markAllRead(owner.getId()));
+    }
+
+    @Test
+    void testUnreadCounterIsOnlyChangedByAdjust() {
+        User reader = user("reader");
+        entityManager.flush();
+
+        userRepository.adjustUnreadMessages(reader.getId(), 3);
+        userRepository.adjustUnreadMessages(reader.getId(), -1);
+        entityManager.clear();
+        assertEquals(2L, userRepository.findUnreadMessages(reader.getId()).orElseThrow());
+
+        // A stale copy of the user being saved does not overwrite the counter
+        reader.setFirstName("Renamed");
+        userRepository.saveAndFlush(reader);
+        entityManager.clear();
+        assertEquals(2L, userRepository.findUnreadMessages(reader.getId()).orElseThrow());
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.web.search;
+
+import org.example.web.model.Book;
+import org.example.web.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookFilterIndexTest {
+
+    private Book book(String id, Book.BookCategory category, Book.BookStatus status, String ownerId) {
+        User owner = new User();
+        owner.setId(ownerId);
+        Book book = new Book();
+        book.setId(id);
+        book.setCategory(category);
+        book.setStatus(status);
+        book.setOwner(owner);
+        return book;
+    }
+
+    @Test
+    void filter_combinesCategoryStatusAndOwnerExclusion() {
+        BookFilterIndex index = new BookFilterIndex();
+        index.index(book("1", Book.BookCategory.FICTION, Book.BookStatus.AVAILABLE, "alice"));
+        index.index(book("2", Book.BookCategory.FICTION, Book.BookStatus.AVAILABLE, "bob"));
+        index.index(book("3", Book.BookCategory.FICTION, Book.BookStatus.BORROWED, "bob"));
+        index.index(book("4", Book.BookCategory.NON_FICTION, Book.BookStatus.AVAILABLE, "bob"));
+
+        assertEquals(List.of("2", "4"), index.filter(null, Book.BookStatus.AVAILABLE, "alice"));
+        assertEquals(List.of("1", "2"), index.filter(Book.BookCategory.FICTION, Book.BookStatus.AVAILABLE, null));
+        assertEquals(List.of("3"), index.filter(Set.of("1", "3", "4"), Book.BookCategory.FICTION, null, "alice"));
+    }
+
+    @Test
+    void index_tracksStatusTransitionsAndReusesRemovedOrdinals() {
+        BookFilterIndex index = new BookFilterIndex();
+        Book book = book("1", Book.BookCategory.FICTION, Book.BookStatus.AVAILABLE, "alice");
+        index.index(book);
+
+        book.setStatus(Book.BookStatus.RESERVED);
+        index.index(book);
+        assertTrue(index.filter(null, Book.BookStatus.AVAILABLE, null).isEmpty());
+        assertEquals(List.of("1"), index.filter(null, Book.BookStatus.RESERVED, null));
+
+        index.remove("1");
+        index.index(book("2", Book.BookCategory.FICTION, Book.BookStatus.AVAILABLE, "bob"));
+        assertEquals(List.of("2"), index.filter(Book.BookCategory.FICTION, null, null));
+        assertEquals(1, index.size());
+    }
+}
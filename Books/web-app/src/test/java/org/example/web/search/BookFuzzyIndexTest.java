@@ -0,0 +1,63 @@
+package org.example.web.search;
+
+import org.example.web.model.Book;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookFuzzyIndexTest {
+
+    private Book book(String id, String title, String author) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        book.setAuthor(author);
+        return book;
+    }
+
+    @Test
+    void search_toleratesTyposAndRanksCloserMatchesFirst() {
+        BookFuzzyIndex index = new BookFuzzyIndex();
+        index.index(book("1", "The Hobbit", "J.R.R. Tolkien"));
+        index.index(book("2", "1984", "George Orwell"));
+        index.index(book("3", "Animal Farm", "George Orwell"));
+        index.index(book("4", "Dune", "Frank Herbert"));
+
+        assertEquals(List.of("1"), index.search("Tolkein"));
+        assertEquals(List.of("2", "3"), index.searchAuthors("orwel"));
+        assertEquals(List.of("3"), index.search("animl orwell"));
+        assertEquals(List.of("1"), index.search("hob"));
+        assertEquals(List.of("4"), index.search("frnak"));
+        assertTrue(index.search("tolstoy").isEmpty());
+        // Only authors count for searchAuthors
+        assertTrue(index.searchAuthors("hobbit").isEmpty());
+
+        // An exact word outranks a longer word it is a prefix of
+        index.index(book("0", "Dunes of Mars", "Various"));
+        assertEquals(List.of("4", "0"), index.search("dune"));
+    }
+
+    @Test
+    void index_replacesOldWordsOnUpdateAndRemove() {
+        BookFuzzyIndex index = new BookFuzzyIndex();
+        index.index(book("1", "Old Title", "Author"));
+        index.index(book("1", "New Title", "Author"));
+
+        assertTrue(index.search("old").isEmpty());
+        assertEquals(List.of("1"), index.search("nev"));
+
+        index.remove("1");
+        assertTrue(index.search("title").isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void editDistance_countsAdjacentSwapsAsOneEditAndStopsPastTheBound() {
+        assertEquals(1, BookFuzzyIndex.editDistance("tolkein", "tolkien", 2));
+        assertEquals(1, BookFuzzyIndex.editDistance("orwel", "orwell", 1));
+        assertEquals(2, BookFuzzyIndex.editDistance("kitten", "sitting", 1));
+        assertEquals(0, BookFuzzyIndex.editDistance("dune", "dune", 0));
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.web.search;
+
+import org.example.web.model.Book;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookIndexesTest {
+
+    private final BookSearchIndex searchIndex = new BookSearchIndex();
+    private final BookSuggestIndex suggestIndex = new BookSuggestIndex();
+    private final BookFuzzyIndex fuzzyIndex = new BookFuzzyIndex();
+
+    private BookIndexes indexes() {
+        BookIndexes indexes = new BookIndexes();
+        ReflectionTestUtils.setField(indexes, "bookSearchIndex", searchIndex);
+        ReflectionTestUtils.setField(indexes, "bookFilterIndex", new BookFilterIndex());
+        ReflectionTestUtils.setField(indexes, "bookSuggestIndex", suggestIndex);
+        ReflectionTestUtils.setField(indexes, "bookFuzzyIndex", fuzzyIndex);
+        return indexes;
+    }
+
+    private Book book(String id, String title) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        book.setAuthor("Frank Herbert");
+        book.setCategory(Book.BookCategory.SCIENCE_FICTION);
+        book.setStatus(Book.BookStatus.AVAILABLE);
+        return book;
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void remove_waitsForTheCommitAndIsDroppedOnRollback() {
+        BookIndexes indexes = indexes();
+        indexes.index(book("1", "Dune"));
+
+        TransactionSynchronizationManager.initSynchronization();
+        indexes.remove("1");
+        assertEquals(Set.of("1"), searchIndex.search("dune"), "nothing changes before the commit");
+
+        // Rolled back: the synchronizations are discarded without afterCommit
+        TransactionSynchronizationManager.clearSynchronization();
+        assertEquals(Set.of("1"), searchIndex.search("dune"));
+        assertEquals(1, suggestIndex.suggest("dune", 10).size());
+        assertEquals(1, fuzzyIndex.search("dune").size());
+    }
+
+    @Test
+    void index_appliesToEveryIndexAfterCommit() {
+        BookIndexes indexes = indexes();
+
+        TransactionSynchronizationManager.initSynchronization();
+        indexes.index(book("1", "Dune"));
+        assertTrue(searchIndex.search("dune").isEmpty());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals(Set.of("1"), searchIndex.search("dune"));
+        assertEquals(1, suggestIndex.suggest("dune", 10).size());
+        assertEquals(Set.of("1"), Set.copyOf(fuzzyIndex.search("dnue")));
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.web.search;
+
+import org.example.web.model.Book;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookSearchIndexTest {
+
+    private Book book(String id, String title, String author, String description) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        book.setAuthor(author);
+        book.setDescription(description);
+        return book;
+    }
+
+    @Test
+    void search_matchesWordPrefixesAcrossFields() {
+        BookSearchIndex index = new BookSearchIndex();
+        index.index(book("1", "The Great Gatsby", "F. Scott Fitzgerald", "Jazz Age novel"));
+        index.index(book("2", "Dune", "Frank Herbert", "Desert planet epic"));
+
+        assertEquals(Set.of("1"), index.search("gats"));
+        assertEquals(Set.of("2"), index.search("HERBERT"));
+        assertEquals(Set.of("2"), index.search("desert epic"));
+        assertTrue(index.search("desert jazz").isEmpty());
+    }
+
+    @Test
+    void index_replacesOldTokensOnUpdateAndRemove() {
+        BookSearchIndex index = new BookSearchIndex();
+        index.index(book("1", "Old Title", "Author", null));
+        index.index(book("1", "New Title", "Author", null));
+
+        assertTrue(index.search("old").isEmpty());
+        assertEquals(Set.of("1"), index.search("new"));
+
+        index.remove("1");
+        assertTrue(index.search("title").isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void rank_putsTitleHitsAboveAuthorAboveDescriptionAndKeepsOnlyTheBest() {
+        BookSearchIndex index = new BookSearchIndex();
+        index.index(book("desc", "Travel Notes", "Ann Smith", "A short visit to the sea"));
+        index.index(book("title", "The Sea", "Bob Jones", "A novel"));
+        index.index(book("author", "Harbour Lights", "Carl Sea", "Stories"));
+        index.index(book("other", "Mountains", "Dan Brown", "High peaks"));
+
+        Set<String> matches = index.search("sea");
+        assertEquals(List.of("title", "author", "desc"), index.rank("sea", matches, 10));
+        assertEquals(List.of("title", "author"), index.rank("sea", matches, 2));
+        // Only candidates are ranked, so filters applied to the match set still hold
+        assertEquals(List.of("author", "desc"), index.rank("sea", Set.of("author", "desc"), 10));
+        assertTrue(index.rank("sea", matches, 0).isEmpty());
+    }
+
+    @Test
+    void rank_prefersRarerWordsAndShorterFields() {
+        BookSearchIndex index = new BookSearchIndex();
+        index.index(book("1", "The Hobbit", "Tolkien", null));
+        index.index(book("2", "The Road", "McCarthy", null));
+        index.index(book("3", "The Dune", "Herbert", null));
+        index.index(book("4", "Road Trips Across The Whole Wide World", "Anonymous", null));
+
+        // "the" is in every title and adds little; "road" decides
+        assertEquals("2", index.rank("the road", Set.of("1", "2", "3"), 10).get(0));
+        // The same single hit counts for more in a short title than in a long one
+        assertEquals(List.of("2", "4"), index.rank("road", index.search("road"), 10));
+    }
+}
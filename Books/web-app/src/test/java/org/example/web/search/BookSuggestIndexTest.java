@@ -0,0 +1,61 @@
+package org.example.web.search;
+
+import org.example.web.dto.BookSuggestion;
+import org.example.web.model.Book;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookSuggestIndexTest {
+
+    private Book book(String id, String title, String author) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        book.setAuthor(author);
+        return book;
+    }
+
+    private List<String> texts(List<BookSuggestion> suggestions) {
+        return suggestions.stream().map(BookSuggestion::getText).collect(Collectors.toList());
+    }
+
+    @Test
+    void suggest_listsWholeTextMatchesBeforeLaterWordMatches() {
+        BookSuggestIndex index = new BookSuggestIndex();
+        index.index(book("1", "The Great Gatsby", "F. Scott Fitzgerald"));
+        index.index(book("2", "Great Expectations", "Charles Dickens"));
+        index.index(book("3", "Dune", "Frank Herbert"));
+
+        assertEquals(List.of("Great Expectations", "The Great Gatsby"), texts(index.suggest("GRE", 10)));
+        assertEquals(List.of("The Great Gatsby"), texts(index.suggest("great ga", 10)));
+        assertEquals(List.of("F. Scott Fitzgerald", "Frank Herbert"), texts(index.suggest("f", 10)));
+        assertEquals(1, index.suggest("gre", 1).size());
+        assertTrue(index.suggest("  ", 10).isEmpty());
+
+        BookSuggestion author = index.suggest("dick", 10).get(0);
+        assertEquals(BookSuggestion.Type.AUTHOR, author.getType());
+    }
+
+    @Test
+    void index_countsSharedTextsAndDropsThemWithTheirLastBook() {
+        BookSuggestIndex index = new BookSuggestIndex();
+        index.index(book("1", "Dune", "Frank Herbert"));
+        index.index(book("2", "Dune Messiah", "frank herbert"));
+
+        assertEquals(2, index.suggest("herb", 10).get(0).getBookCount());
+
+        index.index(book("2", "Children of Dune", "Frank Herbert"));
+        assertTrue(index.suggest("messiah", 10).isEmpty());
+        assertEquals(List.of("Children of Dune"), texts(index.suggest("child", 10)));
+
+        index.remove("1");
+        assertEquals(1, index.suggest("herb", 10).get(0).getBookCount());
+        index.remove("2");
+        assertTrue(index.suggest("d", 10).isEmpty());
+        assertEquals(0, index.size());
+    }
+}
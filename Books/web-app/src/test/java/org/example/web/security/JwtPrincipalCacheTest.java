@@ -0,0 +1,110 @@
+package org.example.web.security;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.example.web.model.User;
+import org.example.web.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class JwtPrincipalCacheTest {
+
+    private static final String SECRET = "test-secret-key-that-is-long-enough-for-hs256-signing";
+
+    private JwtPrincipalCache cache(UserRepository repository) {
+        JwtPrincipalCache cache = new JwtPrincipalCache();
+        ReflectionTestUtils.setField(cache, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 60L);
+        ReflectionTestUtils.setField(cache, "maxSize", 2);
+        ReflectionTestUtils.setField(cache, "userRepository", repository);
+        cache.init();
+        return cache;
+    }
+
+    private String token(String userId) {
+        return token(userId, SECRET);
+    }
+
+    private String token(String userId, String secret) {
+        return Jwts.builder()
+                .subject(userId)
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+
+    @Test
+    void resolve_loadsUserOncePerTokenUntilEvicted() {
+        UserRepository repository = mock(UserRepository.class);
+        User user = new User();
+        user.setId("u1");
+        when(repository.findById("u1")).thenReturn(Optional.of(user));
+
+        JwtPrincipalCache cache = cache(repository);
+        String token = token("u1");
+
+        assertSame(user, cache.resolve(token));
+        assertSame(user, cache.resolve(token));
+        verify(repository, times(1)).findById("u1");
+
+        cache.evictUser("u1");
+        when(repository.findById("u1")).thenReturn(Optional.empty());
+        assertNull(cache.resolve(token));
+        verify(repository, times(2)).findById("u1");
+    }
+
+    @Test
+    void evictUser_insideATransactionEvictsAgainAfterCommit() {
+        UserRepository repository = mock(UserRepository.class);
+        User user = new User();
+        user.setId("u1");
+        when(repository.findById("u1")).thenReturn(Optional.of(user));
+        JwtPrincipalCache cache = cache(repository);
+        String token = token("u1");
+        cache.resolve(token);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.evictUser("u1");
+            assertEquals(0, cache.size());
+            // A request racing the delete still finds the uncommitted row and caches it again
+            cache.resolve(token);
+            assertEquals(1, cache.size());
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void resolve_rejectsBadSignatureAndStaysBounded() {
+        UserRepository repository = mock(UserRepository.class);
+        when(repository.findById(anyString())).thenAnswer(invocation -> {
+            User user = new User();
+            user.setId(invocation.getArgument(0));
+            return Optional.of(user);
+        });
+        JwtPrincipalCache cache = cache(repository);
+
+        assertThrows(JwtException.class, () -> cache.resolve(token("u1", SECRET + "-other")));
+
+        cache.resolve(token("a"));
+        cache.resolve(token("b"));
+        cache.resolve(token("c"));
+        assertEquals(2, cache.size());
+    }
+}
@@ -0,0 +1,68 @@
+package org.example.web.service;
+
+import org.example.web.repository.BookRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BookCounterServiceTest {
+
+    private BookCounterService service(BookRepository repository) {
+        BookCounterService service = new BookCounterService();
+        ReflectionTestUtils.setField(service, "bookRepository", repository);
+        ReflectionTestUtils.setField(service, "resourceVersionService", new ResourceVersionService());
+        return service;
+    }
+
+    @Test
+    void flush_writesConcurrentIncrementsAsOneDifferencePerBook() throws Exception {
+        BookRepository repository = mock(BookRepository.class);
+        BookCounterService service = service(repository);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    service.commentAdded("hot");
+                    service.borrowed("hot");
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        service.reservationStarted("quiet");
+        service.reservationStarted("quiet");
+        service.reservationEnded("quiet");
+
+        service.flush();
+        verify(repository).addToCounters("hot", 8000, 8000, 0);
+        verify(repository).addToCounters("quiet", 0, 0, 1);
+
+        // Nothing new: nothing written
+        service.flush();
+        verify(repository, times(2)).addToCounters(anyString(), anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    void flush_retriesTheSameDifferenceAfterAFailedWrite() {
+        BookRepository repository = mock(BookRepository.class);
+        when(repository.addToCounters("book", 1, 0, 0))
+            .thenThrow(new RuntimeException("database unavailable"))
+            .thenReturn(1);
+        BookCounterService service = service(repository);
+
+        service.commentAdded("book");
+        service.flush();
+        service.flush();
+
+        verify(repository, times(2)).addToCounters("book", 1, 0, 0);
+    }
+}
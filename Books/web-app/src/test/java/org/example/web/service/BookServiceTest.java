@@ -0,0 +1,83 @@
+package org.example.web.service;
+
+import org.example.web.model.Book;
+import org.example.web.repository.BookRepository;
+import org.example.web.search.BookFilterIndex;
+import org.example.web.search.BookSearchIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BookServiceTest {
+
+    private final BookRepository bookRepository = mock(BookRepository.class);
+    private final BookSearchIndex bookSearchIndex = mock(BookSearchIndex.class);
+    private final BookFilterIndex bookFilterIndex = mock(BookFilterIndex.class);
+    // Sizes of the id lists the repository was asked to load
+    private final List<Integer> loads = new ArrayList<>();
+
+    private BookService service(Predicate<String> inDatabaseFilters) {
+        when(bookRepository.findByIdsWithAllFilters(anyCollection(), any(), any(), any(), any(), any(), any()))
+            .thenAnswer(invocation -> {
+                Collection<String> ids = invocation.getArgument(0);
+                loads.add(ids.size());
+                List<Book> rows = new ArrayList<>();
+                for (String id : ids) {
+                    if (inDatabaseFilters.test(id)) {
+                        Book book = new Book();
+                        book.setId(id);
+                        rows.add(book);
+                    }
+                }
+                return rows;
+            });
+        BookService service = new BookService();
+        ReflectionTestUtils.setField(service, "bookRepository", bookRepository);
+        ReflectionTestUtils.setField(service, "bookSearchIndex", bookSearchIndex);
+        ReflectionTestUtils.setField(service, "bookFilterIndex", bookFilterIndex);
+        return service;
+    }
+
+    private static List<String> ids(int count) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add("b" + i);
+        }
+        return ids;
+    }
+
+    @Test
+    void searchBooksWithAllFilters_withoutQueryReturnsEveryMatch() {
+        BookService service = service(id -> true);
+        when(bookFilterIndex.filter(null, null, null)).thenReturn(ids(120));
+
+        assertEquals(120, service.searchBooksWithAllFilters(null, null, null, null, null, null, null, 50).size());
+    }
+
+    @Test
+    void searchBooksWithAllFilters_loadsRankedChunksUntilLimitPassTheAuthorFilter() {
+        // Only every other book is by the requested author
+        BookService service = service(id -> Integer.parseInt(id.substring(1)) % 2 == 0);
+        List<String> ranked = ids(5000);
+        Set<String> matches = new LinkedHashSet<>(ranked);
+        when(bookSearchIndex.search("the")).thenReturn(matches);
+        when(bookFilterIndex.filter(matches, null, null, null)).thenReturn(ranked);
+        when(bookSearchIndex.rank("the", ranked, ranked.size())).thenReturn(ranked);
+
+        List<Book> books = service.searchBooksWithAllFilters("the", null, "Author", null, null, null, null, 10);
+
+        assertEquals(List.of("b0", "b2", "b4", "b6", "b8", "b10", "b12", "b14", "b16", "b18"),
+                     books.stream().map(Book::getId).toList());
+        assertEquals(List.of(10, 20), loads, "only the best ranked chunks are loaded");
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.web.service;
+
+import org.example.web.dto.BookChanges;
+import org.example.web.dto.SyncWatermark;
+import org.example.web.model.Book;
+import org.example.web.repository.BookRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(BookSyncService.class)
+class BookSyncServiceTest {
+
+    @Autowired
+    private BookSyncService bookSyncService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Test
+    void getChanges_pagesASnapshotOfOldBooksToCompletion() {
+        // Whole seconds, so the entities this session hands back match what the database stored
+        LocalDateTime longAgo = LocalDateTime.now().minusDays(60).truncatedTo(ChronoUnit.SECONDS);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Book book = new Book();
+            book.setTitle("Old " + i);
+            book.setAuthor("Author");
+            book.setCreatedAt(longAgo.plusMinutes(i));
+            book.setUpdatedAt(longAgo.plusMinutes(i));
+            ids.add(bookRepository.save(book).getId());
+        }
+
+        List<String> seen = new ArrayList<>();
+        String since = null;
+        BookChanges changes;
+        int calls = 0;
+        do {
+            changes = bookSyncService.getChanges(since, 2);
+            assertEquals(calls == 0, changes.isReset(), "only the first batch of a snapshot resets");
+            changes.getUpdated().forEach(book -> seen.add(book.getId()));
+            since = changes.getWatermark();
+            assertTrue(++calls <= 3, "the snapshot never finished");
+        } while (changes.isHasMore());
+
+        assertEquals(ids, seen);
+    }
+
+    @Test
+    void getChanges_resetsAWatermarkIssuedBeforeTheRetainedTombstones() {
+        LocalDateTime longAgo = LocalDateTime.now().minusDays(31);
+        String stale = new SyncWatermark(longAgo, "", longAgo).encode();
+
+        assertTrue(bookSyncService.getChanges(stale, 10).isReset());
+    }
+}
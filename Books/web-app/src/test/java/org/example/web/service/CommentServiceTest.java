@@ -0,0 +1,69 @@
+package org.example.web.service;
+
+import org.example.web.model.Comment;
+import org.example.web.model.User;
+import org.example.web.repository.CommentRepository;
+import org.example.web.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CommentServiceTest {
+
+    private Comment comment(String id, Comment parent) {
+        Comment comment = new Comment("Comment " + id, null, null, parent);
+        comment.setId(id);
+        return comment;
+    }
+
+    @Test
+    void replyTakesDepthFromItsParent() {
+        Comment root = comment("a", null);
+        Comment child = comment("b", root);
+        Comment grandchild = comment("c", child);
+
+        assertEquals(0, root.getDepth());
+        assertEquals(2, grandchild.getDepth());
+    }
+
+    @Test
+    void createReply_rejectsRepliesBelowTheMaximumDepth() {
+        UserRepository userRepository = mock(UserRepository.class);
+        CommentRepository commentRepository = mock(CommentRepository.class);
+        when(userRepository.findById("u")).thenReturn(Optional.of(new User()));
+        Comment deepest = comment("deep", null);
+        deepest.setDepth(CommentService.MAX_REPLY_DEPTH);
+        when(commentRepository.findByIdAndNotDeleted("deep")).thenReturn(Optional.of(deepest));
+
+        CommentService service = new CommentService();
+        ReflectionTestUtils.setField(service, "userRepository", userRepository);
+        ReflectionTestUtils.setField(service, "commentRepository", commentRepository);
+
+        assertThrows(IllegalArgumentException.class, () -> service.createReply("too deep", "u", "deep"));
+        verify(commentRepository, never()).save(any());
+    }
+
+    @Test
+    void assembleTree_nestsEveryLevelAndDropsRepliesOfMissingParents() {
+        Comment root = comment("a", null);
+        Comment child = comment("b", root);
+        Comment grandchild = comment("c", child);
+        Comment otherRoot = comment("d", null);
+        Comment deleted = comment("e", otherRoot);
+        Comment orphan = comment("f", deleted);
+
+        // Children may arrive before their parents; the deleted comment is not in the list
+        List<Comment> roots = CommentService.assembleTree(List.of(grandchild, root, otherRoot, child, orphan));
+
+        assertEquals(List.of(root, otherRoot), roots);
+        assertEquals(List.of(child), root.getReplies());
+        assertEquals(List.of(grandchild), child.getReplies());
+        assertTrue(otherRoot.getReplies().isEmpty());
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.web.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingServiceTest {
+
+    private PasswordHashingService service(int threads, int queueCapacity) {
+        PasswordHashingService service = new PasswordHashingService();
+        ReflectionTestUtils.setField(service, "threads", threads);
+        ReflectionTestUtils.setField(service, "queueCapacity", queueCapacity);
+        service.start();
+        return service;
+    }
+
+    @Test
+    void encodeAndMatches_runOnPoolAndRecordLatency() {
+        PasswordHashingService service = service(1, 4);
+        String hash = service.encode("secret").join();
+
+        assertTrue(new BCryptPasswordEncoder().matches("secret", hash));
+        assertTrue(service.matches("secret", hash).join());
+        assertFalse(service.matches("wrong", hash).join());
+        assertEquals(3L, service.getStats().get("completed"));
+        assertTrue((Double) service.getStats().get("maxHashMillis") > 0);
+        service.shutdown();
+    }
+
+    @Test
+    void submit_rejectsImmediatelyWhenPoolAndQueueAreFull() throws Exception {
+        PasswordHashingService service = service(1, 1);
+        // Hold the single worker until the assertions are done so the next task has to sit in the queue
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(service, "executor");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<String> queued = service.encode("two");
+        assertThrows(PasswordHashingBusyException.class, () -> service.encode("three"));
+        assertEquals(1L, service.getStats().get("rejected"));
+        assertFalse(queued.isDone());
+
+        release.countDown();
+        assertTrue(new BCryptPasswordEncoder().matches("two", queued.join()));
+        service.shutdown();
+    }
+}
@@ -0,0 +1,44 @@
+package org.example.web.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResourceVersionServiceTest {
+
+    @Test
+    void changed_insideATransactionOnlyMovesTheTagAfterCommit() {
+        ResourceVersionService service = new ResourceVersionService();
+        String before = service.etag(ResourceVersionService.Table.BOOKS);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.changed(ResourceVersionService.Table.BOOKS);
+            assertEquals(before, service.etag(ResourceVersionService.Table.BOOKS));
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertNotEquals(before, service.etag(ResourceVersionService.Table.BOOKS));
+        // Other tables keep their tags
+        assertEquals(0, service.version(ResourceVersionService.Table.COMMENTS));
+    }
+
+    @Test
+    void etag_isQuotedAndVariesWithTheVariants() {
+        ResourceVersionService service = new ResourceVersionService();
+        String tag = service.etag(ResourceVersionService.Table.BOOKS, "user-1");
+
+        assertTrue(tag.startsWith("\"") && tag.endsWith("\""));
+        assertEquals(tag, service.etag(ResourceVersionService.Table.BOOKS, "user-1"));
+        assertNotEquals(tag, service.etag(ResourceVersionService.Table.BOOKS, "user-2"));
+
+        service.changed(ResourceVersionService.Table.BOOKS);
+        assertNotEquals(tag, service.etag(ResourceVersionService.Table.BOOKS, "user-1"));
+    }
+}
@@ -0,0 +1,119 @@
+package org.example.web.service;
+
+import org.example.web.model.Book;
+import org.example.web.model.Transaction;
+import org.example.web.model.User;
+import org.example.web.repository.BookRepository;
+import org.example.web.repository.TransactionRepository;
+import org.example.web.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class TransactionServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private UserLibraryService userLibraryService;
+
+    private final List<User> users = new ArrayList<>();
+    private Book book;
+
+    private User newUser(String label) {
+        String suffix = label + "-" + UUID.randomUUID();
+        User user = new User("cas-" + suffix, "x", "Cas", "Tester", suffix + "@example.com", null,
+                LocalDate.of(1990, 1, 1), User.UserType.REGULAR_USER);
+        user = userRepository.save(user);
+        users.add(user);
+        return user;
+    }
+
+    @AfterEach
+    void cleanUp() {
+        if (book != null) {
+            transactionRepository.deleteAll(transactionRepository.findByBook(book));
+            userLibraryService.removeBook(book.getId());
+            bookRepository.deleteById(book.getId());
+        }
+        users.forEach(user -> userRepository.deleteById(user.getId()));
+    }
+
+    @Test
+    void borrowBook_concurrentBorrowersProduceExactlyOneWinner() throws Exception {
+        User owner = newUser("owner");
+        book = bookRepository.save(new Book("Contended", "Author", Book.BookCategory.FICTION, null, owner));
+        List<User> borrowers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            borrowers.add(newUser("borrower" + i));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger winners = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        AtomicInteger notAvailable = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (User borrower : borrowers) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                try {
+                    transactionService.borrowBook(book.getId(), borrower.getId());
+                    winners.incrementAndGet();
+                } catch (BookStatusConflictException e) {
+                    conflicts.incrementAndGet();
+                } catch (RuntimeException e) {
+                    // Lost before the compare-and-set: the book already read as BORROWED.
+                    // Anything else is a real failure and fails the test through future.get
+                    if (e.getMessage() == null || !e.getMessage().startsWith("Book is not available for borrowing")) {
+                        throw e;
+                    }
+                    notAvailable.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(1, winners.get());
+        assertEquals(THREADS, winners.get() + conflicts.get() + notAvailable.get(),
+            "every loser is rejected by the compare-and-set or the availability check");
+        assertEquals(Book.BookStatus.BORROWED, bookRepository.findById(book.getId()).orElseThrow().getStatus());
+        List<Transaction> active = transactionRepository.findByBookAndStatus(book, Transaction.TransactionStatus.ACTIVE);
+        assertEquals(1, active.size());
+        // Only the winner gets the book in their library
+        String winnerId = transactionRepository.findById(active.get(0).getId()).orElseThrow().getBorrower().getId();
+        for (User borrower : borrowers) {
+            boolean listed = userLibraryService.getLibrary(borrower.getId()).stream()
+                .anyMatch(b -> b.getId().equals(book.getId()));
+            assertEquals(borrower.getId().equals(winnerId), listed);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.example.web.service;
+
+import org.example.web.model.UserActionLog;
+import org.example.web.repository.UserActionLogRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class UserActionLogWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private UserActionLogWriter writer(UserActionLogRepository repository, int capacity, String policy) {
+        UserActionLogWriter writer = new UserActionLogWriter();
+        ReflectionTestUtils.setField(writer, "userActionLogRepository", repository);
+        ReflectionTestUtils.setField(writer, "resourceVersionService", new ResourceVersionService());
+        ReflectionTestUtils.setField(writer, "queueCapacity", capacity);
+        ReflectionTestUtils.setField(writer, "batchSize", 10);
+        ReflectionTestUtils.setField(writer, "flushIntervalMs", 50L);
+        ReflectionTestUtils.setField(writer, "backpressure", policy);
+        ReflectionTestUtils.setField(writer, "spillFile", tempDir.resolve("spill.ndjson").toString());
+        return writer;
+    }
+
+    private UserActionLog action(int i) {
+        return new UserActionLog("user-" + i, "User " + i, "BOOK_CREATED", "Created book " + i);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shutdown_flushesEveryQueuedEntryInBatches() {
+        UserActionLogRepository repository = mock(UserActionLogRepository.class);
+        List<UserActionLog> saved = new ArrayList<>();
+        when(repository.saveAll(anyList())).thenAnswer(invocation -> {
+            saved.addAll(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+
+        UserActionLogWriter writer = writer(repository, 100, "block");
+        writer.start();
+        for (int i = 0; i < 25; i++) {
+            writer.enqueue(action(i));
+        }
+        writer.shutdown();
+
+        assertEquals(25, saved.size());
+        ArgumentCaptor<List<UserActionLog>> batches = ArgumentCaptor.forClass(List.class);
+        verify(repository, atLeast(3)).saveAll(batches.capture());
+        batches.getAllValues().forEach(batch -> assertTrue(batch.size() <= 10));
+    }
+
+    @Test
+    void spill_policyWritesOverflowToFileAndReplaysItOnStart() throws Exception {
+        UserActionLogRepository repository = mock(UserActionLogRepository.class);
+        UserActionLogWriter writer = writer(repository, 1, "spill");
+        // Mark as running without a drainer so the one-slot queue stays full
+        ReflectionTestUtils.setField(writer, "queue", new java.util.concurrent.ArrayBlockingQueue<UserActionLog>(1));
+        ReflectionTestUtils.setField(writer, "policy", UserActionLogWriter.BackpressurePolicy.SPILL);
+        ReflectionTestUtils.setField(writer, "running", true);
+
+        writer.enqueue(action(1));
+        writer.enqueue(action(2));
+        writer.enqueue(action(3));
+
+        Path spill = tempDir.resolve("spill.ndjson");
+        assertEquals(2, Files.readAllLines(spill).size());
+
+        UserActionLogWriter restarted = writer(repository, 10, "spill");
+        restarted.start();
+        restarted.shutdown();
+        verify(repository).saveAll(argThat((List<UserActionLog> batch) -> batch.size() == 2));
+        assertFalse(Files.exists(spill));
+    }
+
+    @Test
+    void enqueue_insideATransactionWaitsForTheCommit() {
+        UserActionLogRepository repository = mock(UserActionLogRepository.class);
+        List<UserActionLog> saved = new ArrayList<>();
+        when(repository.saveAll(anyList())).thenAnswer(invocation -> {
+            saved.addAll(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+        UserActionLogWriter writer = writer(repository, 10, "block");
+        writer.start();
+        try {
+            TransactionSynchronizationManager.initSynchronization();
+            writer.enqueue(action(1));
+            // Rolled back: the entry is never queued
+            TransactionSynchronizationManager.clearSynchronization();
+
+            TransactionSynchronizationManager.initSynchronization();
+            writer.enqueue(action(2));
+            assertEquals(0, writer.getQueueDepth());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        writer.shutdown();
+
+        assertEquals(1, saved.size());
+        assertEquals("user-2", saved.get(0).getUserId());
+    }
+}